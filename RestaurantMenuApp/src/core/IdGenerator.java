@@ -0,0 +1,283 @@
+package core;
+
+import enums.DataType;
+import tools.FileIO;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.nio.channels.FileChannel;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates unique IDs for restaurant data objects and orders, safe for use by multiple terminals at once.
+ * Each data type has its own atomic sequence, so IDs are handed out without locking.
+ * Order IDs combine the creation date-time with the node ID of the terminal and a sequence number, so orders created within the same second never collide.
+ * Every sequence reserves IDs in blocks, and only the end of each reserved block is written to a text file, so the file is written once per block rather than once per ID.
+ * Blocks are reserved while holding a lock file, starting after the end of the last block recorded in the state file, so terminals sharing the same data never reserve overlapping blocks.
+ * The state file is restored on start-up, so IDs are never reused across restarts; IDs left unused in a block when the application stops are skipped.
+ * The node ID may be configured with the system property 'restaurant.node' and must be different for every terminal sharing the same data.
+ * If it is not configured, it is derived from the host name and process ID of the terminal.
+ */
+class IdGenerator {
+    /**
+     * Text file holding the end of the reserved block of every sequence.
+     */
+    private static final String STATE_FILE = "id_generator";
+
+    /**
+     * Text file the state file is rewritten into before replacing it.
+     */
+    private static final String TEMP_STATE_FILE = "id_generator_new";
+
+    /**
+     * Text file locked while a block is reserved, so only one terminal reads and writes the state file at a time.
+     */
+    private static final String LOCK_FILE = "id_generator_lock";
+
+    /**
+     * Key of the order ID sequence in the state file.
+     */
+    private static final String ORDER_ID_KEY = "ORDER_ID";
+
+    /**
+     * Number of IDs reserved by every sequence at a time.
+     */
+    private static final int BLOCK_SIZE = 100;
+
+    /**
+     * Maps data types to their ID sequences. Every data type is mapped on construction and the map is never modified afterwards.
+     */
+    private final Map<DataType, Sequence> sequenceMap;
+
+    /**
+     * Sequence for the order ID suffix.
+     */
+    private final Sequence orderSequence;
+
+    /**
+     * Node ID of this terminal, included in every order ID.
+     */
+    private final int nodeId;
+
+    /**
+     * Creates the sequences for every data type, starting from the values in the state file if it exists.
+     * @throws IOException Errors that occurred while reading the state file, or if the configured node ID is invalid.
+     */
+    IdGenerator() throws IOException {
+        sequenceMap = new EnumMap<>(DataType.class);
+        orderSequence = new Sequence();
+        nodeId = getNodeId();
+
+        for (DataType dataType : DataType.values()) {
+            sequenceMap.put(dataType, new Sequence());
+        }
+
+        for (Map.Entry<Sequence, Long> entry : readState().entrySet()) {
+            entry.getKey().value.set(entry.getValue());
+            entry.getKey().limit = entry.getValue();
+        }
+    }
+
+    /**
+     * Reads the end of the last reserved block of every sequence from the state file.
+     * @return Map of sequences to the end of their last reserved block, holding only the sequences in the state file.
+     * @throws IOException Errors that occurred while reading the state file, or if the state file is invalid.
+     */
+    private Map<Sequence, Long> readState() throws IOException {
+        final Map<Sequence, Long> stateMap = new HashMap<>();
+        final FileIO f = new FileIO();
+
+        if (!f.isFileExists(STATE_FILE)) {
+            return stateMap;
+        }
+
+        for (String data : f.read(STATE_FILE)) {
+            final String[] stateData = data.split(" // ");
+
+            if (stateData.length != 2) {
+                continue;
+            }
+
+            try {
+                final Sequence sequence = stateData[0].equals(ORDER_ID_KEY) ? orderSequence : sequenceMap.get(DataType.valueOf(stateData[0]));
+                stateMap.put(sequence, Long.parseLong(stateData[1]));
+            } catch (IllegalArgumentException e) {
+                throw (new IOException("Invalid file data for '" + STATE_FILE + "': " + data));
+            }
+        }
+
+        return stateMap;
+    }
+
+    /**
+     * Retrieves the node ID of this terminal, from the system property 'restaurant.node' if configured or else from the host name and process ID.
+     * @return Non-negative node ID.
+     * @throws IOException Thrown if the configured node ID is not a non-negative number.
+     */
+    private static int getNodeId() throws IOException {
+        final String configuredNode = System.getProperty("restaurant.node");
+
+        if (configuredNode != null) {
+            int configuredId;
+
+            try {
+                configuredId = Integer.parseInt(configuredNode.trim());
+            } catch (NumberFormatException e) {
+                configuredId = -1;
+            }
+
+            if (configuredId < 0) {
+                throw (new IOException("Invalid node ID '" + configuredNode + "', must be a non-negative number."));
+            }
+
+            return configuredId;
+        }
+
+        String hostName;
+
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            hostName = "localhost";
+        }
+
+        return (hostName + "/" + ProcessHandle.current().pid()).hashCode() & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Raises the sequence of a data type to at least the given ID, so that generated IDs are larger than existing ones.
+     * @param dataType Data type of the sequence.
+     * @param id Smallest value for the sequence.
+     */
+    void setMinimum(DataType dataType, int id) {
+        sequenceMap.get(dataType).value.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Generates the next ID of a data type.
+     * @param dataType Data type to generate the ID for.
+     * @return Generated ID.
+     * @throws IOException Errors that occurred while writing the state file.
+     */
+    int next(DataType dataType) throws IOException {
+        return Math.toIntExact(take(sequenceMap.get(dataType), 1));
+    }
+
+    /**
+     * Reserves a block of consecutive IDs of a data type.
+     * @param dataType Data type to generate the IDs for.
+     * @param count Number of IDs to reserve.
+     * @return First ID of the reserved block.
+     * @throws IOException Errors that occurred while writing the state file.
+     */
+    int next(DataType dataType, int count) throws IOException {
+        return Math.toIntExact(take(sequenceMap.get(dataType), count));
+    }
+
+    /**
+     * Generates a new order ID in the form 'yyyyMMdd-HHmmss-node-sequence'.
+     * The date-time prefix is kept in the same format as older order IDs, so the creation date-time can still be read from the first 15 characters.
+     * @return Generated order ID.
+     * @throws IOException Errors that occurred while writing the state file.
+     */
+    String nextOrderId() throws IOException {
+        final long sequence = take(orderSequence, 1);
+        final String dateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return dateTime + "-" + nodeId + "-" + sequence;
+    }
+
+    /**
+     * Takes consecutive IDs from a sequence, reserving a further block if the reserved block does not have enough IDs left.
+     * IDs within the block are handed out without locking; only reserving a block takes the lock and writes the state file.
+     * @param sequence Sequence to take the IDs from.
+     * @param count Number of IDs to take.
+     * @return First ID taken.
+     * @throws IOException Errors that occurred while reading or writing the state file.
+     */
+    private long take(Sequence sequence, int count) throws IOException {
+        while (true) {
+            final long value = sequence.value.get();
+
+            if (value + count <= sequence.limit) {
+                if (sequence.value.compareAndSet(value, value + count)) {
+                    return value + 1;
+                }
+
+                continue;
+            }
+
+            synchronized (this) {
+                if (sequence.value.get() + count > sequence.limit) {
+                    reserve(sequence, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves a block of IDs for a sequence, starting after every ID handed out by this or any other terminal.
+     * The sequence is moved up to the start of the block before the end of the block is published, so IDs between the old and new blocks are never handed out.
+     * @param sequence Sequence to reserve the block for.
+     * @param count Number of IDs the block must hold beyond those reserved for other terminals.
+     * @throws IOException Errors that occurred while locking, reading or writing the state file.
+     */
+    private void reserve(Sequence sequence, int count) throws IOException {
+        final FileChannel lock = new FileIO().lockFile(LOCK_FILE);
+
+        try {
+            final Map<Sequence, Long> stateMap = readState();
+            final long start = sequence.value.accumulateAndGet(stateMap.getOrDefault(sequence, -1L), Math::max);
+            final long limit = start + count + BLOCK_SIZE;
+            stateMap.put(sequence, limit);
+            persist(stateMap);
+            sequence.limit = limit;
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Writes the end of the reserved block of every sequence to the state file, keeping the blocks reserved by other terminals.
+     * The lines are written to a separate file that then replaces the state file, so the state file is never left empty or part written.
+     * @param stateMap Map of sequences to the end of their last reserved block, as read from the state file and updated with the block being reserved.
+     * @throws IOException Errors that occurred while writing the state file.
+     */
+    private void persist(Map<Sequence, Long> stateMap) throws IOException {
+        final List<String> stateList = new ArrayList<>();
+
+        for (Map.Entry<DataType, Sequence> entry : sequenceMap.entrySet()) {
+            final Sequence sequence = entry.getValue();
+            stateList.add(entry.getKey().name() + " // " + Math.max(sequence.limit, stateMap.getOrDefault(sequence, -1L)));
+        }
+
+        stateList.add(ORDER_ID_KEY + " // " + Math.max(orderSequence.limit, stateMap.getOrDefault(orderSequence, -1L)));
+
+        final FileIO f = new FileIO();
+        f.clearFile(TEMP_STATE_FILE);
+        f.writeLines(TEMP_STATE_FILE, stateList, true);
+        f.replaceFile(TEMP_STATE_FILE, STATE_FILE);
+    }
+
+    /**
+     * Sequence of IDs with the end of its reserved block.
+     */
+    private static class Sequence {
+        /**
+         * Last ID generated.
+         */
+        private final AtomicLong value = new AtomicLong(-1);
+
+        /**
+         * Last ID of the reserved block, written to the state file before any ID up to it is handed out.
+         * Blocks reserved earlier by other terminals end before the start of this block.
+         */
+        private volatile long limit = -1;
+    }
+}
@@ -51,8 +51,9 @@ public class Main {
     /**
      * Initialises the list and hash-maps used in this class.
      * Also initialises a restaurant object that will be used for the lifespan duration of the application.
+     * @throws Exception contains error messages that may be thrown when initialising the restaurant
      */
-    private Main() {
+    private Main() throws Exception {
         this.restaurant = new Restaurant();
         commandToClassMap = new HashMap<>();
         commandToIndexMap = new HashMap<>();
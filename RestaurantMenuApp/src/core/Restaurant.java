@@ -3,6 +3,7 @@ package core;
 import enums.DataType;
 import tools.FileIO;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,10 +26,29 @@ public class Restaurant {
     private Map<DataType, Comparator<? extends RestaurantData>> defaultComparatorMap;
 
     /**
-     * Maps data types to an unique ID integer each.
+     * Generates unique IDs for each data type and for orders.
      * Unique ID generation is handled using a set and generate function in this class.
+     * @see IdGenerator
      */
-    private Map<DataType, Integer> uniqueIdMap;
+    private IdGenerator idGenerator;
+
+    /**
+     * Maps data types to a version number each. The version is incremented whenever an object of the data type is saved, loaded or removed.
+     * Used by caches built from restaurant data to detect when they need to be rebuilt.
+     */
+    private Map<DataType, Long> dataVersionMap;
+
+    /**
+     * Maps data types to a map of normalized names to objects each. Only objects that have a name are indexed.
+     * Kept up to date by the save, load and remove functions, so name lookups do not need to go through the data lists.
+     */
+    private Map<DataType, Map<String, RestaurantData>> nameIndexMap;
+
+    /**
+     * Maps data types to a map of object IDs to the normalized name each object is indexed under.
+     * Used to find the old index entry of an object when it is renamed.
+     */
+    private Map<DataType, Map<Integer, String>> indexedNameMap;
 
     /**
      * ID of the staff running the restaurant application.
@@ -38,19 +58,26 @@ public class Restaurant {
     /**
      * Initialises all hash-maps used in this class.
      * Initialises and assigns a list to each data type declared in the DataType enumerator.
+     * Restores the state of the unique ID generator from its text file.
      * @param <X> Constrains all lists to only be able to hold a RestaurantData object, or any of its sub-classes.
+     * @throws Exception contains error messages as to why the unique ID generator could not be restored
      * @see DataType
      */
-    <X extends RestaurantData> Restaurant() {
+    <X extends RestaurantData> Restaurant() throws Exception {
         dataListMap = new HashMap<>();
         defaultComparatorMap = new HashMap<>();
-        uniqueIdMap = new HashMap<>();
+        idGenerator = new IdGenerator();
+        dataVersionMap = new EnumMap<>(DataType.class);
+        nameIndexMap = new EnumMap<>(DataType.class);
+        indexedNameMap = new EnumMap<>(DataType.class);
 
         for (DataType dataType : DataType.values()) {
             final List<X> newList = new ArrayList<>();
             dataListMap.putIfAbsent(dataType, newList);
             defaultComparatorMap.putIfAbsent(dataType, Comparator.comparing(X::getId));
-            uniqueIdMap.putIfAbsent(dataType, -1);
+            dataVersionMap.putIfAbsent(dataType, 0L);
+            nameIndexMap.putIfAbsent(dataType, new HashMap<>());
+            indexedNameMap.putIfAbsent(dataType, new HashMap<>());
         }
     }
 
@@ -108,6 +135,20 @@ public class Restaurant {
         return List.copyOf(getOriginalDataList(dataType));
     }
 
+    /**
+     * Retrieves a sorted copy of the list for a given data type, without re-sorting the stored list
+     * Used by caches built from restaurant data, so building them never writes to the restaurant
+     * @param dataType data type of the list to retrieve
+     * @param <X> classes should be sub-classes of RestaurantData
+     * @return unmodifiable list of the given data type, sorted by its default comparator
+     * @throws Exception contains error messages as to why list retrieval failed
+     */
+    public <X extends RestaurantData> List<X> getSortedDataList(DataType dataType) throws Exception {
+        final List<X> dataList = getOriginalDataList(dataType);
+        final Comparator<X> comparator = getDefaultComparator(dataType);
+        return dataList.stream().sorted(comparator).collect(Collectors.toUnmodifiableList());
+    }
+
     /**
      * Retrieves the original list for a given data type for manipulation, without any sorting
      * @param dataType data type of the list to retrieve
@@ -158,6 +199,9 @@ public class Restaurant {
                 fileIO.writeLine(dataType.name(), data.toFileString());
                 dataList.add(data);
             }
+
+            indexName(dataType, data);
+            incrementDataVersion(dataType);
         } catch (NumberFormatException e) {
             throw (new Exception("Invalid file data to save: " + e.getMessage()));
         }
@@ -177,22 +221,37 @@ public class Restaurant {
         final DataType dataType = getDataTypeFromClass(data.getClass());
         final List<X> dataList = getOriginalDataList(dataType);
         dataList.add(data);
+        indexName(dataType, data);
+        incrementDataVersion(dataType);
     }
 
     /**
      * Writes data of all objects of a given data type in the restaurant list database into their respective text files.
+     * The data to be written is compared against the file first, by length and then byte for byte, and nothing is written if the file already holds the same data.
+     * As objects are usually modified in place before a bulk save, the version of the data type is incremented whenever the file is written.
      * @param dataType data type of objects to write data from
      * @param <X> classes should be sub-classes of RestaurantData
      * @throws Exception contains error messages as to why file writing failed
      */
     public <X extends RestaurantData> void bulkSave(DataType dataType) throws Exception {
         final List<X> dataList = getDataList(dataType);
-        final FileIO fileIO = new FileIO();
-        fileIO.clearFile(dataType.name());
+        final List<String> lineList = new ArrayList<>(dataList.size());
+        final StringBuilder content = new StringBuilder();
 
         for (X data : dataList) {
-            fileIO.writeLine(dataType.name(), data.toFileString());
+            final String line = data.toFileString();
+            lineList.add(line);
+            content.append(line).append("\n");
+        }
+
+        final FileIO fileIO = new FileIO();
+        if (fileIO.isFileContentEqual(dataType.name(), content.toString().getBytes(StandardCharsets.UTF_8))) {
+            return;
         }
+
+        fileIO.clearFile(dataType.name());
+        fileIO.writeLines(dataType.name(), lineList, false);
+        incrementDataVersion(dataType);
     }
 
     /**
@@ -225,6 +284,8 @@ public class Restaurant {
 
                 fileIO.removeLine(dataType.name(), index);
                 dataList.remove(data);
+                unindexName(dataType, data);
+                incrementDataVersion(dataType);
             } else {
                 throw (new Exception("Object does not exist in restaurant."));
             }
@@ -252,6 +313,95 @@ public class Restaurant {
         throw (new Exception("Failed to find item for the given ID '" + id + "'."));
     }
 
+    /**
+     * Checks if an object of a given data type has the given name, ignoring case and surrounding whitespace.
+     * @param dataType data type to check
+     * @param name name to check
+     * @return True / False
+     */
+    public boolean isNameExists(DataType dataType, String name) {
+        return nameIndexMap.get(dataType).containsKey(normalizeName(name));
+    }
+
+    /**
+     * Retrieves a RestaurantData object of a given data type by its name, ignoring case and surrounding whitespace.
+     * @param dataType data type to retrieve object of
+     * @param name name of the object to retrieve
+     * @param type class of the objects of the data type
+     * @param <X> classes should be sub-classes of RestaurantData
+     * @return Returns the respective RestaurantData object of the given name
+     * @throws Exception contains error messages as to why object could not be retrieved
+     */
+    public <X extends RestaurantData> X getDataFromName(DataType dataType, String name, Class<X> type) throws Exception {
+        final RestaurantData data = nameIndexMap.get(dataType).get(normalizeName(name));
+
+        if (data == null) {
+            throw (new Exception("Failed to find item for the given name '" + name + "'."));
+        }
+
+        if (!type.isInstance(data)) {
+            throw (new Exception("Item of the given name '" + name + "' is not a " + type.getSimpleName() + "."));
+        }
+
+        return type.cast(data);
+    }
+
+    /**
+     * Indexes an object under its current name, replacing the entry of its previous name if it has been renamed.
+     * @param dataType data type of the object
+     * @param data object to index
+     */
+    private void indexName(DataType dataType, RestaurantData data) {
+        unindexName(dataType, data);
+
+        if (data.getName() != null) {
+            final String name = normalizeName(data.getName());
+            nameIndexMap.get(dataType).put(name, data);
+            indexedNameMap.get(dataType).put(data.getId(), name);
+        }
+    }
+
+    /**
+     * Removes the name index entry of an object, if the entry still belongs to the object.
+     * @param dataType data type of the object
+     * @param data object to remove from the index
+     */
+    private void unindexName(DataType dataType, RestaurantData data) {
+        final String name = indexedNameMap.get(dataType).remove(data.getId());
+
+        if (name != null && nameIndexMap.get(dataType).get(name) == data) {
+            nameIndexMap.get(dataType).remove(name);
+        }
+    }
+
+    /**
+     * Normalizes a name for the name index, so that names differing only by case or surrounding whitespace are treated as the same.
+     * @param name name to normalize
+     * @return normalized name
+     */
+    public static String normalizeName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Retrieves a map of every RestaurantData object of a given data type keyed by their unique ID.
+     * The map is built in a single pass without sorting, for bulk lookups where calling getDataFromId per object would be too slow.
+     * @param dataType data type to retrieve objects of
+     * @param <X> classes should be sub-classes of RestaurantData
+     * @return map of IDs to their respective RestaurantData objects
+     * @throws Exception contains error messages as to why the objects could not be retrieved
+     */
+    public <X extends RestaurantData> Map<Integer, X> getDataMap(DataType dataType) throws Exception {
+        final List<X> dataList = getOriginalDataList(dataType);
+        final Map<Integer, X> dataMap = new HashMap<>(dataList.size() * 2);
+
+        for (X data : dataList) {
+            dataMap.put(data.getId(), data);
+        }
+
+        return dataMap;
+    }
+
     /**
      * Retrieves a RestaurantData object of a given data type by its index on the text file.
      * @param dataType data type to retrieve object of
@@ -299,24 +449,76 @@ public class Restaurant {
     }
 
     /**
-     * Sets the initial value for the unique ID generator for the given dataType.
+     * Retrieves the current version of the data of a given data type.
+     * The version changes whenever an object of the data type is saved, loaded or removed.
+     * @param dataType data type to retrieve the version of
+     * @return version number of the data type
+     */
+    public long getDataVersion(DataType dataType) {
+        return dataVersionMap.get(dataType);
+    }
+
+    /**
+     * Retrieves a combined version of the data of several data types, for caches built from more than one data type.
+     * Versions only ever increase, so the combined version changes whenever the data of any of the given data types changes.
+     * @param dataTypes data types to retrieve the combined version of
+     * @return sum of the versions of the given data types
+     */
+    public long getCombinedDataVersion(DataType... dataTypes) {
+        long version = 0;
+
+        for (DataType dataType : dataTypes) {
+            version += getDataVersion(dataType);
+        }
+
+        return version;
+    }
+
+    /**
+     * Increments the version of the data of a given data type.
+     * @param dataType data type to increment the version of
+     */
+    private void incrementDataVersion(DataType dataType) {
+        dataVersionMap.put(dataType, dataVersionMap.get(dataType) + 1);
+    }
+
+    /**
+     * Sets the initial value for the unique ID generator for the given dataType. Values lower than the current value are ignored.
      * @param dataType data type to modify the ID generator of
      * @param id initial value of the generator
      */
     public void setUniqueId(DataType dataType, int id) {
-        if (id > uniqueIdMap.get(dataType)) {
-            uniqueIdMap.put(dataType, id);
-        }
+        idGenerator.setMinimum(dataType, id);
     }
 
     /**
-     * Generates a unique ID for the given dataType
+     * Generates a unique ID for the given dataType. Safe to be called by multiple threads at once.
      * @param dataType data type to generate ID for
      * @return the generated ID
+     * @throws Exception contains error messages as to why the state of the generator could not be saved
+     */
+    public int generateUniqueId(DataType dataType) throws Exception {
+        return idGenerator.next(dataType);
+    }
+
+    /**
+     * Reserves a block of consecutive unique IDs for the given dataType, for adding many objects at once.
+     * @param dataType data type to generate IDs for
+     * @param count number of IDs to reserve
+     * @return the first ID of the reserved block, the rest following it in order
+     * @throws Exception contains error messages as to why the state of the generator could not be saved
+     */
+    public int generateUniqueIds(DataType dataType, int count) throws Exception {
+        return idGenerator.next(dataType, count);
+    }
+
+    /**
+     * Generates a unique order ID from the current date-time, the node ID of this terminal and a sequence number. Safe to be called by multiple threads at once.
+     * @return the generated order ID
+     * @throws Exception contains error messages as to why the state of the generator could not be saved
      */
-    public int generateUniqueId(DataType dataType) {
-        uniqueIdMap.put(dataType, uniqueIdMap.getOrDefault(dataType, -1) + 1);
-        return uniqueIdMap.get(dataType);
+    public String generateOrderId() throws Exception {
+        return idGenerator.nextOrderId();
     }
 
     /**
@@ -35,6 +35,15 @@ public abstract class RestaurantData {
         return id;
     }
 
+    /**
+     * Returns the name of this data, used by the restaurant to index data by name.
+     * Data types without a name return null and are not indexed.
+     * @return data name, or null if this data has no name
+     */
+    public String getName() {
+        return null;
+    }
+
     /**
      * Returns a self-defined string of this data object's data to be saved into its respective text file, conforming to a format that its manager can process.
      * @return string of this data object's data for file writing
@@ -2,6 +2,7 @@ package enums;
 
 import core.RestaurantData;
 import menu.AlaCarteItem;
+import menu.PriceRule;
 import menu.PromotionPackage;
 import staff.Staff;
 import tables.Order;
@@ -16,6 +17,7 @@ public enum DataType {
     TABLE(Table.class),
     STAFF(Staff.class),
     ORDER(Order.class),
+    PRICE_RULE(PriceRule.class),
     REVENUE(null);
 
     private Class<? extends RestaurantData> c;
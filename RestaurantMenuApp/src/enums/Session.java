@@ -0,0 +1,59 @@
+package enums;
+
+import java.time.LocalTime;
+
+/**
+ * Enumerator of the restaurant's opening sessions and their opening hours.
+ */
+public enum Session {
+    AM(LocalTime.of(11, 0), LocalTime.of(15, 0)),
+    PM(LocalTime.of(18, 0), LocalTime.of(22, 0));
+
+    private LocalTime opening;
+    private LocalTime closing;
+
+    Session(LocalTime opening, LocalTime closing) {
+        this.opening = opening;
+        this.closing = closing;
+    }
+
+    /**
+     * Obtains the opening hour of the session
+     * @return opening hour
+     */
+    public LocalTime getOpening() {
+        return opening;
+    }
+
+    /**
+     * Obtains the closing hour of the session
+     * @return closing hour
+     */
+    public LocalTime getClosing() {
+        return closing;
+    }
+
+    /**
+     * Checks if a time falls within the opening hours of the session, closing hour inclusive
+     * @param time time to check
+     * @return True / False
+     */
+    public boolean contains(LocalTime time) {
+        return !time.isBefore(opening) && !time.isAfter(closing);
+    }
+
+    /**
+     * Obtains the session a time falls within
+     * @param time time to check
+     * @return session of the time, or null if the restaurant is closed at that time
+     */
+    public static Session fromTime(LocalTime time) {
+        for (Session session : values()) {
+            if (session.contains(time)) {
+                return session;
+            }
+        }
+
+        return null;
+    }
+}
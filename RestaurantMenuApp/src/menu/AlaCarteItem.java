@@ -1,5 +1,7 @@
 package menu;
 
+import enums.DataType;
+
 import java.math.BigDecimal;
 
 /**
@@ -23,11 +25,21 @@ public class AlaCarteItem extends MenuItem {
 		this.category = category;
 	}
 
+	/**
+	 * Creates a read-only copy of an ala-carte item, as held by a menu snapshot.
+	 * @param item Item to copy.
+	 */
+	AlaCarteItem(AlaCarteItem item) {
+		super(item);
+		this.category = item.category;
+	}
+
 	/**
 	 * Updates the category of the item.
 	 * @param category New category of the item.
 	 */
 	public void setCategory(String category) {
+		checkModifiable();
 		this.category = category;
 	}
 
@@ -48,6 +60,15 @@ public class AlaCarteItem extends MenuItem {
 		return category;
 	}
 
+	/**
+	 * Please see the method description in MenuItem.
+	 * @see MenuItem
+	 */
+	@Override
+	public DataType getDataType() {
+		return DataType.ALA_CARTE_ITEM;
+	}
+
 	/**
 	 * Please see the method description in RestaurantData.
 	 * @see core.RestaurantData
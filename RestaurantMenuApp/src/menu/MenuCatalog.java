@@ -0,0 +1,351 @@
+package menu;
+
+import core.Restaurant;
+import enums.DataType;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registry of every menu item in the restaurant, both ala-carte items and promotional packages, keyed by menu ID.
+ * A menu ID is a 64-bit ID that tags the item ID with the data type of the item: the upper 32 bits hold the type tag and the lower 32 bits hold the item ID.
+ * Menu IDs are used wherever a reference may point to either type of item, such as in orders, so each type keeps its own independent ID sequence.
+ * The menu is read through immutable snapshots published through an atomic reference, so readers such as order entry never wait on menu edits.
+ * A new snapshot is built whenever the restaurant reports a change in either type of menu data, or in the price rules. Edits that change several items at once are wrapped in beginEdit and publish, so readers keep the previous snapshot until every change has been made.
+ * A name search index of every menu item is kept in step with the snapshots, updated only for the items added, renamed or removed since the previous snapshot.
+ * @see MenuSnapshot
+ */
+public class MenuCatalog {
+    /**
+     * Type tag of ala-carte items in menu IDs.
+     */
+    private static final long ALA_CARTE_ITEM_TAG = 1;
+
+    /**
+     * Type tag of promotional packages in menu IDs.
+     */
+    private static final long PROMO_PACKAGE_TAG = 2;
+
+    /**
+     * Promotional package IDs used to be generated from this value onwards, with smaller IDs assumed to be ala-carte items.
+     * Only used to read references saved before menu IDs were introduced.
+     */
+    private static final int LEGACY_PROMO_PACKAGE_ID_START = 100000;
+
+    /**
+     * Catalog instance for the restaurant of the application session.
+     */
+    private static MenuCatalog instance;
+
+    /**
+     * Restaurant instance the catalog is built from.
+     */
+    private final Restaurant restaurant;
+
+    /**
+     * Last published snapshot of the menu, or null if none has been built.
+     */
+    private final AtomicReference<MenuSnapshot> snapshot;
+
+    /**
+     * Number of edits in progress. Snapshots are not rebuilt while an edit is in progress.
+     */
+    private final AtomicInteger editCount;
+
+    /**
+     * Lock held while building a snapshot, so that only one thread builds at a time.
+     */
+    private final ReentrantLock buildLock;
+
+    /**
+     * Name search index of every menu item.
+     */
+    private final MenuSearchIndex searchIndex;
+
+    /**
+     * Creates a new, empty catalog for the specified restaurant. The first snapshot is built on first use.
+     * @param restaurant Restaurant instance to build the catalog from.
+     */
+    private MenuCatalog(Restaurant restaurant) {
+        this.restaurant = restaurant;
+        this.snapshot = new AtomicReference<>();
+        this.editCount = new AtomicInteger();
+        this.buildLock = new ReentrantLock();
+        this.searchIndex = new MenuSearchIndex();
+    }
+
+    /**
+     * Retrieves the catalog of the specified restaurant, creating it on first use.
+     * @param restaurant Restaurant instance of the application session.
+     * @return Catalog of the restaurant.
+     */
+    public static synchronized MenuCatalog getInstance(Restaurant restaurant) {
+        if (instance == null || instance.restaurant != restaurant) {
+            instance = new MenuCatalog(restaurant);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Encodes a data type and item ID into a menu ID.
+     * @param dataType Data type of the item. Must be ALA_CARTE_ITEM or PROMO_PACKAGE.
+     * @param id ID of the item.
+     * @return Menu ID of the item.
+     */
+    public static long toMenuId(DataType dataType, int id) {
+        return (getTag(dataType) << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Decodes the data type from a menu ID.
+     * @param menuId Menu ID to decode.
+     * @return Data type of the item.
+     * @throws Exception Thrown if the menu ID does not carry a valid type tag.
+     */
+    public static DataType getDataType(long menuId) throws Exception {
+        final long tag = menuId >>> 32;
+
+        if (tag == ALA_CARTE_ITEM_TAG) {
+            return DataType.ALA_CARTE_ITEM;
+        } else if (tag == PROMO_PACKAGE_TAG) {
+            return DataType.PROMO_PACKAGE;
+        }
+
+        throw (new Exception("Invalid menu ID '" + menuId + "'."));
+    }
+
+    /**
+     * Decodes the item ID from a menu ID.
+     * @param menuId Menu ID to decode.
+     * @return ID of the item.
+     */
+    public static int getId(long menuId) {
+        return (int) menuId;
+    }
+
+    /**
+     * Parses a menu item reference from file data. References saved before menu IDs were introduced are plain item IDs, and are converted using the old ID ranges.
+     * @param reference Reference string from file data.
+     * @return Menu ID of the referenced item.
+     * @throws NumberFormatException Thrown if the reference is not a number.
+     */
+    public static long parseMenuId(String reference) {
+        final long value = Long.parseLong(reference.trim());
+
+        if ((value >>> 32) != 0) {
+            return value;
+        }
+
+        final int legacyId = (int) value;
+        return (legacyId < LEGACY_PROMO_PACKAGE_ID_START) ? toMenuId(DataType.ALA_CARTE_ITEM, legacyId) : toMenuId(DataType.PROMO_PACKAGE, legacyId - LEGACY_PROMO_PACKAGE_ID_START);
+    }
+
+    /**
+     * Converts a promotional package ID saved before menu IDs were introduced, when package IDs started from LEGACY_PROMO_PACKAGE_ID_START, into its current ID.
+     * Matches the conversion of package references in parseMenuId, so a package and the references to it agree.
+     * @param id Promotional package ID from file data.
+     * @return Current ID of the package. IDs below the old range are returned unchanged.
+     */
+    public static int parsePromoPackageId(int id) {
+        return (id < LEGACY_PROMO_PACKAGE_ID_START) ? id : id - LEGACY_PROMO_PACKAGE_ID_START;
+    }
+
+    /**
+     * Retrieves a menu item by its menu ID.
+     * @param menuId Menu ID of the item.
+     * @return The menu item with the given menu ID, taken from the current snapshot.
+     * @throws Exception Thrown if the menu ID is invalid or if no item has the given menu ID.
+     */
+    public MenuItem resolve(long menuId) throws Exception {
+        return resolve(getDataType(menuId), getId(menuId));
+    }
+
+    /**
+     * Retrieves a menu item by its data type and item ID.
+     * @param dataType Data type of the item. Must be ALA_CARTE_ITEM or PROMO_PACKAGE.
+     * @param id ID of the item.
+     * @return The menu item with the given ID, taken from the current snapshot.
+     * @throws Exception Thrown if no item has the given ID.
+     */
+    public MenuItem resolve(DataType dataType, int id) throws Exception {
+        getTag(dataType);
+        final MenuItem item = getSnapshot().get(dataType, id);
+
+        if (item == null) {
+            throw (new Exception("Failed to find " + dataType + " for the given ID '" + id + "'."));
+        }
+
+        return item;
+    }
+
+    /**
+     * Retrieves the ala-carte items of every category from the current snapshot.
+     * @return Unmodifiable map of categories, in alphabetical order, to their ala-carte items, in the default order of the restaurant.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public Map<String, List<AlaCarteItem>> getCategoryMap() throws Exception {
+        return getSnapshot().getCategoryMap();
+    }
+
+    /**
+     * Retrieves every menu item from the current snapshot, in the order they are displayed on the menu screens.
+     * @return Unmodifiable list of ala-carte items grouped by category, followed by promotional packages.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public List<MenuItem> getSelectionList() throws Exception {
+        return getSnapshot().getSelectionList();
+    }
+
+    /**
+     * Retrieves the name search index of every menu item, bringing it up to date with the current snapshot first.
+     * @return Search index of the menu, returning menu IDs that can be passed to resolve.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public MenuSearchIndex getSearchIndex() throws Exception {
+        getSnapshot();
+        return searchIndex;
+    }
+
+    /**
+     * Retrieves the IDs of the promotional packages containing an ala-carte item.
+     * The IDs refer to the restaurant's packages, which are the ones to modify when repricing.
+     * @param alaCarteItemId ID of the ala-carte item.
+     * @return Unmodifiable list of package IDs, each listed once. Empty if the item is not part of any package.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public List<Integer> getContainingPackageIds(int alaCarteItemId) throws Exception {
+        return getSnapshot().getContainingPackageIds(alaCarteItemId);
+    }
+
+    /**
+     * Looks up an ala-carte item in the published snapshot, without building a new one.
+     * Used to resolve the contents of the restaurant's promotional packages by ID for display.
+     * @param alaCarteItemId ID of the ala-carte item.
+     * @return The item copy of the published snapshot, or null if no snapshot has been published or the item is not in it.
+     */
+    AlaCarteItem findAlaCarteItem(int alaCarteItemId) {
+        final MenuSnapshot current = snapshot.get();
+        return (current == null) ? null : (AlaCarteItem) current.get(DataType.ALA_CARTE_ITEM, alaCarteItemId);
+    }
+
+    /**
+     * Checks if an ala-carte item is part of any promotional package.
+     * @param alaCarteItemId ID of the ala-carte item.
+     * @return True if at least one package contains the item.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public boolean isInPackage(int alaCarteItemId) throws Exception {
+        return !getContainingPackageIds(alaCarteItemId).isEmpty();
+    }
+
+    /**
+     * Retrieves the current snapshot of the menu without locking.
+     * A new snapshot is built first if the menu data has changed since the current one was published, unless an edit is in progress or another thread is already building one, in which case the current snapshot is returned as it is.
+     * @return The current menu snapshot.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public MenuSnapshot getSnapshot() throws Exception {
+        final MenuSnapshot current = snapshot.get();
+
+        if (current != null && (editCount.get() > 0 || isCurrent(current))) {
+            return current;
+        }
+
+        return build(current == null);
+    }
+
+    /**
+     * Marks the start of an edit to the menu. Readers keep the current snapshot until publish is called, so changes to several items become visible together.
+     * The snapshot is brought up to date first, so the edit can rely on its indexes.
+     * Every call must be followed by a call to publish, usually in a finally block.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public void beginEdit() throws Exception {
+        getSnapshot();
+        editCount.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of an edit to the menu and publishes a new snapshot holding the changes.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    public void publish() throws Exception {
+        if (editCount.decrementAndGet() == 0) {
+            build(true);
+        }
+    }
+
+    /**
+     * Checks if a snapshot was built from the current restaurant data.
+     * @param current Snapshot to check.
+     * @return True / False
+     */
+    private boolean isCurrent(MenuSnapshot current) {
+        return current.matchVersion(restaurant.getDataVersion(DataType.ALA_CARTE_ITEM), restaurant.getDataVersion(DataType.PROMO_PACKAGE), restaurant.getDataVersion(DataType.PRICE_RULE));
+    }
+
+    /**
+     * Builds and publishes a new snapshot if the published one is out of date, then updates the search index for the items whose names have changed.
+     * @param wait Waits for any build in progress if set to true. Otherwise returns the published snapshot straight away if another thread is building one.
+     * @return The published snapshot.
+     * @throws Exception Errors that occurred while retrieving restaurant data.
+     */
+    private MenuSnapshot build(boolean wait) throws Exception {
+        if (wait) {
+            buildLock.lock();
+        } else if (!buildLock.tryLock()) {
+            return snapshot.get();
+        }
+
+        try {
+            final MenuSnapshot current = snapshot.get();
+
+            if (current != null && isCurrent(current)) {
+                return current;
+            }
+
+            final long alaCarteVersion = restaurant.getDataVersion(DataType.ALA_CARTE_ITEM);
+            final long promoPackageVersion = restaurant.getDataVersion(DataType.PROMO_PACKAGE);
+            final long priceRuleVersion = restaurant.getDataVersion(DataType.PRICE_RULE);
+            final List<AlaCarteItem> alaCarteItemList = restaurant.getSortedDataList(DataType.ALA_CARTE_ITEM);
+            final List<PromotionPackage> promoPackageList = restaurant.getSortedDataList(DataType.PROMO_PACKAGE);
+            final List<PriceRule> priceRuleList = restaurant.getSortedDataList(DataType.PRICE_RULE);
+            final MenuSnapshot next = new MenuSnapshot(alaCarteItemList, promoPackageList, priceRuleList, alaCarteVersion, promoPackageVersion, priceRuleVersion);
+            final Set<Long> removedIdSet = searchIndex.getIndexedIds();
+
+            for (MenuItem item : next.getSelectionList()) {
+                final long menuId = item.getMenuId();
+                removedIdSet.remove(menuId);
+
+                if (!item.getName().equals(searchIndex.getIndexedName(menuId))) {
+                    searchIndex.put(menuId, item.getName());
+                }
+            }
+
+            removedIdSet.forEach(searchIndex::remove);
+            snapshot.set(next);
+            return next;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the type tag of a menu item data type.
+     * @param dataType Data type of the item.
+     * @return Type tag of the data type.
+     * @throws IllegalArgumentException Thrown if the data type is not a menu item data type.
+     */
+    private static long getTag(DataType dataType) {
+        if (dataType == DataType.ALA_CARTE_ITEM) {
+            return ALA_CARTE_ITEM_TAG;
+        } else if (dataType == DataType.PROMO_PACKAGE) {
+            return PROMO_PACKAGE_TAG;
+        }
+
+        throw (new IllegalArgumentException("Data type " + dataType + " is not a menu item."));
+    }
+}
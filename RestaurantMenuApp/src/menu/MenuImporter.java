@@ -0,0 +1,257 @@
+package menu;
+
+import core.Restaurant;
+import enums.DataType;
+import tools.FileIO;
+
+import java.io.BufferedReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports ala-carte items from menu files exported by other systems.
+ * The file is read one line at a time and each line is handed to a format parser, so memory use does not grow with the size of the file.
+ * Items with names already on the menu, or already seen earlier in the file, are skipped using the restaurant's name index.
+ * Items whose name or category holds a field separator of the data files, '//' or '--', are skipped as unreadable, as they would break the records they are written into.
+ * New items are committed in batches: a block of IDs is reserved and the batch is appended to the item file in a single write before the items are loaded into the restaurant.
+ * @see MenuRecordParser
+ */
+public class MenuImporter {
+    /**
+     * Number of items committed to the item file at once.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Field separators of the data files, which may not appear in an imported name or category.
+     */
+    private static final String[] SEPARATORS = {"//", "--"};
+
+    /**
+     * Restaurant instance to import the items into.
+     */
+    private final Restaurant restaurant;
+
+    /**
+     * Creates a new importer for the specified restaurant.
+     * @param restaurant Restaurant instance to import the items into.
+     */
+    public MenuImporter(Restaurant restaurant) {
+        this.restaurant = restaurant;
+    }
+
+    /**
+     * Imports every item in a text file in the storage directory.
+     * Blank lines are ignored, and lines the parser cannot read, or whose name or category holds a field separator, are counted as skipped.
+     * @param fileName Text file to import from, without the extension.
+     * @param parser Parser for the format of the file.
+     * @param defaultCategory Category given to items whose records do not carry one.
+     * @return Counts of the imported, duplicate and skipped lines.
+     * @throws Exception Errors that occurred while reading the file or committing the items. Batches committed before the error are kept.
+     */
+    public Result importFile(String fileName, MenuRecordParser parser, String defaultCategory) throws Exception {
+        final FileIO f = new FileIO();
+        final List<Record> batchList = new ArrayList<>(BATCH_SIZE);
+        final Set<String> batchNameSet = new HashSet<>();
+        int importedCount = 0;
+        int duplicateCount = 0;
+        int skippedCount = 0;
+
+        try (BufferedReader reader = f.openReader(fileName)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                final Record record = parser.parse(line);
+
+                if (record == null || hasSeparator(record.getName()) || (record.getCategory() != null && hasSeparator(record.getCategory()))) {
+                    skippedCount++;
+                    continue;
+                }
+
+                if (restaurant.isNameExists(DataType.ALA_CARTE_ITEM, record.getName()) || !batchNameSet.add(Restaurant.normalizeName(record.getName()))) {
+                    duplicateCount++;
+                    continue;
+                }
+
+                batchList.add(record);
+
+                if (batchList.size() == BATCH_SIZE) {
+                    importedCount += commit(f, batchList, defaultCategory);
+                    batchList.clear();
+                    batchNameSet.clear();
+                }
+            }
+        }
+
+        importedCount += commit(f, batchList, defaultCategory);
+        return new Result(importedCount, duplicateCount, skippedCount);
+    }
+
+    /**
+     * Checks if an imported text holds a field separator of the data files.
+     * @param text Name or category of an imported item.
+     * @return True if the text holds a separator.
+     */
+    private static boolean hasSeparator(String text) {
+        for (String separator : SEPARATORS) {
+            if (text.contains(separator)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Commits a batch of records as new ala-carte items. The items are written to their file before they are loaded, so a failed write leaves the restaurant unchanged.
+     * @param f File IO instance to write with.
+     * @param batchList Records to commit.
+     * @param defaultCategory Category given to records that do not carry one.
+     * @return Number of items committed.
+     * @throws Exception Errors that occurred while generating IDs, writing the items or loading them into the restaurant.
+     */
+    private int commit(FileIO f, List<Record> batchList, String defaultCategory) throws Exception {
+        if (batchList.isEmpty()) {
+            return 0;
+        }
+
+        final int firstId = restaurant.generateUniqueIds(DataType.ALA_CARTE_ITEM, batchList.size());
+        final List<AlaCarteItem> itemList = new ArrayList<>(batchList.size());
+        final List<String> lineList = new ArrayList<>(batchList.size());
+
+        for (int index = 0; index < batchList.size(); index++) {
+            final Record record = batchList.get(index);
+            final String category = (record.getCategory() == null) ? defaultCategory : record.getCategory();
+            final AlaCarteItem item = new AlaCarteItem(firstId + index, record.getName(), record.getPrice(), category.toLowerCase());
+            itemList.add(item);
+            lineList.add(item.toFileString());
+        }
+
+        f.writeLines(DataType.ALA_CARTE_ITEM.name(), lineList, true);
+
+        for (AlaCarteItem item : itemList) {
+            restaurant.load(item);
+        }
+
+        return itemList.size();
+    }
+
+    /**
+     * An ala-carte item read from an exported menu file, before it is given an ID.
+     */
+    public static class Record {
+        /**
+         * Name of the item.
+         */
+        private final String name;
+
+        /**
+         * Price of the item.
+         */
+        private final BigDecimal price;
+
+        /**
+         * Category of the item, or null if the export does not carry one.
+         */
+        private final String category;
+
+        /**
+         * Creates a record with the specified parameters.
+         * @param name Name of the item.
+         * @param price Price of the item.
+         * @param category Category of the item, or null if the export does not carry one.
+         */
+        public Record(String name, BigDecimal price, String category) {
+            this.name = name;
+            this.price = price;
+            this.category = category;
+        }
+
+        /**
+         * Retrieves the name of the item.
+         * @return Item name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Retrieves the price of the item.
+         * @return Item price.
+         */
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        /**
+         * Retrieves the category of the item.
+         * @return Item category, or null if the export does not carry one.
+         */
+        public String getCategory() {
+            return category;
+        }
+    }
+
+    /**
+     * Counts of the lines processed by an import.
+     */
+    public static class Result {
+        /**
+         * Number of items imported.
+         */
+        private final int importedCount;
+
+        /**
+         * Number of items skipped as their names were already on the menu or earlier in the file.
+         */
+        private final int duplicateCount;
+
+        /**
+         * Number of lines skipped as the parser could not read them.
+         */
+        private final int skippedCount;
+
+        /**
+         * Creates a result with the specified counts.
+         * @param importedCount Number of items imported.
+         * @param duplicateCount Number of duplicate items skipped.
+         * @param skippedCount Number of unreadable lines skipped.
+         */
+        Result(int importedCount, int duplicateCount, int skippedCount) {
+            this.importedCount = importedCount;
+            this.duplicateCount = duplicateCount;
+            this.skippedCount = skippedCount;
+        }
+
+        /**
+         * Retrieves the number of items imported.
+         * @return Imported item count.
+         */
+        public int getImportedCount() {
+            return importedCount;
+        }
+
+        /**
+         * Retrieves the number of duplicate items skipped.
+         * @return Duplicate item count.
+         */
+        public int getDuplicateCount() {
+            return duplicateCount;
+        }
+
+        /**
+         * Retrieves the number of unreadable lines skipped.
+         * @return Unreadable line count.
+         */
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package menu;
 
 import core.RestaurantData;
+import enums.DataType;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -8,7 +9,7 @@ import java.math.RoundingMode;
 /**
  * Menu item entity class
  */
-public class MenuItem extends RestaurantData {
+public abstract class MenuItem extends RestaurantData {
     /**
      * Name of the item.
      */
@@ -19,6 +20,11 @@ public class MenuItem extends RestaurantData {
      */
     private BigDecimal price;
 
+    /**
+     * Whether the item is a read-only copy held by a menu snapshot.
+     */
+    private final boolean readOnly;
+
     /**
      * Creates a new menu item with the specified parameters.
      * @param id ID of the item - usually auto-generated using the restaurant's unique ID generator. Passed into the parent class.
@@ -30,6 +36,33 @@ public class MenuItem extends RestaurantData {
         this.name = name;
         this.price = price;
         this.price = this.price.setScale(2, RoundingMode.FLOOR);
+        this.readOnly = false;
+    }
+
+    /**
+     * Creates a read-only copy of a menu item, as held by a menu snapshot.
+     * @param item Item to copy.
+     */
+    MenuItem(MenuItem item) {
+        super(item.getId());
+        this.name = item.name;
+        this.price = item.price;
+        this.readOnly = true;
+    }
+
+    /**
+     * Retrieves the data type of the item.
+     * @return Data type of the item.
+     */
+    public abstract DataType getDataType();
+
+    /**
+     * Retrieves the menu ID of the item, which tags the item ID with the data type of the item.
+     * @return Menu ID of the item.
+     * @see MenuCatalog
+     */
+    public long getMenuId() {
+        return MenuCatalog.toMenuId(getDataType(), getId());
     }
 
     /**
@@ -37,6 +70,7 @@ public class MenuItem extends RestaurantData {
      * @param name New name of the item.
      */
     public void setName(String name) {
+        checkModifiable();
         this.name = name;
     }
 
@@ -53,6 +87,7 @@ public class MenuItem extends RestaurantData {
      * @param price New price of the item in BigDecimal.
      */
     public void setPrice(BigDecimal price) {
+        checkModifiable();
         this.price = price;
     }
 
@@ -64,6 +99,16 @@ public class MenuItem extends RestaurantData {
         return price;
     }
 
+    /**
+     * Checks that the item may be modified.
+     * @throws UnsupportedOperationException Thrown if the item is a read-only copy held by a menu snapshot.
+     */
+    void checkModifiable() {
+        if (readOnly) {
+            throw (new UnsupportedOperationException("Menu item '" + name + "' is a read-only copy held by a menu snapshot."));
+        }
+    }
+
     /**
      * Please see the method description in RestaurantData.
      * @see core.RestaurantData
@@ -3,11 +3,14 @@ package menu;
 import core.RestaurantManager;
 import core.Restaurant;
 import enums.DataType;
+import enums.Session;
 import tools.ConsolePrinter;
 import tools.FileIO;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -32,18 +35,26 @@ public class MenuManager extends RestaurantManager {
         Comparator<MenuItem> comparator = Comparator.comparing(MenuItem::getName);
         getRestaurant().setDefaultComparator(DataType.ALA_CARTE_ITEM, comparator);
         getRestaurant().setDefaultComparator(DataType.PROMO_PACKAGE, comparator);
-        getRestaurant().setUniqueId(DataType.PROMO_PACKAGE, 99999);
 
         final FileIO f = new FileIO();
         final List<String[]> alaCarteData = f.read(DataType.ALA_CARTE_ITEM).stream().map(data -> data.split(" // ")).filter(data -> data.length == 4).collect(Collectors.toList());
         final List<String[]> promoPackageData = f.read(DataType.PROMO_PACKAGE).stream().map(data -> data.split(" // ")).filter(data -> data.length == 4).collect(Collectors.toList());
+        final Set<Integer> alaCarteIdSet = new HashSet<>();
+        final Set<Integer> promoPackageIdSet = new HashSet<>();
 
         for (String[] data : alaCarteData) {
             try {
-                final int id = getRestaurant().generateUniqueId(DataType.ALA_CARTE_ITEM);
+                final int id = Integer.parseInt(data[0]);
                 final String name = data[1];
                 final BigDecimal price = new BigDecimal(data[2]);
                 final String category = data[3];
+
+                if (!alaCarteIdSet.add(id)) {
+                    ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Skipped " + DataType.ALA_CARTE_ITEM.name() + " '" + name + "' as its ID " + id + " is already in use.");
+                    continue;
+                }
+
+                getRestaurant().setUniqueId(DataType.ALA_CARTE_ITEM, id);
                 getRestaurant().load(new AlaCarteItem(id, name, price, category.toLowerCase()));
             } catch (NumberFormatException e) {
                 throw (new Exception("Invalid file data detected for " + DataType.ALA_CARTE_ITEM.name() + ": " + e.getMessage()));
@@ -51,27 +62,91 @@ public class MenuManager extends RestaurantManager {
         }
 
         getRestaurant().bulkSave(DataType.ALA_CARTE_ITEM);
+        final MenuCatalog catalog = MenuCatalog.getInstance(getRestaurant());
 
         for (String[] data : promoPackageData) {
-            final List<AlaCarteItem> itemList = new ArrayList<>();
+            final List<Integer> contentIdList = new ArrayList<>();
 
             for (String itemData : data[3].split("--")) {
                 final int itemId = Integer.parseInt(itemData);
-                final AlaCarteItem item = getRestaurant().getDataFromId(DataType.ALA_CARTE_ITEM, itemId);
-                itemList.add(item);
+
+                if (!alaCarteIdSet.contains(itemId)) {
+                    throw (new Exception("Failed to find " + DataType.ALA_CARTE_ITEM + " for the given ID '" + itemId + "'."));
+                }
+
+                contentIdList.add(itemId);
             }
 
             try {
-                final int id = getRestaurant().generateUniqueId(DataType.PROMO_PACKAGE);
+                final int id = MenuCatalog.parsePromoPackageId(Integer.parseInt(data[0]));
                 final String name = data[1];
                 final BigDecimal price = new BigDecimal(data[2]);
-                getRestaurant().load(new PromotionPackage(id, name, price, itemList));
+
+                if (!promoPackageIdSet.add(id)) {
+                    ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Skipped " + DataType.PROMO_PACKAGE.name() + " '" + name + "' as its ID " + id + " is already in use.");
+                    continue;
+                }
+
+                getRestaurant().setUniqueId(DataType.PROMO_PACKAGE, id);
+                getRestaurant().load(new PromotionPackage(id, name, price, contentIdList, catalog::findAlaCarteItem));
             } catch (NumberFormatException e) {
                 throw (new Exception("Invalid file data detected for " + DataType.PROMO_PACKAGE.name() + ": " + e.getMessage()));
             }
         }
 
         getRestaurant().bulkSave(DataType.PROMO_PACKAGE);
+        loadPriceRules(f);
+    }
+
+    /**
+     * Loads the price rules from file. The file is only created once the first rule is added.
+     * Rules that cannot be read, or whose windows do not lie within a single session, are skipped with a warning.
+     * @param f File IO instance to read with.
+     * @throws Exception Errors that occurred while reading or rewriting the rule file.
+     */
+    private void loadPriceRules(FileIO f) throws Exception {
+        getRestaurant().setDefaultComparator(DataType.PRICE_RULE, Comparator.comparing(PriceRule::getId));
+
+        if (!f.isFileExists(DataType.PRICE_RULE.name())) {
+            return;
+        }
+
+        final List<String[]> priceRuleData = f.read(DataType.PRICE_RULE).stream().map(data -> data.split(" // ")).filter(data -> data.length == 5).collect(Collectors.toList());
+        final Set<Integer> priceRuleIdSet = new HashSet<>();
+
+        for (String[] data : priceRuleData) {
+            try {
+                final int id = Integer.parseInt(data[0]);
+                final String[] target = data[1].split(":", 2);
+                final LocalTime start = LocalTime.parse(data[2], PriceRule.TIME_FORMAT);
+                final LocalTime end = LocalTime.parse(data[3], PriceRule.TIME_FORMAT);
+                final boolean percentage = data[4].endsWith("%");
+                final BigDecimal value = new BigDecimal(percentage ? data[4].substring(0, data[4].length() - 1) : data[4]);
+
+                if (target.length != 2 || !(target[0].equals("item") || target[0].equals("category"))) {
+                    ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Skipped " + DataType.PRICE_RULE.name() + " " + id + " as its target '" + data[1] + "' is invalid.");
+                    continue;
+                }
+
+                if (!PriceRule.isValidWindow(start, end)) {
+                    ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Skipped " + DataType.PRICE_RULE.name() + " " + id + " as its window does not lie within a single session.");
+                    continue;
+                }
+
+                if (!priceRuleIdSet.add(id)) {
+                    ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Skipped " + DataType.PRICE_RULE.name() + " " + id + " as its ID is already in use.");
+                    continue;
+                }
+
+                final boolean itemRule = target[0].equals("item");
+                getRestaurant().setUniqueId(DataType.PRICE_RULE, id);
+                getRestaurant().load(new PriceRule(id, itemRule ? MenuCatalog.parseMenuId(target[1]) : 0, itemRule ? null : target[1], start, end, value, percentage));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Invalid file data for detected for " + DataType.PRICE_RULE.name() + ": " + e.getMessage());
+            }
+        }
+
+        getRestaurant().bulkSave(DataType.PRICE_RULE);
     }
 
     /**
@@ -86,6 +161,8 @@ public class MenuManager extends RestaurantManager {
                 "Add new promotional package",
                 "Manage ala-carte items",
                 "Manage promotional packages",
+                "Import ala-carte items from file",
+                "Manage price schedules",
         };
     }
 
@@ -101,6 +178,8 @@ public class MenuManager extends RestaurantManager {
                 () -> display(3),
                 () -> display(4),
                 () -> display(5),
+                () -> display(6),
+                () -> display(7),
         };
     }
 
@@ -130,6 +209,14 @@ public class MenuManager extends RestaurantManager {
                 case 5:
                     manageMenuItems(DataType.PROMO_PACKAGE);
                     break;
+
+                case 6:
+                    importMenuItems();
+                    break;
+
+                case 7:
+                    managePriceRules();
+                    break;
             }
         } catch (Exception e) {
             ConsolePrinter.logToFile(e.getMessage(), e);
@@ -141,26 +228,30 @@ public class MenuManager extends RestaurantManager {
      * @throws Exception Errors that occurred while displaying the menu.
      */
     private void viewMenu() throws Exception {
+        final long version = getRestaurant().getCombinedDataVersion(DataType.ALA_CARTE_ITEM, DataType.PROMO_PACKAGE);
+        ConsolePrinter.clearCmd();
+        ConsolePrinter.printCachedTable("menu", version, "View Menu Items", "", this::getMenuDisplayList, false);
+        getInputHelper().getInt("Enter 0 to go back", 0, 0);
+        ConsolePrinter.clearCmd();
+    }
+
+    /**
+     * Builds the list of strings of the menu screen, listing ala-carte items by category followed by promotional packages.
+     * @return List of strings for printing the menu.
+     * @throws Exception Errors that occurred while retrieving the menu items.
+     */
+    private List<String> getMenuDisplayList() throws Exception {
         final List<String> displayList = new ArrayList<>();
-        final Set<String> categoryList = new TreeSet<>();
-        final List<AlaCarteItem> alaCarteItemList = getRestaurant().getDataList(DataType.ALA_CARTE_ITEM);
-        alaCarteItemList.forEach(item -> categoryList.add(item.getCategory()));
-
-        for (String category : categoryList) {
-            displayList.add("\\SUB" + category);
-            final List<String> tempList = alaCarteItemList.stream().filter(x -> x.matchCategory(category)).map(AlaCarteItem::toDisplayString).collect(Collectors.toList());
-            displayList.addAll(tempList);
+        final MenuSnapshot snapshot = MenuCatalog.getInstance(getRestaurant()).getSnapshot();
+
+        for (Map.Entry<String, List<AlaCarteItem>> entry : snapshot.getCategoryMap().entrySet()) {
+            displayList.add("\\SUB" + entry.getKey());
+            entry.getValue().forEach(item -> displayList.add(item.toDisplayString()));
         }
 
-        final List<PromotionPackage> promoPackageList = getRestaurant().getDataList(DataType.PROMO_PACKAGE);
-        final List<String> tempList = promoPackageList.stream().map(PromotionPackage::toDisplayString).collect(Collectors.toList());
         displayList.add("\\SUB" + "Promotion Packages");
-        displayList.addAll(tempList);
-
-        ConsolePrinter.clearCmd();
-        ConsolePrinter.printTable("View Menu Items", "", displayList, false);
-        getInputHelper().getInt("Enter 0 to go back", 0, 0);
-        ConsolePrinter.clearCmd();
+        snapshot.getSelectionList().stream().filter(item -> item instanceof PromotionPackage).forEach(item -> displayList.add(item.toDisplayString()));
+        return displayList;
     }
 
     /**
@@ -191,10 +282,7 @@ public class MenuManager extends RestaurantManager {
     private void addAlaCarteItem(String name) throws Exception {
         final BigDecimal price = new BigDecimal(getInputHelper().getDouble("Enter item price"));
         final String category = getInputHelper().getString("Enter item category");
-        final List<MenuItem> dataList = getRestaurant().getDataList(DataType.ALA_CARTE_ITEM);
-        boolean isNameExists = dataList.stream().anyMatch(x -> x.getName().equalsIgnoreCase(name));
-
-        if (isNameExists) {
+        if (getRestaurant().isNameExists(DataType.ALA_CARTE_ITEM, name)) {
             ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Failed to add item as it already exists on the menu.");
             return;
         }
@@ -217,7 +305,7 @@ public class MenuManager extends RestaurantManager {
         final List<String> choiceList = ConsolePrinter.formatChoiceList(nameList, Collections.singletonList("Go back"));
         ConsolePrinter.printTable("Command // Ala-Carte Items", choiceList, true);
 
-        final List<AlaCarteItem> itemList = new ArrayList<>();
+        final List<Integer> contentIdList = new ArrayList<>();
         BigDecimal price = new BigDecimal(0).setScale(2, RoundingMode.FLOOR);
         int itemIndex;
         String cont = "Y";
@@ -226,7 +314,7 @@ public class MenuManager extends RestaurantManager {
             if (cont.equalsIgnoreCase("Y")) {
                 itemIndex = getInputHelper().getInt("Select an item to add to the package", 0, nameList.size()) - 1;
                 AlaCarteItem item = getRestaurant().getDataFromIndex(DataType.ALA_CARTE_ITEM, itemIndex);
-                itemList.add(item);
+                contentIdList.add(item.getId());
                 price = price.add(item.getPrice());
                 ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, item.getName() + " added to package successfully.");
             }
@@ -234,20 +322,184 @@ public class MenuManager extends RestaurantManager {
             cont = getInputHelper().getString("Add another item to package? [Y = YES | N = NO]");
         } while (!cont.equalsIgnoreCase("N"));
 
-        dataList = getRestaurant().getDataList(DataType.PROMO_PACKAGE);
-        boolean isNameExists = dataList.stream().anyMatch(x -> x.getName().equalsIgnoreCase(name));
-
-        if (isNameExists) {
+        if (getRestaurant().isNameExists(DataType.PROMO_PACKAGE, name)) {
             ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Failed to add item as it already exists on the menu.");
             return;
         }
 
         final int id = getRestaurant().generateUniqueId(DataType.PROMO_PACKAGE);
-        PromotionPackage item = new PromotionPackage(id, name, price.multiply(new BigDecimal(0.8)), itemList);
+        PromotionPackage item = new PromotionPackage(id, name, price.multiply(PromotionPackage.PACKAGE_DISCOUNT).setScale(2, RoundingMode.FLOOR), contentIdList, MenuCatalog.getInstance(getRestaurant())::findAlaCarteItem);
         getRestaurant().save(item);
         ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Package has been added successfully.");
     }
 
+    /**
+     * Imports ala-carte items from a menu file exported by the point-of-sale system. The file must be placed in the storage directory.
+     * Items already on the menu are skipped, and every imported item is given the same category.
+     * @throws Exception errors that occurred while importing the items
+     */
+    private void importMenuItems() throws Exception {
+        ConsolePrinter.printInstructions(Collections.singletonList("Enter -back in file name to go back."));
+        final String fileName = getInputHelper().getString("Enter name of file in storage directory, without extension");
+        if (fileName.equalsIgnoreCase("-back")) {
+            ConsolePrinter.clearCmd();
+            return;
+        }
+
+        if (!(new FileIO()).isFileExists(fileName)) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "File '" + fileName + "' does not exist in the storage directory.");
+            return;
+        }
+
+        final String category = getInputHelper().getString("Enter category for imported items");
+        final MenuImporter.Result result = (new MenuImporter(getRestaurant())).importFile(fileName, new PosExportParser(), category);
+        ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, result.getImportedCount() + " items have been imported successfully. Skipped " + result.getDuplicateCount() + " items already on the menu and " + result.getSkippedCount() + " unreadable lines.");
+    }
+
+    /**
+     * Lists the price rules of the menu, from which a rule can be selected for removal or a new rule added.
+     * @throws Exception errors that occurred while managing the price rules
+     */
+    private void managePriceRules() throws Exception {
+        final MenuSnapshot snapshot = MenuCatalog.getInstance(getRestaurant()).getSnapshot();
+        final List<PriceRule> ruleList = getRestaurant().getDataList(DataType.PRICE_RULE);
+        final List<String> displayList = new ArrayList<>();
+
+        for (PriceRule rule : ruleList) {
+            displayList.add(getPriceRuleTargetName(snapshot, rule) + " // " + rule.toDisplayString());
+        }
+
+        final List<String> choiceList = ConsolePrinter.formatChoiceList(displayList, Arrays.asList("Go back", "Add new price rule"));
+        ConsolePrinter.printTable("Price Schedules", "Command // Applies To // Window // Price", choiceList, true);
+        final int ruleIndex = getInputHelper().getInt("Select a rule to remove", -1, ruleList.size()) - 1;
+        if (ruleIndex == -1) {
+            ConsolePrinter.clearCmd();
+            return;
+        }
+
+        if (ruleIndex == -2) {
+            addPriceRule(snapshot);
+            return;
+        }
+
+        ConsolePrinter.printInstructions(Collections.singletonList("Y = YES | Any other key = NO"));
+
+        if (getInputHelper().getString("Confirm remove?").equalsIgnoreCase("Y")) {
+            getRestaurant().remove(ruleList.get(ruleIndex));
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Price rule has been removed successfully.");
+        }
+    }
+
+    /**
+     * Retrieves the name of the item or category a price rule applies to, for display.
+     * @param snapshot Menu snapshot to look the item up in.
+     * @param rule Price rule to retrieve the target of.
+     * @return Item name, or category name, of the rule.
+     * @throws Exception Thrown if the rule refers to an invalid menu ID.
+     */
+    private String getPriceRuleTargetName(MenuSnapshot snapshot, PriceRule rule) throws Exception {
+        if (!rule.isItemRule()) {
+            return "Category: " + rule.getCategory();
+        }
+
+        final MenuItem item = snapshot.get(MenuCatalog.getDataType(rule.getMenuId()), MenuCatalog.getId(rule.getMenuId()));
+        return (item == null) ? "(Removed item)" : item.getName();
+    }
+
+    /**
+     * Called by managePriceRules as an extension for adding price rules. Records the item or category the rule applies to, its time window and its price.
+     * @param snapshot Menu snapshot to select the item or category from.
+     * @throws Exception errors that occurred while adding the rule
+     */
+    private void addPriceRule(MenuSnapshot snapshot) throws Exception {
+        List<String> choiceList = ConsolePrinter.formatChoiceList(Arrays.asList("Single menu item", "Ala-carte item category"), null);
+        ConsolePrinter.printTable("Command // Rule Applies To", choiceList, true);
+        final int target = getInputHelper().getInt("Select what the rule applies to", 0, 2);
+        if (target == 0) {
+            ConsolePrinter.clearCmd();
+            return;
+        }
+
+        long menuId = 0;
+        String category = null;
+
+        if (target == 1) {
+            final List<MenuItem> selectionList = snapshot.getSelectionList();
+            choiceList = ConsolePrinter.formatChoiceList(selectionList.stream().map(MenuItem::getName).collect(Collectors.toList()), null);
+            ConsolePrinter.printTable("Command // Menu Item", choiceList, true);
+            final int itemIndex = getInputHelper().getInt("Select an item", 0, selectionList.size()) - 1;
+            if (itemIndex == -1) {
+                ConsolePrinter.clearCmd();
+                return;
+            }
+
+            menuId = selectionList.get(itemIndex).getMenuId();
+        } else {
+            final List<String> categoryList = new ArrayList<>(snapshot.getCategoryMap().keySet());
+            choiceList = ConsolePrinter.formatChoiceList(categoryList, null);
+            ConsolePrinter.printTable("Command // Category", choiceList, true);
+            final int categoryIndex = getInputHelper().getInt("Select a category", 0, categoryList.size()) - 1;
+            if (categoryIndex == -1) {
+                ConsolePrinter.clearCmd();
+                return;
+            }
+
+            category = categoryList.get(categoryIndex);
+        }
+
+        final List<String> instructionList = new ArrayList<>();
+        instructionList.add("Rules must start and end within the same session.");
+
+        for (Session session : Session.values()) {
+            instructionList.add(session + " session: " + session.getOpening().format(PriceRule.TIME_FORMAT) + " - " + session.getClosing().format(PriceRule.TIME_FORMAT));
+        }
+
+        instructionList.add("Time format: HHmm (24-hour)");
+        LocalTime start;
+        LocalTime end;
+
+        do {
+            try {
+                ConsolePrinter.printInstructions(instructionList);
+                start = LocalTime.parse(getInputHelper().getString("Enter start time"), PriceRule.TIME_FORMAT);
+                end = LocalTime.parse(getInputHelper().getString("Enter end time"), PriceRule.TIME_FORMAT);
+
+                if (PriceRule.isValidWindow(start, end)) {
+                    break;
+                }
+
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Invalid time window.");
+            } catch (DateTimeParseException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Invalid time format.");
+            }
+        } while (true);
+
+        ConsolePrinter.printInstructions(Collections.singletonList("Enter a fixed price, or a percentage of the item price ending with % (e.g. 80%)."));
+        BigDecimal value;
+        boolean percentage;
+
+        do {
+            final String input = getInputHelper().getString("Enter rule price").trim();
+            percentage = input.endsWith("%");
+
+            try {
+                value = new BigDecimal(percentage ? input.substring(0, input.length() - 1) : input);
+
+                if (value.signum() >= 0) {
+                    break;
+                }
+
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Invalid price.");
+            } catch (NumberFormatException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Invalid price format.");
+            }
+        } while (true);
+
+        final int id = getRestaurant().generateUniqueId(DataType.PRICE_RULE);
+        getRestaurant().save(new PriceRule(id, menuId, category, start, end, value, percentage));
+        ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Price rule has been added successfully.");
+    }
+
     /**
      * Manages menu items in the restaurant list database. Calls updateItem and removeItem accordingly.
      * @param dataType dataType of the item to be modified
@@ -308,8 +560,6 @@ public class MenuManager extends RestaurantManager {
                     }
 
                     getRestaurant().save(item);
-                    final List<PromotionPackage> dataList = getRestaurant().getDataList(DataType.PROMO_PACKAGE);
-                    dataList.forEach(PromotionPackage::refreshPrice);
                     ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Item has been updated successfully.");
                 } else {
                     ConsolePrinter.clearCmd();
@@ -319,8 +569,27 @@ public class MenuManager extends RestaurantManager {
 
             case 2:
                 final BigDecimal price = new BigDecimal(getInputHelper().getDouble("Enter the new price")).setScale(2, RoundingMode.FLOOR);
-                item.setPrice(price);
-                getRestaurant().save(item);
+                final MenuCatalog catalog = MenuCatalog.getInstance(getRestaurant());
+                catalog.beginEdit();
+
+                try {
+                    item.setPrice(price);
+                    getRestaurant().save(item);
+
+                    if (item instanceof AlaCarteItem) {
+                        final Map<Integer, AlaCarteItem> alaCarteItemMap = getRestaurant().getDataMap(DataType.ALA_CARTE_ITEM);
+                        final Map<Integer, PromotionPackage> promoPackageMap = getRestaurant().getDataMap(DataType.PROMO_PACKAGE);
+
+                        for (int promoPackageId : catalog.getContainingPackageIds(item.getId())) {
+                            final PromotionPackage promoPackage = promoPackageMap.get(promoPackageId);
+                            promoPackage.refreshPrice(alaCarteItemMap::get);
+                            getRestaurant().save(promoPackage);
+                        }
+                    }
+                } finally {
+                    catalog.publish();
+                }
+
                 ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Item has been updated successfully.");
                 break;
         }
@@ -338,10 +607,7 @@ public class MenuManager extends RestaurantManager {
         }
 
         if (item instanceof AlaCarteItem) {
-            final List<PromotionPackage> dataList = getRestaurant().getDataList(DataType.PROMO_PACKAGE);
-            boolean isItemInPackages = dataList.stream().anyMatch(x -> x.getAlaCarteItems().stream().anyMatch(y -> y.matchId(item.getId())));
-
-            if (isItemInPackages) {
+            if (MenuCatalog.getInstance(getRestaurant()).isInPackage(item.getId())) {
                 ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "This item is part of a promotion package. Please remove the package first.");
                 return;
             }
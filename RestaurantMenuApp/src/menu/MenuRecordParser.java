@@ -0,0 +1,15 @@
+package menu;
+
+/**
+ * Parser for one line of a menu file exported by another system, used by the menu importer.
+ * Each supported export format has its own implementation, so new formats can be imported without changing the importer.
+ * @see MenuImporter
+ */
+public interface MenuRecordParser {
+    /**
+     * Parses a line of an exported menu file into an ala-carte item record.
+     * @param line Line of the file, without the line terminator.
+     * @return Parsed record, or null if the line does not hold an item in this format.
+     */
+    MenuImporter.Record parse(String line);
+}
@@ -0,0 +1,320 @@
+package menu;
+
+import java.util.*;
+
+/**
+ * Name search index over menu items, keyed by menu ID.
+ * Prefix matching is done through a trie of the words in every item name, so a search only walks the characters of the query and the matching branch of the trie.
+ * Typo-tolerant matching is done through an index of the trigrams of every word, scoring candidates by the share of trigrams they have in common with the query.
+ * Items are added, renamed and removed one at a time, so the index never needs to be rebuilt after it is first filled.
+ * @see MenuCatalog
+ */
+public class MenuSearchIndex {
+    /**
+     * Length of the n-grams used for fuzzy matching.
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Smallest share of the query's n-grams, from 0 to 1, an item name must contain to be returned as a fuzzy match.
+     */
+    private static final double FUZZY_THRESHOLD = 0.5;
+
+    /**
+     * Root of the word trie.
+     */
+    private final TrieNode root;
+
+    /**
+     * Maps n-grams to the menu IDs of the items whose names contain them.
+     */
+    private final Map<String, Set<Long>> gramMap;
+
+    /**
+     * Maps the menu IDs of indexed items to the name they are indexed under.
+     */
+    private final Map<Long, String> nameMap;
+
+    /**
+     * Maps the menu IDs of indexed items to the number of distinct n-grams in their names.
+     */
+    private final Map<Long, Integer> gramCountMap;
+
+    /**
+     * Creates a new, empty search index.
+     */
+    MenuSearchIndex() {
+        root = new TrieNode();
+        gramMap = new HashMap<>();
+        nameMap = new HashMap<>();
+        gramCountMap = new HashMap<>();
+    }
+
+    /**
+     * Retrieves the name an item is indexed under.
+     * @param menuId Menu ID of the item.
+     * @return Indexed name of the item, or null if the item is not indexed.
+     */
+    synchronized String getIndexedName(long menuId) {
+        return nameMap.get(menuId);
+    }
+
+    /**
+     * Retrieves the menu IDs of every indexed item.
+     * @return Copy of the set of indexed menu IDs.
+     */
+    synchronized Set<Long> getIndexedIds() {
+        return new HashSet<>(nameMap.keySet());
+    }
+
+    /**
+     * Indexes an item under the given name, replacing its previous entry if it was already indexed.
+     * @param menuId Menu ID of the item.
+     * @param name Name of the item.
+     */
+    synchronized void put(long menuId, String name) {
+        remove(menuId);
+        final Set<String> gramSet = new HashSet<>();
+
+        for (String word : splitWords(name)) {
+            TrieNode node = root;
+
+            for (char c : word.toCharArray()) {
+                node = node.childMap.computeIfAbsent(c, key -> new TrieNode());
+            }
+
+            node.menuIdSet.add(menuId);
+            gramSet.addAll(getGrams(word));
+        }
+
+        for (String gram : gramSet) {
+            gramMap.computeIfAbsent(gram, key -> new HashSet<>()).add(menuId);
+        }
+
+        nameMap.put(menuId, name);
+        gramCountMap.put(menuId, gramSet.size());
+    }
+
+    /**
+     * Removes an item from the index. Does nothing if the item is not indexed.
+     * @param menuId Menu ID of the item.
+     */
+    synchronized void remove(long menuId) {
+        final String name = nameMap.remove(menuId);
+
+        if (name == null) {
+            return;
+        }
+
+        gramCountMap.remove(menuId);
+
+        for (String word : splitWords(name)) {
+            removeWord(root, word, 0, menuId);
+
+            for (String gram : getGrams(word)) {
+                final Set<Long> menuIdSet = gramMap.get(gram);
+
+                if (menuIdSet != null) {
+                    menuIdSet.remove(menuId);
+
+                    if (menuIdSet.isEmpty()) {
+                        gramMap.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the index for items matching a query.
+     * Items with a word starting with every word of the query are returned first, in alphabetical order of their names.
+     * If there are fewer of these than the limit, items with names similar to the query are returned next, most similar first.
+     * @param query Search query, case-insensitive.
+     * @param limit Largest number of menu IDs to return.
+     * @return List of menu IDs of matching items, best matches first.
+     */
+    public synchronized List<Long> search(String query, int limit) {
+        final List<String> queryWords = splitWords(query);
+        final List<Long> resultList = new ArrayList<>();
+
+        if (queryWords.isEmpty() || limit <= 0) {
+            return resultList;
+        }
+
+        final Set<Long> prefixSet = findByPrefix(queryWords);
+        final List<Long> prefixList = new ArrayList<>(prefixSet);
+        prefixList.sort(Comparator.comparing(nameMap::get, String.CASE_INSENSITIVE_ORDER));
+
+        for (long menuId : prefixList) {
+            if (resultList.size() >= limit) {
+                return resultList;
+            }
+
+            resultList.add(menuId);
+        }
+
+        for (long menuId : findBySimilarity(queryWords)) {
+            if (resultList.size() >= limit) {
+                break;
+            }
+
+            if (!prefixSet.contains(menuId)) {
+                resultList.add(menuId);
+            }
+        }
+
+        return resultList;
+    }
+
+    /**
+     * Finds the items with a word starting with every word of the query.
+     * @param queryWords Normalized words of the query.
+     * @return Set of menu IDs of matching items.
+     */
+    private Set<Long> findByPrefix(List<String> queryWords) {
+        Set<Long> matchSet = null;
+
+        for (String queryWord : queryWords) {
+            TrieNode node = root;
+
+            for (char c : queryWord.toCharArray()) {
+                node = node.childMap.get(c);
+
+                if (node == null) {
+                    return Collections.emptySet();
+                }
+            }
+
+            final Set<Long> wordMatchSet = new HashSet<>();
+            collect(node, wordMatchSet);
+
+            if (matchSet == null) {
+                matchSet = wordMatchSet;
+            } else {
+                matchSet.retainAll(wordMatchSet);
+            }
+
+            if (matchSet.isEmpty()) {
+                break;
+            }
+        }
+
+        return matchSet;
+    }
+
+    /**
+     * Finds the items whose names contain enough of the n-grams of the query, scored by the share of the query's n-grams found in the name.
+     * Items with the same score are ordered by the number of n-grams in their names, so shorter, closer names come first.
+     * @param queryWords Normalized words of the query.
+     * @return List of menu IDs of similar items, most similar first.
+     */
+    private List<Long> findBySimilarity(List<String> queryWords) {
+        final Set<String> queryGramSet = new HashSet<>();
+        queryWords.forEach(word -> queryGramSet.addAll(getGrams(word)));
+        final Map<Long, Integer> sharedCountMap = new HashMap<>();
+
+        for (String gram : queryGramSet) {
+            for (long menuId : gramMap.getOrDefault(gram, Collections.emptySet())) {
+                sharedCountMap.merge(menuId, 1, Integer::sum);
+            }
+        }
+
+        final Map<Long, Double> scoreMap = new HashMap<>();
+
+        for (Map.Entry<Long, Integer> entry : sharedCountMap.entrySet()) {
+            final double score = (double) entry.getValue() / queryGramSet.size();
+
+            if (score >= FUZZY_THRESHOLD) {
+                scoreMap.put(entry.getKey(), score);
+            }
+        }
+
+        final List<Long> resultList = new ArrayList<>(scoreMap.keySet());
+        resultList.sort(Comparator.comparing((Long menuId) -> scoreMap.get(menuId)).reversed().thenComparing(gramCountMap::get).thenComparing(nameMap::get, String.CASE_INSENSITIVE_ORDER));
+        return resultList;
+    }
+
+    /**
+     * Adds the menu IDs of every word ending at or below a trie node into a set.
+     * @param node Trie node to start from.
+     * @param menuIdSet Set to add the menu IDs into.
+     */
+    private static void collect(TrieNode node, Set<Long> menuIdSet) {
+        menuIdSet.addAll(node.menuIdSet);
+
+        for (TrieNode child : node.childMap.values()) {
+            collect(child, menuIdSet);
+        }
+    }
+
+    /**
+     * Removes a menu ID from the end node of a word, pruning trie nodes left without any words.
+     * @param node Current trie node.
+     * @param word Word to remove.
+     * @param depth Index of the character of the word leading out of the current node.
+     * @param menuId Menu ID to remove.
+     * @return True if the current node is left empty and may be removed from its parent.
+     */
+    private static boolean removeWord(TrieNode node, String word, int depth, long menuId) {
+        if (depth == word.length()) {
+            node.menuIdSet.remove(menuId);
+        } else {
+            final char c = word.charAt(depth);
+            final TrieNode child = node.childMap.get(c);
+
+            if (child != null && removeWord(child, word, depth + 1, menuId)) {
+                node.childMap.remove(c);
+            }
+        }
+
+        return node.menuIdSet.isEmpty() && node.childMap.isEmpty();
+    }
+
+    /**
+     * Splits a name or query into lower-case words of letters and digits.
+     * @param text Name or query to split.
+     * @return List of words, in the order they appear.
+     */
+    private static List<String> splitWords(String text) {
+        final List<String> wordList = new ArrayList<>();
+
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                wordList.add(word);
+            }
+        }
+
+        return wordList;
+    }
+
+    /**
+     * Retrieves the n-grams of a word. The word is padded at both ends, so short words still have n-grams and the start and end of words carry more weight.
+     * @param word Normalized word.
+     * @return Set of n-grams of the word.
+     */
+    private static Set<String> getGrams(String word) {
+        final String padded = " " + word + " ";
+        final Set<String> gramSet = new HashSet<>();
+
+        for (int index = 0; index + GRAM_LENGTH <= padded.length(); index++) {
+            gramSet.add(padded.substring(index, index + GRAM_LENGTH));
+        }
+
+        return gramSet;
+    }
+
+    /**
+     * A node of the word trie.
+     */
+    private static class TrieNode {
+        /**
+         * Maps the next character of a word to the child node.
+         */
+        private final Map<Character, TrieNode> childMap = new HashMap<>();
+
+        /**
+         * Menu IDs of the items with a word ending at this node.
+         */
+        private final Set<Long> menuIdSet = new HashSet<>();
+    }
+}
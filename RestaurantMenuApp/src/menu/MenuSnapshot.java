@@ -0,0 +1,279 @@
+package menu;
+
+import enums.DataType;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Immutable, versioned view of the whole menu, published by the menu catalog.
+ * A snapshot holds its own read-only copies of every menu item, taken when it is built, so edits to the restaurant's menu items never show through a snapshot that has already been published.
+ * Promotional packages in a snapshot share the item ID arrays of the restaurant's packages, and resolve them to the ala-carte item copies of the same snapshot, so the prices in a snapshot are always consistent with each other.
+ * Items of a snapshot cannot be modified; their setters throw. Menu edits are made to the restaurant's items and become visible once the catalog publishes a new snapshot.
+ * Price rules are compiled into a price table for every item they apply to when the snapshot is built, so the price of an item at any time of day is found by a binary search.
+ * @see MenuCatalog
+ */
+public class MenuSnapshot {
+    /**
+     * Restaurant data version of ala-carte items the snapshot was built from.
+     */
+    private final long alaCarteVersion;
+
+    /**
+     * Restaurant data version of promotional packages the snapshot was built from.
+     */
+    private final long promoPackageVersion;
+
+    /**
+     * Restaurant data version of price rules the snapshot was built from.
+     */
+    private final long priceRuleVersion;
+
+    /**
+     * Maps menu IDs to the item copies of the snapshot.
+     */
+    private final Map<Long, MenuItem> itemMap;
+
+    /**
+     * Maps categories, in alphabetical order, to their ala-carte items.
+     */
+    private final Map<String, List<AlaCarteItem>> categoryMap;
+
+    /**
+     * Every menu item in display order: ala-carte items grouped by category, followed by promotional packages.
+     */
+    private final List<MenuItem> selectionList;
+
+    /**
+     * Maps ala-carte item IDs to the IDs of the promotional packages containing them.
+     */
+    private final Map<Integer, List<Integer>> packageIdMap;
+
+    /**
+     * Maps the menu IDs of items with price rules to their compiled price tables. Items without rules are always sold at their own price.
+     */
+    private final Map<Long, PriceTable> priceTableMap;
+
+    /**
+     * Builds a snapshot from the restaurant's menu items, copying every item.
+     * Items are grouped by category in a single pass over the ala-carte items.
+     * @param alaCarteItemList Ala-carte items of the restaurant, in their default order.
+     * @param promoPackageList Promotional packages of the restaurant, in their default order.
+     * @param priceRuleList Price rules of the restaurant, in order of their IDs.
+     * @param alaCarteVersion Restaurant data version of the ala-carte items.
+     * @param promoPackageVersion Restaurant data version of the promotional packages.
+     * @param priceRuleVersion Restaurant data version of the price rules.
+     */
+    MenuSnapshot(List<AlaCarteItem> alaCarteItemList, List<PromotionPackage> promoPackageList, List<PriceRule> priceRuleList, long alaCarteVersion, long promoPackageVersion, long priceRuleVersion) {
+        this.alaCarteVersion = alaCarteVersion;
+        this.promoPackageVersion = promoPackageVersion;
+        this.priceRuleVersion = priceRuleVersion;
+
+        final Map<Long, MenuItem> items = new HashMap<>((alaCarteItemList.size() + promoPackageList.size()) * 2);
+        final Map<Integer, AlaCarteItem> alaCarteCopyMap = new HashMap<>(alaCarteItemList.size() * 2);
+        final Map<String, List<AlaCarteItem>> categories = new TreeMap<>();
+
+        for (AlaCarteItem item : alaCarteItemList) {
+            final AlaCarteItem copy = new AlaCarteItem(item);
+            alaCarteCopyMap.put(copy.getId(), copy);
+            items.put(copy.getMenuId(), copy);
+            categories.computeIfAbsent(copy.getCategory().toLowerCase(), category -> new ArrayList<>()).add(copy);
+        }
+
+        final List<MenuItem> selections = new ArrayList<>(alaCarteItemList.size() + promoPackageList.size());
+
+        for (Map.Entry<String, List<AlaCarteItem>> entry : categories.entrySet()) {
+            selections.addAll(entry.getValue());
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        final Map<Integer, List<Integer>> packageIds = new HashMap<>();
+
+        for (PromotionPackage promoPackage : promoPackageList) {
+            for (int itemId : promoPackage.getItemIds()) {
+                packageIds.computeIfAbsent(itemId, id -> new ArrayList<>()).add(promoPackage.getId());
+            }
+
+            final PromotionPackage copy = new PromotionPackage(promoPackage, alaCarteCopyMap::get);
+            items.put(copy.getMenuId(), copy);
+            selections.add(copy);
+        }
+
+        packageIds.replaceAll((id, idList) -> Collections.unmodifiableList(idList));
+        this.itemMap = Collections.unmodifiableMap(items);
+        this.categoryMap = Collections.unmodifiableMap(categories);
+        this.selectionList = Collections.unmodifiableList(selections);
+        this.packageIdMap = Collections.unmodifiableMap(packageIds);
+        this.priceTableMap = compilePriceTables(priceRuleList);
+    }
+
+    /**
+     * Compiles the price rules into a price table for every item of the snapshot they apply to.
+     * Rules on a single item take precedence over rules on its category, and among rules of the same kind the one with the larger ID takes precedence.
+     * @param priceRuleList Price rules of the restaurant, in order of their IDs.
+     * @return Unmodifiable map of menu IDs to price tables, holding only the items with at least one rule.
+     */
+    private Map<Long, PriceTable> compilePriceTables(List<PriceRule> priceRuleList) {
+        if (priceRuleList.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, List<PriceRule>> categoryRuleMap = new HashMap<>();
+        final Map<Long, List<PriceRule>> itemRuleMap = new HashMap<>();
+
+        for (PriceRule rule : priceRuleList) {
+            if (rule.isItemRule()) {
+                itemRuleMap.computeIfAbsent(rule.getMenuId(), menuId -> new ArrayList<>()).add(rule);
+            } else {
+                categoryRuleMap.computeIfAbsent(rule.getCategory(), category -> new ArrayList<>()).add(rule);
+            }
+        }
+
+        final Map<Long, PriceTable> tables = new HashMap<>();
+
+        for (MenuItem item : selectionList) {
+            final List<PriceRule> ruleList = new ArrayList<>();
+
+            if (item instanceof AlaCarteItem) {
+                ruleList.addAll(categoryRuleMap.getOrDefault(((AlaCarteItem) item).getCategory().toLowerCase(), Collections.emptyList()));
+            }
+
+            ruleList.addAll(itemRuleMap.getOrDefault(item.getMenuId(), Collections.emptyList()));
+
+            if (!ruleList.isEmpty()) {
+                tables.put(item.getMenuId(), new PriceTable(item.getPrice(), ruleList));
+            }
+        }
+
+        return Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * Checks if the snapshot was built from the given restaurant data versions.
+     * @param alaCarteVersion Current restaurant data version of ala-carte items.
+     * @param promoPackageVersion Current restaurant data version of promotional packages.
+     * @param priceRuleVersion Current restaurant data version of price rules.
+     * @return True / False
+     */
+    boolean matchVersion(long alaCarteVersion, long promoPackageVersion, long priceRuleVersion) {
+        return this.alaCarteVersion == alaCarteVersion && this.promoPackageVersion == promoPackageVersion && this.priceRuleVersion == priceRuleVersion;
+    }
+
+    /**
+     * Retrieves a menu item of the snapshot by its data type and item ID.
+     * @param dataType Data type of the item.
+     * @param id ID of the item.
+     * @return The item copy, or null if the snapshot has no such item.
+     */
+    MenuItem get(DataType dataType, int id) {
+        return itemMap.get(MenuCatalog.toMenuId(dataType, id));
+    }
+
+    /**
+     * Retrieves the ala-carte items of every category.
+     * @return Unmodifiable map of categories, in alphabetical order, to their ala-carte items, in the default order of the restaurant.
+     */
+    public Map<String, List<AlaCarteItem>> getCategoryMap() {
+        return categoryMap;
+    }
+
+    /**
+     * Retrieves every menu item in the order they are displayed on the menu screens, so that a selection number can be mapped straight to its item.
+     * @return Unmodifiable list of ala-carte items grouped by category, followed by promotional packages.
+     */
+    public List<MenuItem> getSelectionList() {
+        return selectionList;
+    }
+
+    /**
+     * Retrieves the IDs of the promotional packages containing an ala-carte item.
+     * @param alaCarteItemId ID of the ala-carte item.
+     * @return Unmodifiable list of package IDs, each listed once. Empty if the item is not part of any package.
+     */
+    List<Integer> getContainingPackageIds(int alaCarteItemId) {
+        return packageIdMap.getOrDefault(alaCarteItemId, Collections.emptyList());
+    }
+
+    /**
+     * Retrieves the price an item is sold at, at a given time of day, from its compiled price table.
+     * @param item Menu item of the snapshot.
+     * @param time Time of day the item is ordered.
+     * @return Price set by the rule in effect at the time, or the item's own price if no rule is in effect.
+     */
+    public BigDecimal getEffectivePrice(MenuItem item, LocalTime time) {
+        final PriceTable table = priceTableMap.get(item.getMenuId());
+        return (table == null) ? item.getPrice() : table.getPrice(time);
+    }
+
+    /**
+     * Prices of a single item over the day, as sorted, non-overlapping intervals covering the whole day.
+     */
+    private static class PriceTable {
+        /**
+         * Start of every interval, in minutes from midnight, in ascending order. The first interval always starts at midnight.
+         */
+        private final int[] startMinutes;
+
+        /**
+         * Price of the item during each interval.
+         */
+        private final BigDecimal[] prices;
+
+        /**
+         * Compiles the rules of an item into a price table.
+         * The day is cut at the start and end of every rule, and each piece is priced by the rule covering it with the highest precedence.
+         * @param basePrice The item's own price, used where no rule applies.
+         * @param ruleList Rules applying to the item, in increasing order of precedence.
+         */
+        private PriceTable(BigDecimal basePrice, List<PriceRule> ruleList) {
+            final TreeSet<Integer> boundarySet = new TreeSet<>();
+            boundarySet.add(0);
+
+            for (PriceRule rule : ruleList) {
+                boundarySet.add(toMinutes(rule.getStart()));
+                boundarySet.add(toMinutes(rule.getEnd()));
+            }
+
+            final List<Integer> startList = new ArrayList<>(boundarySet.size());
+            final List<BigDecimal> priceList = new ArrayList<>(boundarySet.size());
+
+            for (int start : boundarySet) {
+                BigDecimal price = basePrice;
+
+                for (PriceRule rule : ruleList) {
+                    if (toMinutes(rule.getStart()) <= start && start < toMinutes(rule.getEnd())) {
+                        price = rule.apply(basePrice);
+                    }
+                }
+
+                if (priceList.isEmpty() || priceList.get(priceList.size() - 1).compareTo(price) != 0) {
+                    startList.add(start);
+                    priceList.add(price);
+                }
+            }
+
+            this.startMinutes = startList.stream().mapToInt(Integer::intValue).toArray();
+            this.prices = priceList.toArray(new BigDecimal[0]);
+        }
+
+        /**
+         * Retrieves the price of the item at a given time of day.
+         * @param time Time of day.
+         * @return Price of the interval containing the time.
+         */
+        private BigDecimal getPrice(LocalTime time) {
+            final int index = Arrays.binarySearch(startMinutes, toMinutes(time));
+            return prices[(index >= 0) ? index : -index - 2];
+        }
+
+        /**
+         * Converts a time of day into minutes from midnight.
+         * @param time Time of day.
+         * @return Minutes from midnight.
+         */
+        private static int toMinutes(LocalTime time) {
+            return time.getHour() * 60 + time.getMinute();
+        }
+    }
+}
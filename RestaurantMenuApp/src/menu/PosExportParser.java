@@ -0,0 +1,34 @@
+package menu;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses menu files exported by the point-of-sale system, such as 'case_menu_items.txt'.
+ * Each item is a line of comma-separated fields ending with a pipe, in the form 'name, price, , , 0, code|'.
+ * The export does not carry categories, so the importer's default category is used for every item.
+ */
+public class PosExportParser implements MenuRecordParser {
+    /**
+     * Pattern of an item line, capturing the name and the price.
+     */
+    private static final Pattern LINE_PATTERN = Pattern.compile("^\\s*([^,|]*[^,|\\s])\\s*,\\s*(\\d+(?:\\.\\d+)?)\\s*,\\s*,\\s*,\\s*\\d+\\s*,\\s*\\d+\\s*\\|\\s*$");
+
+    /**
+     * Please see the method description in MenuRecordParser.
+     * @see MenuRecordParser
+     */
+    @Override
+    public MenuImporter.Record parse(String line) {
+        final Matcher matcher = LINE_PATTERN.matcher(line);
+
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        final BigDecimal price = new BigDecimal(matcher.group(2)).setScale(2, RoundingMode.FLOOR);
+        return new MenuImporter.Record(matcher.group(1).trim(), price, null);
+    }
+}
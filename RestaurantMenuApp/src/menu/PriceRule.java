@@ -0,0 +1,163 @@
+package menu;
+
+import core.RestaurantData;
+import enums.Session;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Price rule entity class. A price rule sets the price of a menu item, or of every ala-carte item in a category, during a time window within one session.
+ * The price is either a fixed price or a percentage of the item's own price.
+ * Rules are not evaluated when items are ordered. Every menu snapshot compiles the rules into a price table per item, which is searched instead.
+ * @see MenuSnapshot
+ */
+public class PriceRule extends RestaurantData {
+    /**
+     * Time format of rule windows in file data and in user input.
+     */
+    static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HHmm");
+
+    /**
+     * Menu ID of the item the rule applies to, or 0 if the rule applies to a category.
+     */
+    private final long menuId;
+
+    /**
+     * Category the rule applies to, or null if the rule applies to a single item.
+     */
+    private final String category;
+
+    /**
+     * Start of the time window, inclusive.
+     */
+    private final LocalTime start;
+
+    /**
+     * End of the time window, exclusive.
+     */
+    private final LocalTime end;
+
+    /**
+     * Fixed price, or percentage of the item's own price, set by the rule.
+     */
+    private final BigDecimal value;
+
+    /**
+     * Whether the value is a percentage of the item's own price.
+     */
+    private final boolean percentage;
+
+    /**
+     * Creates a new price rule with the specified parameters. Exactly one of menuId and category should be given.
+     * @param id ID of the rule - usually auto-generated using the restaurant's unique ID generator. Passed into the parent class.
+     * @param menuId Menu ID of the item the rule applies to, or 0 if the rule applies to a category.
+     * @param category Category the rule applies to, or null if the rule applies to a single item.
+     * @param start Start of the time window, inclusive.
+     * @param end End of the time window, exclusive.
+     * @param value Fixed price, or percentage of the item's own price, set by the rule.
+     * @param percentage Whether the value is a percentage of the item's own price.
+     */
+    PriceRule(int id, long menuId, String category, LocalTime start, LocalTime end, BigDecimal value, boolean percentage) {
+        super(id);
+        this.menuId = menuId;
+        this.category = (category == null) ? null : category.toLowerCase();
+        this.start = start;
+        this.end = end;
+        this.value = value.setScale(2, RoundingMode.FLOOR);
+        this.percentage = percentage;
+    }
+
+    /**
+     * Checks if a time window lies within the opening hours of a single session, with its start before its end.
+     * @param start Start of the time window.
+     * @param end End of the time window.
+     * @return True / False
+     */
+    static boolean isValidWindow(LocalTime start, LocalTime end) {
+        final Session session = Session.fromTime(start);
+        return session != null && start.isBefore(end) && session.contains(end);
+    }
+
+    /**
+     * Checks if the rule applies to a single item rather than a category.
+     * @return True / False
+     */
+    boolean isItemRule() {
+        return category == null;
+    }
+
+    /**
+     * Retrieves the menu ID of the item the rule applies to.
+     * @return Menu ID of the item, or 0 if the rule applies to a category.
+     */
+    long getMenuId() {
+        return menuId;
+    }
+
+    /**
+     * Retrieves the category the rule applies to.
+     * @return Category of the rule, or null if the rule applies to a single item.
+     */
+    String getCategory() {
+        return category;
+    }
+
+    /**
+     * Retrieves the start of the time window.
+     * @return Start of the window, inclusive.
+     */
+    LocalTime getStart() {
+        return start;
+    }
+
+    /**
+     * Retrieves the end of the time window.
+     * @return End of the window, exclusive.
+     */
+    LocalTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Calculates the price of an item under the rule.
+     * @param basePrice The item's own price.
+     * @return Price set by the rule.
+     */
+    BigDecimal apply(BigDecimal basePrice) {
+        if (percentage) {
+            return basePrice.multiply(value).divide(new BigDecimal(100), 2, RoundingMode.FLOOR);
+        }
+
+        return value;
+    }
+
+    /**
+     * Formats the price set by the rule for display and file data.
+     * @return Fixed price, or percentage followed by '%'.
+     */
+    private String getValueString() {
+        return percentage ? value + "%" : value.toString();
+    }
+
+    /**
+     * Please see the method description in RestaurantData.
+     * @see core.RestaurantData
+     */
+    @Override
+    public String toDisplayString() {
+        return start.format(TIME_FORMAT) + " - " + end.format(TIME_FORMAT) + " // " + getValueString();
+    }
+
+    /**
+     * Please see the method description in RestaurantData.
+     * @see core.RestaurantData
+     */
+    @Override
+    public String toFileString() {
+        final String target = isItemRule() ? "item:" + menuId : "category:" + category;
+        return getId() + " // " + target + " // " + start.format(TIME_FORMAT) + " // " + end.format(TIME_FORMAT) + " // " + getValueString();
+    }
+}
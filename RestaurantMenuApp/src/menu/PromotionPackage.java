@@ -1,55 +1,119 @@
 package menu;
 
+import enums.DataType;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
 
 /**
  * Promotional package menu item entity class
+ * The contents of a package are held as parallel arrays of distinct ala-carte item IDs and their counts, rather than as item objects.
+ * Items are resolved by ID only when they are needed, through a lookup shared by every package from the same source, such as a menu snapshot.
  */
 public class PromotionPackage extends MenuItem {
 	/**
-	 * List of ala-carte items in the package.
+	 * Discount applied to the sum of the prices of the package contents.
+	 */
+	static final BigDecimal PACKAGE_DISCOUNT = new BigDecimal("0.8");
+
+	/**
+	 * Distinct IDs of the ala-carte items in the package, in the order they were first added. Never modified once the package is created.
 	 */
-	private List<AlaCarteItem> alaCarteItems;
+	private final int[] itemIds;
 
 	/**
-	 * Creates a new promotional package with the specified parameters.
+	 * Count of each ala-carte item in the package, matching the order of itemIds. Never modified once the package is created.
+	 */
+	private final int[] itemCounts;
+
+	/**
+	 * Lookup resolving ala-carte item IDs to the items displayed with the package.
+	 */
+	private final IntFunction<AlaCarteItem> itemLookup;
+
+	/**
+	 * Creates a new promotional package with the specified parameters, counting repeated items in the contents.
 	 * @param id ID of the package - usually auto-generated using the restaurant's unique ID generator. Passed into the parent class.
 	 * @param name Name of the package to be passed into the parent class.
 	 * @param price Price of the package to be passed into the parent class.
-	 * @param alaCarteItems List of ala-carte items. If null, an empty list will be assigned instead.
+	 * @param contentIds IDs of the ala-carte items in the package, with an ID repeated for every extra serving of the item.
+	 * @param itemLookup Lookup resolving ala-carte item IDs to the items displayed with the package.
 	 */
-	PromotionPackage(int id, String name, BigDecimal price, List<AlaCarteItem> alaCarteItems) {
+	PromotionPackage(int id, String name, BigDecimal price, List<Integer> contentIds, IntFunction<AlaCarteItem> itemLookup) {
 		super(id, name, price);
+		final Map<Integer, Integer> countMap = new LinkedHashMap<>();
 
-		if (alaCarteItems == null) {
-			alaCarteItems = new ArrayList<>();
+		for (int contentId : contentIds) {
+			countMap.merge(contentId, 1, Integer::sum);
 		}
 
-		this.alaCarteItems = alaCarteItems;
+		this.itemIds = new int[countMap.size()];
+		this.itemCounts = new int[countMap.size()];
+		int index = 0;
+
+		for (Map.Entry<Integer, Integer> entry : countMap.entrySet()) {
+			itemIds[index] = entry.getKey();
+			itemCounts[index] = entry.getValue();
+			index++;
+		}
+
+		this.itemLookup = itemLookup;
 	}
 
 	/**
-	 * Retrieves the list of ala-carte items in the package.
-	 * @return List of ala-carte items.
+	 * Creates a read-only copy of a promotional package sharing its contents, resolving its items through a different lookup, as held by a menu snapshot.
+	 * @param promoPackage Package to copy.
+	 * @param itemLookup Lookup resolving ala-carte item IDs to the items displayed with the copy.
 	 */
-	List<AlaCarteItem> getAlaCarteItems() {
-		return alaCarteItems;
+	PromotionPackage(PromotionPackage promoPackage, IntFunction<AlaCarteItem> itemLookup) {
+		super(promoPackage);
+		this.itemIds = promoPackage.itemIds;
+		this.itemCounts = promoPackage.itemCounts;
+		this.itemLookup = itemLookup;
+	}
+
+	/**
+	 * Retrieves the distinct IDs of the ala-carte items in the package. The returned array must not be modified.
+	 * @return Array of ala-carte item IDs.
+	 */
+	int[] getItemIds() {
+		return itemIds;
+	}
+
+	/**
+	 * Retrieves the count of each ala-carte item in the package. The returned array must not be modified.
+	 * @return Array of item counts, matching the order of getItemIds.
+	 */
+	int[] getItemCounts() {
+		return itemCounts;
 	}
 
 	/**
 	 * Refreshes the price of the package based on the price of its contents.
+	 * Formula for price calculation = 0.8 * (sum of all items' price)
+	 * @param alaCarteItemLookup Lookup resolving ala-carte item IDs to the items to take the prices from.
 	 */
-	void refreshPrice() {
+	void refreshPrice(IntFunction<AlaCarteItem> alaCarteItemLookup) {
 		BigDecimal price = new BigDecimal(0).setScale(2, RoundingMode.FLOOR);
 
-		for (AlaCarteItem item : alaCarteItems) {
-			price = price.add(item.getPrice());
+		for (int index = 0; index < itemIds.length; index++) {
+			price = price.add(alaCarteItemLookup.apply(itemIds[index]).getPrice().multiply(BigDecimal.valueOf(itemCounts[index])));
 		}
 
-		setPrice(price);
+		setPrice(price.multiply(PACKAGE_DISCOUNT).setScale(2, RoundingMode.FLOOR));
+	}
+
+	/**
+	 * Please see the method description in MenuItem.
+	 * @see MenuItem
+	 */
+	@Override
+	public DataType getDataType() {
+		return DataType.PROMO_PACKAGE;
 	}
 
 	/**
@@ -60,14 +124,15 @@ public class PromotionPackage extends MenuItem {
 	public String toDisplayString() {
 		StringBuilder sb = new StringBuilder(getName() + "\n");
 
-		for (int index = 0; index < alaCarteItems.size(); index++) {
-			sb.append("- ").append(alaCarteItems.get(index).getName());
+		for (int index = 0; index < itemIds.length; index++) {
+			final AlaCarteItem item = itemLookup.apply(itemIds[index]);
 
-			if (index != (alaCarteItems.size() - 1)) {
-				sb.append("\n");
+			for (int count = 0; count < itemCounts[index]; count++) {
+				sb.append("- ").append((item == null) ? "Item " + itemIds[index] : item.getName()).append("\n");
 			}
 		}
 
+		sb.setLength(sb.length() - 1);
 		sb.append(" // ").append(getPrice());
 		return sb.toString();
 	}
@@ -81,14 +146,16 @@ public class PromotionPackage extends MenuItem {
 		String head = super.toFileString() + " // ";
 		StringBuilder sb = new StringBuilder(head);
 
-		for (int index = 0; index < alaCarteItems.size(); index++) {
-			sb.append(alaCarteItems.get(index).getId());
-
-			if (index != (alaCarteItems.size() - 1)) {
-				sb.append("--");
+		for (int index = 0; index < itemIds.length; index++) {
+			for (int count = 0; count < itemCounts[index]; count++) {
+				sb.append(itemIds[index]).append("--");
 			}
 		}
 
+		if (itemIds.length > 0) {
+			sb.setLength(sb.length() - 2);
+		}
+
 		return sb.toString();
 	}
 }
@@ -0,0 +1,268 @@
+package revenue;
+
+import tools.ConsolePrinter;
+import tools.FileIO;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Sparse matrix of how many paid orders contained each pair of items, used to suggest items frequently ordered together.
+ * Only items that were ordered together are held, and every item keeps a cache of its top neighbours by count, so a suggestion lookup is a single map lookup during order entry.
+ * The matrix is updated as every bill is paid, refreshing the cache of only the items on the bill, and persisted in its own text file.
+ * A line is appended to the file for every pair on a bill, and lines of the same pair are merged into one when the file is read at startup.
+ * Bills are added before their revenue record is queued, and the lines of every bill carry its day and order ID until they are merged. Lines of bills that never reached the revenue files, such as when the application stopped part way through a payment, are dropped at startup, so a retried payment is counted once.
+ * If the file does not exist, or a rebuild is requested, the matrix is built from the revenue files. Records written before items were referred to by menu ID are left out.
+ * @see RevenueRecorder
+ */
+public class CoOccurrenceMatrix {
+    /**
+     * Name of the matrix text file.
+     */
+    private static final String FILE_NAME = "revenue_pair";
+
+    /**
+     * Name of the text file the matrix file is rewritten into before replacing it.
+     */
+    private static final String TEMP_FILE_NAME = "revenue_pair_new";
+
+    /**
+     * Date format of the days in the matrix file.
+     */
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * Number of top neighbours cached for every item.
+     */
+    public static final int NEIGHBOUR_LIMIT = 5;
+
+    /**
+     * Matrix instance shared by every manager for the lifetime of the application.
+     */
+    private static CoOccurrenceMatrix instance;
+
+    /**
+     * Maps menu IDs to the number of orders they share with each item they were ordered with, by menu ID.
+     */
+    private final Map<Long, Map<Long, Integer>> rowMap;
+
+    /**
+     * Maps menu IDs to their top neighbours, in descending order of count. Read without locking, so suggestions never wait on a bill being recorded.
+     */
+    private final Map<Long, long[]> neighbourMap;
+
+    /**
+     * Order IDs of the bills added since the matrix file was last merged.
+     */
+    private final Set<String> orderIdSet;
+
+    /**
+     * Reads in the matrix file, merging the lines of the same pair, or builds it from the revenue files if it does not exist.
+     * Lines of bills not in the revenue files are dropped.
+     * @throws IOException Thrown if the matrix or revenue files could not be read or written.
+     */
+    private CoOccurrenceMatrix() throws IOException {
+        rowMap = new HashMap<>();
+        neighbourMap = new ConcurrentHashMap<>();
+        orderIdSet = new HashSet<>();
+        final FileIO f = new FileIO();
+
+        if (!f.isFileExists(FILE_NAME)) {
+            rebuild();
+            return;
+        }
+
+        final List<String> lineList = f.read(FILE_NAME);
+        final List<String[]> billList = new ArrayList<>();
+        final Set<LocalDate> billDaySet = new HashSet<>();
+
+        for (String line : lineList) {
+            final String[] data = line.split(" // ");
+
+            try {
+                if (data.length == 3) {
+                    addPair(Long.parseLong(data[0]), Long.parseLong(data[1]), Integer.parseInt(data[2]));
+                } else if (data.length == 5) {
+                    billDaySet.add(LocalDate.parse(data[3], DAY_FORMAT));
+                    billList.add(data);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Invalid file data for detected for item pairs: " + e.getMessage());
+            }
+        }
+
+        final Set<String> recordedOrderIdSet = billList.isEmpty() ? Collections.emptySet() : RevenueRecorder.getInstance().getRecordedOrderIds(billDaySet);
+        final Set<String> droppedOrderIdSet = new HashSet<>();
+
+        for (String[] data : billList) {
+            if (!recordedOrderIdSet.contains(data[4])) {
+                droppedOrderIdSet.add(data[4]);
+                continue;
+            }
+
+            try {
+                addPair(Long.parseLong(data[0]), Long.parseLong(data[1]), Integer.parseInt(data[2]));
+            } catch (NumberFormatException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Invalid file data for detected for item pairs: " + e.getMessage());
+            }
+        }
+
+        if (!droppedOrderIdSet.isEmpty()) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, droppedOrderIdSet.size() + " bill(s) not in the revenue files have been removed from the item pairs.");
+        }
+
+        rowMap.keySet().forEach(this::refreshNeighbours);
+        int pairCount = 0;
+
+        for (Map<Long, Integer> row : rowMap.values()) {
+            pairCount += row.size();
+        }
+
+        if (pairCount / 2 < lineList.size() || !billList.isEmpty()) {
+            save(f);
+        }
+    }
+
+    /**
+     * Retrieves the matrix for the application, reading it in on first use.
+     * @return Co-occurrence matrix instance.
+     * @throws IOException Thrown if the matrix or revenue files could not be read or written.
+     */
+    public static synchronized CoOccurrenceMatrix getInstance() throws IOException {
+        if (instance == null) {
+            instance = new CoOccurrenceMatrix();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Adds the items of a paid bill to the matrix and appends its pairs to the matrix file with its day and order ID, unless the bill has already been added since the file was last merged.
+     * Must be called before the revenue record of the bill is queued, and only for a bill not yet recorded, so a matrix built from the revenue files on first use does not count the bill twice.
+     * @param menuIds Menu IDs of the items on the bill. Items billed on several lines are counted once.
+     * @param date Day the order was created.
+     * @param orderId Order ID of the bill.
+     * @throws IOException Thrown if the matrix file could not be written.
+     */
+    public synchronized void record(long[] menuIds, LocalDate date, String orderId) throws IOException {
+        if (orderIdSet.contains(orderId)) {
+            return;
+        }
+
+        final long[] itemIds = Arrays.stream(menuIds).distinct().sorted().toArray();
+        final String billSuffix = " // 1 // " + date.format(DAY_FORMAT) + " // " + orderId;
+        final List<String> lineList = new ArrayList<>();
+
+        for (int i = 0; i < itemIds.length; i++) {
+            for (int j = i + 1; j < itemIds.length; j++) {
+                lineList.add(itemIds[i] + " // " + itemIds[j] + billSuffix);
+            }
+        }
+
+        if (lineList.isEmpty()) {
+            return;
+        }
+
+        (new FileIO()).writeLines(FILE_NAME, lineList, false);
+        orderIdSet.add(orderId);
+
+        for (int i = 0; i < itemIds.length; i++) {
+            for (int j = i + 1; j < itemIds.length; j++) {
+                addPair(itemIds[i], itemIds[j], 1);
+            }
+        }
+
+        for (long itemId : itemIds) {
+            refreshNeighbours(itemId);
+        }
+    }
+
+    /**
+     * Retrieves the items most frequently ordered together with an item.
+     * @param menuId Menu ID of the item.
+     * @return Menu IDs of up to NEIGHBOUR_LIMIT items, in descending order of the number of orders shared with the item.
+     */
+    public long[] getNeighbours(long menuId) {
+        final long[] neighbours = neighbourMap.get(menuId);
+        return (neighbours == null) ? new long[0] : neighbours.clone();
+    }
+
+    /**
+     * Rebuilds the matrix from every record in the revenue files and rewrites the matrix file.
+     * @return Number of items in the rebuilt matrix.
+     * @throws IOException Thrown if the revenue files could not be read or the matrix file could not be written.
+     */
+    public synchronized int rebuild() throws IOException {
+        final Set<Long> oldIdSet = new HashSet<>(rowMap.keySet());
+        rowMap.clear();
+
+        RevenueLedger.getInstance().read(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), record -> {
+            final long[] itemIds = IntStream.range(0, record.getLineCount()).filter(record::isMenuIdLine).mapToLong(record::getMenuId).distinct().toArray();
+
+            for (int i = 0; i < itemIds.length; i++) {
+                for (int j = i + 1; j < itemIds.length; j++) {
+                    addPair(itemIds[i], itemIds[j], 1);
+                }
+            }
+        });
+
+        oldIdSet.stream().filter(menuId -> !rowMap.containsKey(menuId)).forEach(neighbourMap::remove);
+        rowMap.keySet().forEach(this::refreshNeighbours);
+        save(new FileIO());
+        return rowMap.size();
+    }
+
+    /**
+     * Adds to the count of a pair of items, in both of their rows.
+     * @param firstId Menu ID of the first item.
+     * @param secondId Menu ID of the second item.
+     * @param count Number of orders to add.
+     */
+    private void addPair(long firstId, long secondId, int count) {
+        rowMap.computeIfAbsent(firstId, key -> new HashMap<>()).merge(secondId, count, Integer::sum);
+        rowMap.computeIfAbsent(secondId, key -> new HashMap<>()).merge(firstId, count, Integer::sum);
+    }
+
+    /**
+     * Recomputes the cached top neighbours of an item from its row, breaking ties by menu ID.
+     * @param menuId Menu ID of the item.
+     */
+    private void refreshNeighbours(long menuId) {
+        final List<Map.Entry<Long, Integer>> entryList = new ArrayList<>(rowMap.get(menuId).entrySet());
+        entryList.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        final long[] neighbours = new long[Math.min(NEIGHBOUR_LIMIT, entryList.size())];
+
+        for (int i = 0; i < neighbours.length; i++) {
+            neighbours[i] = entryList.get(i).getKey();
+        }
+
+        neighbourMap.put(menuId, neighbours);
+    }
+
+    /**
+     * Rewrites the matrix file with a single line per pair.
+     * The lines are written to a separate file that then replaces the matrix file, so the matrix file is never left empty or part written.
+     * @param f File IO instance.
+     * @throws IOException Thrown if the matrix file could not be written.
+     */
+    private void save(FileIO f) throws IOException {
+        final List<String> lineList = new ArrayList<>();
+
+        for (Map.Entry<Long, Map<Long, Integer>> row : rowMap.entrySet()) {
+            for (Map.Entry<Long, Integer> entry : row.getValue().entrySet()) {
+                if (row.getKey() < entry.getKey()) {
+                    lineList.add(row.getKey() + " // " + entry.getKey() + " // " + entry.getValue());
+                }
+            }
+        }
+
+        f.clearFile(TEMP_FILE_NAME);
+        f.writeLines(TEMP_FILE_NAME, lineList, true);
+        f.replaceFile(TEMP_FILE_NAME, FILE_NAME);
+    }
+}
@@ -0,0 +1,108 @@
+package revenue;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch estimating how many of each item have been sold, in a fixed amount of memory however many items are seen.
+ * Every item is counted in one cell of each row, picked by a hash of its menu ID seeded differently per row.
+ * Collisions can only add to a cell, so the smallest cell of an item never undercounts it, and overcounts by at most the total count divided by the width in most cases.
+ * A sketch is not thread-safe.
+ */
+class CountMinSketch {
+    /**
+     * Hash seeds of the rows.
+     */
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    /**
+     * Cells of the sketch, indexed by row, then by hashed column.
+     */
+    private final long[][] cells;
+
+    /**
+     * Mask selecting a column from a hash. The width is a power of two.
+     */
+    private final int columnMask;
+
+    /**
+     * Total count added to the sketch.
+     */
+    private long totalCount;
+
+    /**
+     * Creates an empty sketch with one row per hash seed.
+     * @param width Number of columns per row, rounded up to a power of two.
+     */
+    CountMinSketch(int width) {
+        final int columns = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        cells = new long[SEEDS.length][columns];
+        columnMask = columns - 1;
+    }
+
+    /**
+     * Adds to the count of an item.
+     * @param menuId Menu ID of the item.
+     * @param count Number of items sold.
+     * @return Estimated count of the item, including this addition.
+     */
+    long add(long menuId, long count) {
+        long estimate = Long.MAX_VALUE;
+        totalCount += count;
+
+        for (int row = 0; row < SEEDS.length; row++) {
+            final int column = getColumn(row, menuId);
+            cells[row][column] += count;
+            estimate = Math.min(estimate, cells[row][column]);
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Estimates the count of an item.
+     * @param menuId Menu ID of the item.
+     * @return Estimated count of the item, never less than its actual count.
+     */
+    long estimate(long menuId) {
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < SEEDS.length; row++) {
+            estimate = Math.min(estimate, cells[row][getColumn(row, menuId)]);
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Retrieves the total count added to the sketch.
+     * @return Total count of every item.
+     */
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Removes every count from the sketch.
+     */
+    void clear() {
+        for (long[] row : cells) {
+            Arrays.fill(row, 0);
+        }
+
+        totalCount = 0;
+    }
+
+    /**
+     * Retrieves the column of an item in a row.
+     * @param row Row of the sketch.
+     * @param menuId Menu ID of the item.
+     * @return Column of the item in the row.
+     */
+    private int getColumn(int row, long menuId) {
+        long hash = menuId ^ SEEDS[row];
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash = hash ^ (hash >>> 31);
+        return (int) hash & columnMask;
+    }
+}
@@ -0,0 +1,470 @@
+package revenue;
+
+import enums.Session;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Forecasts the demand for every menu item in every session, to plan how much to prepare for the next session.
+ * Every item has a demand series for each weekday and session, such as Monday AM, holding the number sold in that session each week, smoothed exponentially so recent weeks count the most.
+ * The series are built from the revenue ledger when a forecast is first requested, and from then on every paid bill updates them in constant time.
+ * Bills of orders created outside opening hours, and records written before items were referred to by menu ID, are left out.
+ * The smoothing factor may be configured with the system property 'forecast.alpha', between 0 and 1. A value that is not a number or is out of range is ignored in favour of the default.
+ * A bill is placed in a session by the time its order was created, to the minute, both when the series are built and when they are updated.
+ * @see RevenueLedger
+ */
+public class DemandForecast {
+    /**
+     * Default smoothing factor, the weight given to the latest week of a series.
+     */
+    private static final double DEFAULT_ALPHA = 0.3;
+
+    /**
+     * Smoothing factors compared by the backtest.
+     */
+    private static final double[] BACKTEST_ALPHAS = {0.1, 0.2, 0.3, 0.5, 0.7};
+
+    /**
+     * Number of series every item has, one per weekday per session.
+     */
+    private static final int SERIES_COUNT = 7 * Session.values().length;
+
+    /**
+     * Forecast instance shared by every manager for the lifetime of the application.
+     */
+    private static DemandForecast instance;
+
+    /**
+     * Smoothing factor of the live series.
+     */
+    private final double alpha;
+
+    /**
+     * Live series of every item, or null until a forecast is first requested.
+     */
+    private Model model;
+
+    /**
+     * Creates the forecast without building its series.
+     * The forecast is first created while a bill is being paid, so an invalid smoothing factor falls back to the default rather than failing the payment.
+     */
+    private DemandForecast() {
+        double configuredAlpha;
+
+        try {
+            configuredAlpha = Double.parseDouble(System.getProperty("forecast.alpha", String.valueOf(DEFAULT_ALPHA)));
+        } catch (NumberFormatException e) {
+            configuredAlpha = DEFAULT_ALPHA;
+        }
+
+        alpha = (configuredAlpha > 0 && configuredAlpha <= 1) ? configuredAlpha : DEFAULT_ALPHA;
+    }
+
+    /**
+     * Retrieves the forecast for the application, creating it on first use.
+     * @return Demand forecast instance.
+     */
+    public static synchronized DemandForecast getInstance() {
+        if (instance == null) {
+            instance = new DemandForecast();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Adds a billed line of a paid order to the series of its item. Nothing is done until the series have been built, as building them reads every bill already recorded.
+     * Must be called after the revenue record of the bill is queued.
+     * @param orderDateTime Date/time the order was created.
+     * @param menuId Menu ID of the billed item.
+     * @param count Number of items billed.
+     */
+    public synchronized void record(LocalDateTime orderDateTime, long menuId, int count) {
+        final Session session = getSession(orderDateTime.toLocalTime());
+
+        if (model != null && session != null) {
+            model.add(menuId, orderDateTime.toLocalDate(), session, count, null);
+        }
+    }
+
+    /**
+     * Forecasts the demand for every item in a session, building the series from the revenue ledger first if needed.
+     * @param date Date of the session.
+     * @param session Session to forecast.
+     * @return Map of menu IDs to forecast quantities, for every item with a forecast above zero.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    synchronized Map<Long, Double> forecast(LocalDate date, Session session) throws IOException {
+        if (model == null) {
+            final Model builtModel = new Model(alpha);
+            final SortedMap<LocalDate, Map<Long, int[]>> dayMap = readDailyCounts();
+            dayMap.forEach((day, countMap) -> builtModel.addDay(day, countMap, null));
+            model = builtModel;
+        }
+
+        final Map<Long, Double> forecastMap = new HashMap<>();
+
+        for (long menuId : model.getMenuIds()) {
+            final double quantity = model.forecast(menuId, date, session);
+
+            if (quantity > 0) {
+                forecastMap.put(menuId, quantity);
+            }
+        }
+
+        return forecastMap;
+    }
+
+    /**
+     * Finds the next session to prepare for: the session in progress or next to open today, or the first session tomorrow once every session today has closed.
+     * @param dateTime Current date/time.
+     * @return Map entry of the date and session.
+     */
+    static Map.Entry<LocalDate, Session> getNextSession(LocalDateTime dateTime) {
+        for (Session session : Session.values()) {
+            if (!dateTime.toLocalTime().isAfter(session.getClosing())) {
+                return new AbstractMap.SimpleImmutableEntry<>(dateTime.toLocalDate(), session);
+            }
+        }
+
+        return new AbstractMap.SimpleImmutableEntry<>(dateTime.toLocalDate().plusDays(1), Session.values()[0]);
+    }
+
+    /**
+     * Replays the whole revenue ledger in date order, forecasting every session of every series before adding its actual demand, for each of several smoothing factors.
+     * Weeks in which an item was not sold in a session count as a demand of zero, from the first week the item was sold in the session to the last day of the ledger.
+     * The naive forecast of repeating the demand of the same session a week earlier is measured alongside as a baseline.
+     * @return List of strings in the format 'method // forecasts // mean absolute error // time in ms', followed by the naive baseline and the time taken to read the ledger. Empty if the ledger has no records.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    List<String> backtest() throws IOException {
+        long startTime = System.nanoTime();
+        final SortedMap<LocalDate, Map<Long, int[]>> dayMap = readDailyCounts();
+        final long readTime = System.nanoTime() - startTime;
+        final List<String> resultList = new ArrayList<>();
+
+        if (dayMap.isEmpty()) {
+            return resultList;
+        }
+
+        Backtest naive = null;
+
+        for (double backtestAlpha : BACKTEST_ALPHAS) {
+            startTime = System.nanoTime();
+            final Model backtestModel = new Model(backtestAlpha);
+            final Backtest backtest = new Backtest();
+            dayMap.forEach((day, countMap) -> backtestModel.addDay(day, countMap, backtest));
+            backtestModel.finish(dayMap.lastKey(), backtest);
+            final long time = System.nanoTime() - startTime;
+            resultList.add("Smoothing, alpha " + backtestAlpha + " // " + backtest.forecastCount + " // " + String.format("%.3f", backtest.getMeanError()) + " // " + time / 1000000);
+            naive = backtest;
+        }
+
+        resultList.add("Same session last week // " + naive.forecastCount + " // " + String.format("%.3f", naive.getNaiveMeanError()) + " // -");
+        resultList.add("Reading the ledger (" + dayMap.size() + " days) // - // - // " + readTime / 1000000);
+        return resultList;
+    }
+
+    /**
+     * Reads the number of every item sold in every session of every day from the revenue ledger.
+     * @return Map of days, in order, to the counts of every item sold on the day, indexed by session ordinal.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    private static SortedMap<LocalDate, Map<Long, int[]>> readDailyCounts() throws IOException {
+        return RevenueLedger.getInstance().<Map<Long, int[]>>aggregateByDay(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), (date, count) -> false, HashMap::new, (countMap, record) -> {
+            final Session session = getSession(record.getTime());
+
+            if (session == null) {
+                return;
+            }
+
+            for (int line = 0; line < record.getLineCount(); line++) {
+                if (record.isMenuIdLine(line)) {
+                    countMap.computeIfAbsent(record.getMenuId(line), key -> new int[Session.values().length])[session.ordinal()] += record.getCount(line);
+                }
+            }
+        }).getResultMap();
+    }
+
+    /**
+     * Retrieves the session an order was created in, by the time of its creation truncated to the minute, so an order created during the closing minute of a session counts in it as it does in the revenue queries.
+     * @param time Time the order was created.
+     * @return Session enumerator, or null if the order was created outside opening hours.
+     */
+    private static Session getSession(LocalTime time) {
+        return Session.fromTime(time.truncatedTo(ChronoUnit.MINUTES));
+    }
+
+    /**
+     * Retrieves the index of the series of a weekday and session.
+     * @param date Date of the session.
+     * @param session Session enumerator.
+     * @return Series index.
+     */
+    private static int getSeriesIndex(LocalDate date, Session session) {
+        return (date.getDayOfWeek().getValue() - 1) * Session.values().length + session.ordinal();
+    }
+
+    /**
+     * Retrieves the week of a date, counting weeks of the same weekday consecutively.
+     * @param date Date to retrieve the week of.
+     * @return Week number.
+     */
+    private static long getWeek(LocalDate date) {
+        return Math.floorDiv(date.toEpochDay(), 7);
+    }
+
+    /**
+     * Exponentially smoothed demand series of every item at a single smoothing factor.
+     */
+    private static class Model {
+        /**
+         * Smoothing factor of the series.
+         */
+        private final double alpha;
+
+        /**
+         * Maps menu IDs to the series of the item, indexed by series index, with null for series without any sale.
+         */
+        private final Map<Long, Series[]> seriesMap;
+
+        /**
+         * Creates a model without any series.
+         * @param alpha Smoothing factor of the series.
+         */
+        private Model(double alpha) {
+            this.alpha = alpha;
+            this.seriesMap = new HashMap<>();
+        }
+
+        /**
+         * Adds the counts of a day to the series.
+         * @param date Day of the counts.
+         * @param countMap Map of menu IDs to the counts of the item, indexed by session ordinal.
+         * @param backtest Backtest to measure the forecasts in, or null.
+         */
+        private void addDay(LocalDate date, Map<Long, int[]> countMap, Backtest backtest) {
+            for (Map.Entry<Long, int[]> entry : countMap.entrySet()) {
+                for (Session session : Session.values()) {
+                    if (entry.getValue()[session.ordinal()] != 0) {
+                        add(entry.getKey(), date, session, entry.getValue()[session.ordinal()], backtest);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds to the demand of an item in a session.
+         * @param menuId Menu ID of the item.
+         * @param date Date of the session.
+         * @param session Session enumerator.
+         * @param count Number of the item sold.
+         * @param backtest Backtest to measure the forecasts in, or null.
+         */
+        private void add(long menuId, LocalDate date, Session session, int count, Backtest backtest) {
+            final Series[] seriesArray = seriesMap.computeIfAbsent(menuId, key -> new Series[SERIES_COUNT]);
+            final int index = getSeriesIndex(date, session);
+
+            if (seriesArray[index] == null) {
+                seriesArray[index] = new Series();
+            }
+
+            seriesArray[index].add(getWeek(date), count, alpha, backtest);
+        }
+
+        /**
+         * Closes every series up to the last occurrence of its weekday on or before a date, so the weeks up to then are measured by the backtest.
+         * @param lastDate Last date of the backtest.
+         * @param backtest Backtest to measure the forecasts in.
+         */
+        private void finish(LocalDate lastDate, Backtest backtest) {
+            for (Series[] seriesArray : seriesMap.values()) {
+                for (int index = 0; index < SERIES_COUNT; index++) {
+                    if (seriesArray[index] != null) {
+                        final int daysBack = ((lastDate.getDayOfWeek().getValue() - 1) - index / Session.values().length + 7) % 7;
+                        seriesArray[index].close(getWeek(lastDate.minusDays(daysBack)) + 1, alpha, backtest);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Forecasts the demand of an item in a session.
+         * @param menuId Menu ID of the item.
+         * @param date Date of the session.
+         * @param session Session enumerator.
+         * @return Forecast quantity, or 0 if the item has never been sold in the session.
+         */
+        private double forecast(long menuId, LocalDate date, Session session) {
+            final Series[] seriesArray = seriesMap.get(menuId);
+            final Series series = (seriesArray == null) ? null : seriesArray[getSeriesIndex(date, session)];
+            return (series == null) ? 0 : series.forecast(getWeek(date), alpha);
+        }
+
+        /**
+         * Retrieves the menu IDs of every item with a series.
+         * @return Set of menu IDs.
+         */
+        private Set<Long> getMenuIds() {
+            return seriesMap.keySet();
+        }
+    }
+
+    /**
+     * Exponentially smoothed demand of an item in one session of one weekday, holding a single number per week.
+     * The week in progress is totalled separately, and folded into the smoothed level once a later week is added.
+     */
+    private static class Series {
+        /**
+         * Smoothed demand, up to the week before the current week.
+         */
+        private double level;
+
+        /**
+         * Whether the level has been set from a first week of demand.
+         */
+        private boolean hasLevel;
+
+        /**
+         * Week being totalled, or Long.MIN_VALUE before the first demand is added.
+         */
+        private long currentWeek = Long.MIN_VALUE;
+
+        /**
+         * Demand totalled for the current week.
+         */
+        private int currentCount;
+
+        /**
+         * Demand of the week before the current week, used as the naive forecast by the backtest, or -1 before the second week of the series.
+         */
+        private int previousCount = -1;
+
+        /**
+         * Adds to the demand of a week. Demand for a week before the current week is ignored.
+         * @param week Week of the demand.
+         * @param count Number of the item sold.
+         * @param alpha Smoothing factor.
+         * @param backtest Backtest to measure the forecasts in, or null.
+         */
+        private void add(long week, int count, double alpha, Backtest backtest) {
+            if (currentWeek == Long.MIN_VALUE) {
+                currentWeek = week;
+            } else if (week > currentWeek) {
+                close(week, alpha, backtest);
+                currentWeek = week;
+            } else if (week < currentWeek) {
+                return;
+            }
+
+            currentCount += count;
+        }
+
+        /**
+         * Folds the current week into the level, followed by a demand of zero for every week skipped before a later week.
+         * Without a backtest, the skipped weeks are folded in at once.
+         * @param nextWeek Later week the series is moving to.
+         * @param alpha Smoothing factor.
+         * @param backtest Backtest to measure the forecasts of the current and skipped weeks in, or null.
+         */
+        private void close(long nextWeek, double alpha, Backtest backtest) {
+            if (nextWeek <= currentWeek) {
+                return;
+            }
+
+            if (hasLevel) {
+                if (backtest != null) {
+                    backtest.addForecast(level, previousCount, currentCount);
+                }
+
+                level = alpha * currentCount + (1 - alpha) * level;
+            } else {
+                level = currentCount;
+                hasLevel = true;
+            }
+
+            final long skippedWeeks = nextWeek - currentWeek - 1;
+
+            if (backtest == null) {
+                level *= Math.pow(1 - alpha, skippedWeeks);
+            } else {
+                for (long week = 0; week < skippedWeeks; week++) {
+                    backtest.addForecast(level, (week == 0) ? currentCount : 0, 0);
+                    level *= 1 - alpha;
+                }
+            }
+
+            previousCount = (skippedWeeks == 0) ? currentCount : 0;
+            currentWeek = nextWeek;
+            currentCount = 0;
+        }
+
+        /**
+         * Forecasts the demand of a week without changing the series.
+         * @param week Week to forecast, no earlier than the current week.
+         * @param alpha Smoothing factor.
+         * @return Forecast quantity, or 0 if there is no earlier week of demand.
+         */
+        private double forecast(long week, double alpha) {
+            if (week <= currentWeek) {
+                return hasLevel ? level : 0;
+            }
+
+            final double nextLevel = hasLevel ? alpha * currentCount + (1 - alpha) * level : currentCount;
+            return nextLevel * Math.pow(1 - alpha, week - currentWeek - 1);
+        }
+    }
+
+    /**
+     * Errors of the forecasts made while replaying the revenue ledger.
+     */
+    private static class Backtest {
+        /**
+         * Number of forecasts measured.
+         */
+        private long forecastCount;
+
+        /**
+         * Total absolute error of the smoothed forecasts.
+         */
+        private double totalError;
+
+        /**
+         * Total absolute error of the naive forecasts.
+         */
+        private double totalNaiveError;
+
+        /**
+         * Measures a smoothed forecast and the naive forecast of the same week against the actual demand.
+         * @param forecast Smoothed forecast quantity.
+         * @param naiveForecast Demand of the same session a week earlier.
+         * @param actual Actual demand.
+         */
+        private void addForecast(double forecast, int naiveForecast, int actual) {
+            forecastCount++;
+            totalError += Math.abs(forecast - actual);
+            totalNaiveError += Math.abs(naiveForecast - actual);
+        }
+
+        /**
+         * Calculates the mean absolute error of the smoothed forecasts.
+         * @return Mean absolute error, or 0 if nothing was forecast.
+         */
+        private double getMeanError() {
+            return (forecastCount == 0) ? 0 : totalError / forecastCount;
+        }
+
+        /**
+         * Calculates the mean absolute error of the naive forecasts.
+         * @return Mean absolute error, or 0 if nothing was forecast.
+         */
+        private double getNaiveMeanError() {
+            return (forecastCount == 0) ? 0 : totalNaiveError / forecastCount;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package revenue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes and decodes revenue records in the binary revenue file, and parses the records of the older revenue text file.
+ * Every binary record is a length-prefixed block starting with a format version, followed by fixed-width fields, so item names and prices never need escaping and a scan reads each field at a known offset.
+ * Blocks are framed as: length of the rest of the block (int), format version (byte), the fields of the version, then a CRC32 checksum of the version and fields (int).
+ * Fields of format version 1 are: day as yyyyMMdd (int), time as HHmmss (int), staff ID (int), table ID (int), pax (int), order ID (UTF-8, prefixed with its length as a short), line count (int), then per line the menu ID (long), count (int) and price in cents (long).
+ * The length prefix lets a scan step over a record without decoding it, including records of a format version it does not know, and the checksum lets a torn or corrupted record be told apart from a complete one.
+ * Text records are in the format 'yyyyMMdd HHmmss // items // staff ID // table ID // pax // order ID', with items as 'reference - count - price' joined by '--', and are read as format version 0.
+ * @see RevenueRecorder
+ * @see RevenueLedger
+ */
+class RevenueCodec {
+    /**
+     * Version of the binary record format, written at the start of every record.
+     */
+    static final byte FORMAT_VERSION = 1;
+
+    /**
+     * Offset of the format version in a binary record.
+     */
+    private static final int VERSION_OFFSET = Integer.BYTES;
+
+    /**
+     * Offset of the day in a binary record.
+     */
+    private static final int DAY_OFFSET = VERSION_OFFSET + 1;
+
+    /**
+     * Offset of the order ID in a binary record, after the fixed-width fields.
+     */
+    private static final int ORDER_ID_OFFSET = DAY_OFFSET + Integer.BYTES * 5;
+
+    /**
+     * Smallest length prefix of a binary record: a format version and a checksum.
+     */
+    private static final int MIN_LENGTH = 1 + Integer.BYTES;
+
+    /**
+     * Number of bytes of every line in a binary record.
+     */
+    private static final int LINE_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    /**
+     * Separator between the fields of an item in a text record.
+     */
+    private static final String ITEM_FIELD_SEPARATOR = " - ";
+
+    /**
+     * Separator between the items of a text record.
+     */
+    private static final String ITEM_SEPARATOR = "--";
+
+    /**
+     * Encodes a revenue record into a length-prefixed binary block.
+     * @param record Revenue record to encode. Must be attributed and have an order ID, with every line referring to its item by menu ID.
+     * @return Encoded block.
+     */
+    static byte[] encode(RevenueRecord record) {
+        final byte[] orderIdBytes = record.getOrderId().getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream block = new ByteArrayOutputStream(ORDER_ID_OFFSET + Short.BYTES + orderIdBytes.length + Integer.BYTES + record.getLineCount() * LINE_SIZE + Integer.BYTES);
+
+        try (DataOutputStream out = new DataOutputStream(block)) {
+            out.writeInt(0);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(record.getDayKey());
+            out.writeInt(record.getTimeKey());
+            out.writeInt(record.getStaffId());
+            out.writeInt(record.getTableId());
+            out.writeInt(record.getPax());
+            out.writeShort(orderIdBytes.length);
+            out.write(orderIdBytes);
+            out.writeInt(record.getLineCount());
+
+            for (int line = 0; line < record.getLineCount(); line++) {
+                out.writeLong(record.getMenuId(line));
+                out.writeInt(record.getCount(line));
+                out.writeLong(record.getCents(line));
+            }
+
+            out.writeInt(0);
+        } catch (IOException e) {
+            throw (new UncheckedIOException(e));
+        }
+
+        final byte[] data = block.toByteArray();
+        final CRC32 checksum = new CRC32();
+        checksum.update(data, VERSION_OFFSET, data.length - VERSION_OFFSET - Integer.BYTES);
+        ByteBuffer.wrap(data).putInt(0, data.length - Integer.BYTES).putInt(data.length - Integer.BYTES, (int) checksum.getValue());
+        return data;
+    }
+
+    /**
+     * Finds the start of the binary record following the one at an offset, reading only its length prefix.
+     * @param buffer Contents of the binary revenue file.
+     * @param offset Offset of the record.
+     * @return Offset just past the record, or -1 if the record is incomplete or its length prefix is invalid.
+     */
+    static int getNextOffset(ByteBuffer buffer, int offset) {
+        if (offset + Integer.BYTES > buffer.limit()) {
+            return -1;
+        }
+
+        final int length = buffer.getInt(offset);
+        final long next = (long) offset + Integer.BYTES + length;
+        return (length < MIN_LENGTH || next > buffer.limit()) ? -1 : (int) next;
+    }
+
+    /**
+     * Checks the checksum of a binary record of any format version.
+     * @param buffer Contents of the binary revenue file.
+     * @param offset Offset of the record.
+     * @param next Offset just past the record.
+     * @return True if the record is complete and uncorrupted.
+     */
+    static boolean isIntact(ByteBuffer buffer, int offset, int next) {
+        final ByteBuffer content = buffer.duplicate();
+        content.limit(next - Integer.BYTES).position(offset + VERSION_OFFSET);
+        final CRC32 checksum = new CRC32();
+        checksum.update(content);
+        return (int) checksum.getValue() == buffer.getInt(next - Integer.BYTES);
+    }
+
+    /**
+     * Finds the first intact binary record at or after an offset, by trying every offset in turn.
+     * Used to step over a torn or corrupted record, whose length prefix cannot be trusted to lead to the next record.
+     * @param buffer Contents of the binary revenue file.
+     * @param from Offset to start searching from.
+     * @return Offset of the first intact record, or -1 if there is none.
+     */
+    static int findIntact(ByteBuffer buffer, int from) {
+        for (int offset = from; offset + Integer.BYTES + MIN_LENGTH <= buffer.limit(); offset++) {
+            final int next = getNextOffset(buffer, offset);
+
+            if (next != -1 && isIntact(buffer, offset, next)) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the end of the binary revenue file once any torn record at its end is dropped, such as a record cut short when the application stopped part way through an append.
+     * Torn or corrupted records followed by intact records are kept, as dropping them would drop the intact records too; readers step over them.
+     * @param buffer Contents of the binary revenue file.
+     * @return Number of bytes at the start of the file up to the end of the last intact record.
+     */
+    static int getRepairedLength(ByteBuffer buffer) {
+        int offset = 0;
+
+        while (offset < buffer.limit()) {
+            final int next = getNextOffset(buffer, offset);
+
+            if (next != -1 && isIntact(buffer, offset, next)) {
+                offset = next;
+                continue;
+            }
+
+            final int resync = findIntact(buffer, offset + 1);
+
+            if (resync == -1) {
+                return offset;
+            }
+
+            offset = resync;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Reads the day of a binary record without decoding it.
+     * @param buffer Contents of the binary revenue file.
+     * @param offset Offset of the record.
+     * @param next Offset just past the record.
+     * @return Day of the record as a yyyyMMdd number, or -1 if the record is of an unknown format version.
+     */
+    static int getDayKey(ByteBuffer buffer, int offset, int next) {
+        if (next - offset < ORDER_ID_OFFSET + Integer.BYTES || buffer.get(offset + VERSION_OFFSET) != FORMAT_VERSION) {
+            return -1;
+        }
+
+        return buffer.getInt(offset + DAY_OFFSET);
+    }
+
+    /**
+     * Decodes a binary record, reading the buffer through absolute gets only so it can be shared between threads.
+     * The checksum is verified, and the sizes of the order ID and lines are checked against the length of the record before anything is allocated.
+     * @param buffer Contents of the binary revenue file.
+     * @param offset Offset of the record, which must be of the current format version.
+     * @param next Offset just past the record.
+     * @return Decoded revenue record, or null if the record is corrupted.
+     */
+    static RevenueRecord decode(ByteBuffer buffer, int offset, int next) {
+        final int end = next - Integer.BYTES;
+
+        if (end < ORDER_ID_OFFSET + Short.BYTES + Integer.BYTES || !isIntact(buffer, offset, next)) {
+            return null;
+        }
+
+        int position = offset + DAY_OFFSET;
+        final int dayKey = buffer.getInt(position);
+        final int timeKey = buffer.getInt(position += Integer.BYTES);
+        final int staffId = buffer.getInt(position += Integer.BYTES);
+        final int tableId = buffer.getInt(position += Integer.BYTES);
+        final int pax = buffer.getInt(position += Integer.BYTES);
+        position += Integer.BYTES;
+
+        final int orderIdLength = buffer.getShort(position) & 0xFFFF;
+
+        if (position + Short.BYTES + orderIdLength + Integer.BYTES > end) {
+            return null;
+        }
+
+        final byte[] orderIdBytes = new byte[orderIdLength];
+        buffer.get(position + Short.BYTES, orderIdBytes);
+        final String orderId = new String(orderIdBytes, StandardCharsets.UTF_8);
+        position += Short.BYTES + orderIdBytes.length;
+
+        final int lineCount = buffer.getInt(position);
+        position += Integer.BYTES;
+
+        if (lineCount < 0 || (long) lineCount * LINE_SIZE != end - position) {
+            return null;
+        }
+
+        final long[] menuIds = new long[lineCount];
+        final int[] counts = new int[lineCount];
+        final long[] cents = new long[lineCount];
+
+        for (int line = 0; line < lineCount; line++, position += LINE_SIZE) {
+            menuIds[line] = buffer.getLong(position);
+            counts[line] = buffer.getInt(position + Long.BYTES);
+            cents[line] = buffer.getLong(position + Long.BYTES + Integer.BYTES);
+        }
+
+        return new RevenueRecord(dayKey, timeKey, menuIds, null, counts, cents, true, staffId, tableId, pax, orderId);
+    }
+
+    /**
+     * Parses a record of the revenue text file.
+     * Item fields are split from the end of each item, so names containing the item field separator are read whole.
+     * @param line Line of the revenue text file.
+     * @return Parsed revenue record, or null if the line is not a valid record.
+     */
+    static RevenueRecord parseText(String line) {
+        final String[] data = line.split(RevenueRecorder.FIELD_SEPARATOR);
+
+        if (data.length < 2 || data[0].length() != 15) {
+            return null;
+        }
+
+        try {
+            final int dayKey = Integer.parseInt(data[0].substring(0, 8));
+            final int timeKey = Integer.parseInt(data[0].substring(9));
+            final String[] items = data[1].split(ITEM_SEPARATOR);
+            final long[] menuIds = new long[items.length];
+            final int[] counts = new int[items.length];
+            final long[] cents = new long[items.length];
+            String[] names = null;
+            int lineCount = 0;
+
+            for (String item : items) {
+                if (item.isEmpty()) {
+                    continue;
+                }
+
+                final int priceStart = item.lastIndexOf(ITEM_FIELD_SEPARATOR);
+                final int countStart = item.lastIndexOf(ITEM_FIELD_SEPARATOR, priceStart - 1);
+                final String reference = item.substring(0, countStart);
+
+                if (reference.startsWith(RevenueRecorder.MENU_ID_PREFIX)) {
+                    menuIds[lineCount] = Long.parseLong(reference.substring(RevenueRecorder.MENU_ID_PREFIX.length()));
+                } else {
+                    if (names == null) {
+                        names = new String[items.length];
+                    }
+
+                    names[lineCount] = reference;
+                }
+
+                counts[lineCount] = Integer.parseInt(item.substring(countStart + ITEM_FIELD_SEPARATOR.length(), priceStart));
+                cents[lineCount] = new BigDecimal(item.substring(priceStart + ITEM_FIELD_SEPARATOR.length())).setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+                lineCount++;
+            }
+
+            final boolean attributed = data.length >= 5;
+            return new RevenueRecord(dayKey, timeKey, Arrays.copyOf(menuIds, lineCount), (names == null) ? null : Arrays.copyOf(names, lineCount), Arrays.copyOf(counts, lineCount), Arrays.copyOf(cents, lineCount), attributed,
+                    attributed ? Integer.parseInt(data[2]) : 0, attributed ? Integer.parseInt(data[3]) : 0, attributed ? Integer.parseInt(data[4]) : 0, (data.length >= 6) ? data[5] : null);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
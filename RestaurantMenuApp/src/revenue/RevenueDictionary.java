@@ -0,0 +1,193 @@
+package revenue;
+
+import tools.ConsolePrinter;
+import tools.FileIO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of the menu items that appear in revenue records, persisted in its own text file.
+ * Revenue records refer to items by menu ID, and the dictionary keeps the name each item was last sold under, so reports can still name items that have since been removed from the menu.
+ * Every item is also given a dense code, from 0 in the order items were first sold, so reports can aggregate into arrays indexed by code.
+ * The file is only appended to: a new line is written when an item is first sold or sold under a new name, and the last line of an item wins when the file is read.
+ * Every name an item has been sold under is also indexed, so records written before items were referred to by menu ID, which name their items instead, can be totalled with the item.
+ * Items on the menu that have not been sold yet may be registered as well, so names of items not sold since those older records were written can be resolved too.
+ */
+public class RevenueDictionary {
+    /**
+     * Name of the dictionary text file.
+     */
+    private static final String FILE_NAME = "revenue_item";
+
+    /**
+     * Dictionary instance shared by every manager for the lifetime of the application.
+     */
+    private static RevenueDictionary instance;
+
+    /**
+     * Maps menu IDs to their codes. Read without locking, so reports aggregating on several threads do not wait on each other.
+     */
+    private final Map<Long, Integer> codeMap;
+
+    /**
+     * Maps every name an item has been registered under to its code, the latest item registered under a name winning. Read without locking.
+     */
+    private final Map<String, Integer> nameCodeMap;
+
+    /**
+     * Menu ID of every code.
+     */
+    private long[] menuIds;
+
+    /**
+     * Name every code was last sold under.
+     */
+    private final List<String> nameList;
+
+    /**
+     * Creates the dictionary and reads in the dictionary file, if it exists.
+     * @throws IOException Thrown if the dictionary file could not be read.
+     */
+    private RevenueDictionary() throws IOException {
+        codeMap = new ConcurrentHashMap<>();
+        nameCodeMap = new ConcurrentHashMap<>();
+        menuIds = new long[16];
+        nameList = new ArrayList<>();
+        final FileIO f = new FileIO();
+
+        if (!f.isFileExists(FILE_NAME)) {
+            return;
+        }
+
+        for (String line : f.read(FILE_NAME)) {
+            final String[] data = line.split(" // ", 2);
+
+            try {
+                if (data.length == 2) {
+                    put(Long.parseLong(data[0]), data[1]);
+                }
+            } catch (NumberFormatException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Invalid file data for detected for revenue item dictionary: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Retrieves the dictionary for the application, reading it in on first use.
+     * @return Revenue dictionary instance.
+     * @throws IOException Thrown if the dictionary file could not be read.
+     */
+    public static synchronized RevenueDictionary getInstance() throws IOException {
+        if (instance == null) {
+            instance = new RevenueDictionary();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Records the name an item is being sold under. Nothing is written if the dictionary already holds the item under the same name.
+     * Must be called before a revenue record referring to the item is written.
+     * @param menuId Menu ID of the item.
+     * @param name Current name of the item.
+     * @throws IOException Thrown if the dictionary file could not be written.
+     */
+    public synchronized void register(long menuId, String name) throws IOException {
+        final Integer code = codeMap.get(menuId);
+
+        if (code != null && nameList.get(code).equals(name)) {
+            return;
+        }
+
+        (new FileIO()).writeLine(FILE_NAME, menuId + " // " + name);
+        put(menuId, name);
+    }
+
+    /**
+     * Records an item on the menu, so older records naming it can be totalled with it. Nothing is written if the dictionary already holds the item, or another item under the same name.
+     * @param menuId Menu ID of the item.
+     * @param name Current name of the item.
+     * @throws IOException Thrown if the dictionary file could not be written.
+     */
+    public synchronized void registerMenuItem(long menuId, String name) throws IOException {
+        if (codeMap.containsKey(menuId) || nameCodeMap.containsKey(name)) {
+            return;
+        }
+
+        (new FileIO()).writeLine(FILE_NAME, menuId + " // " + name);
+        put(menuId, name);
+    }
+
+    /**
+     * Retrieves the code of an item.
+     * @param menuId Menu ID of the item.
+     * @return Code of the item, or -1 if the item has never been registered.
+     */
+    int getCode(long menuId) {
+        return codeMap.getOrDefault(menuId, -1);
+    }
+
+    /**
+     * Retrieves the code of the item last registered under a name.
+     * @param name Name of the item, as in records written before items were referred to by menu ID.
+     * @return Code of the item, or -1 if no item has been registered under the name.
+     */
+    int getCode(String name) {
+        return nameCodeMap.getOrDefault(name, -1);
+    }
+
+    /**
+     * Retrieves the number of codes given out, which is one more than the largest code.
+     * @return Number of items in the dictionary.
+     */
+    synchronized int size() {
+        return nameList.size();
+    }
+
+    /**
+     * Retrieves the menu ID of a code.
+     * @param code Code of the item.
+     * @return Menu ID of the item.
+     */
+    synchronized long getMenuId(int code) {
+        return menuIds[code];
+    }
+
+    /**
+     * Retrieves the name an item was last sold under.
+     * @param code Code of the item.
+     * @return Name of the item.
+     */
+    synchronized String getName(int code) {
+        return nameList.get(code);
+    }
+
+    /**
+     * Adds an item to the dictionary under a new code, or updates the name of an item already in it.
+     * @param menuId Menu ID of the item.
+     * @param name Name of the item.
+     */
+    private void put(long menuId, String name) {
+        final Integer code = codeMap.get(menuId);
+
+        if (code != null) {
+            nameList.set(code, name);
+            nameCodeMap.put(name, code);
+            return;
+        }
+
+        if (nameList.size() == menuIds.length) {
+            menuIds = Arrays.copyOf(menuIds, menuIds.length * 2);
+        }
+
+        menuIds[nameList.size()] = menuId;
+        codeMap.put(menuId, nameList.size());
+        nameCodeMap.put(name, nameList.size());
+        nameList.add(name);
+    }
+}
@@ -0,0 +1,304 @@
+package revenue;
+
+import enums.DataType;
+import tools.ConsolePrinter;
+import tools.FileIO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index of the bills recorded in the revenue files, used to keep a bill from being recorded twice.
+ * Bills are identified by order ID, or by the whole record for text records written before order IDs were recorded.
+ * Every bill is held as a 64-bit fingerprint in an open-addressing hash table, persisted in a binary file as 8 bytes per bill and appended to as bills are recorded, so a lookup or an addition takes constant time however large the revenue file grows.
+ * A fingerprint match only means the bill may have been recorded, as different bills can share a fingerprint; the recorder confirms a match against the records of the bill's day before treating it as a duplicate.
+ * The first time the index is opened, a one-off pass sorts the revenue text file, removes duplicate records already in it and builds the index from the records kept, together with the bills of the binary revenue file.
+ * @see RevenueRecorder
+ */
+class RevenueIndex {
+    /**
+     * Name of the index binary file.
+     */
+    private static final String FILE_NAME = "revenue_index";
+
+    /**
+     * Name of the text file the revenue text file is rewritten into during the one-off pass.
+     */
+    private static final String DEDUP_FILE_NAME = "revenue_dedup";
+
+    /**
+     * Name of the binary file the index file is first written into before it replaces the index file.
+     */
+    private static final String TEMP_FILE_NAME = "revenue_index_temp";
+
+    /**
+     * Number of lines written to the rewritten revenue text file at a time during the one-off pass.
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * Length of the date and time at the start of a text record, in the format 'yyyyMMdd HHmmss'.
+     */
+    private static final int DATE_TIME_LENGTH = 15;
+
+    /**
+     * Hash table slots holding the fingerprints, with 0 marking an empty slot. The number of slots is a power of two.
+     */
+    private long[] slots;
+
+    /**
+     * Number of fingerprints held.
+     */
+    private int size;
+
+    /**
+     * Creates an empty index.
+     */
+    private RevenueIndex() {
+        slots = new long[1024];
+    }
+
+    /**
+     * Reads in the index file, or runs the one-off pass over the revenue files if the index file does not exist.
+     * Must be called before anything is appended to the revenue files in the application session.
+     * @return Index of the bills in the revenue files.
+     * @throws IOException Thrown if the index or revenue files could not be read or written.
+     */
+    static RevenueIndex open() throws IOException {
+        final FileIO f = new FileIO();
+        final RevenueIndex index = new RevenueIndex();
+
+        if (!f.isBinaryFileExists(FILE_NAME)) {
+            if (f.isFileExists(DataType.REVENUE.name())) {
+                index.deduplicate(f);
+            }
+
+            if (f.isBinaryFileExists(DataType.REVENUE.name())) {
+                index.addBinaryRecords(f);
+            }
+
+            index.save(f);
+            return index;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(f.readBytes(FILE_NAME));
+
+        while (buffer.remaining() >= Long.BYTES) {
+            index.insert(buffer.getLong());
+        }
+
+        return index;
+    }
+
+    /**
+     * Retrieves the key identifying the bill of a text record.
+     * @param record Record in the revenue text file format.
+     * @return Order ID of the bill, or the whole record if it was written before order IDs were recorded.
+     */
+    static String getKey(String record) {
+        final String[] data = record.split(RevenueRecorder.FIELD_SEPARATOR);
+        return (data.length == 6) ? data[5] : record;
+    }
+
+    /**
+     * Checks if a bill may already be in the index.
+     * @param key Key of the bill.
+     * @return False if the bill is certainly not in the index, true if it may be.
+     */
+    boolean mightContain(String key) {
+        final long fingerprint = getFingerprint(key);
+
+        for (int slot = getSlot(fingerprint); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+            if (slots[slot] == fingerprint) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds a bill to the index and appends its fingerprint to the index file.
+     * @param key Key of the bill.
+     * @throws IOException Thrown if the index file could not be written.
+     */
+    void add(String key) throws IOException {
+        final long fingerprint = getFingerprint(key);
+        (new FileIO()).appendBytes(FILE_NAME, ByteBuffer.allocate(Long.BYTES).putLong(fingerprint).array(), false);
+        insert(fingerprint);
+    }
+
+    /**
+     * Rewrites the revenue text file in chronological order without duplicate records, keeping the first record of every bill, and adds the bills kept to the index.
+     * The text file is no longer appended to, so it is sorted once here by the date and time at the start of every record, keeping records of the same date and time in file order; the ledger then finds every day of the file as a single run.
+     * Duplicates of a bill are always on the same day as the bill, so once sorted a record is compared exactly with the records of its day.
+     * @param f File IO instance.
+     * @throws IOException Thrown if the revenue text file could not be read or rewritten.
+     */
+    private void deduplicate(FileIO f) throws IOException {
+        final List<String> lineList = f.read(DataType.REVENUE.name());
+        lineList.removeIf(String::isEmpty);
+        lineList.sort(Comparator.comparing(line -> line.substring(0, Math.min(DATE_TIME_LENGTH, line.length()))));
+
+        final List<String> batchList = new ArrayList<>(BATCH_SIZE);
+        final Set<String> dayKeySet = new HashSet<>();
+        String currentDay = "";
+        int duplicateCount = 0;
+        f.clearFile(DEDUP_FILE_NAME);
+
+        for (String line : lineList) {
+            final String day = line.substring(0, Math.min(8, line.length()));
+            final String key = getKey(line);
+
+            if (!day.equals(currentDay)) {
+                currentDay = day;
+                dayKeySet.clear();
+            }
+
+            if (!dayKeySet.add(key)) {
+                duplicateCount++;
+                continue;
+            }
+
+            insert(getFingerprint(key));
+            batchList.add(line);
+
+            if (batchList.size() == BATCH_SIZE) {
+                f.writeLines(DEDUP_FILE_NAME, batchList, false);
+                batchList.clear();
+            }
+        }
+
+        f.writeLines(DEDUP_FILE_NAME, batchList, true);
+        f.replaceFile(DEDUP_FILE_NAME, DataType.REVENUE.name());
+
+        if (duplicateCount > 0) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, duplicateCount + " duplicate revenue record(s) have been removed.");
+        }
+    }
+
+    /**
+     * Adds the bills of the binary revenue file to the index by order ID, stepping over corrupted records and records of unknown format versions.
+     * @param f File IO instance.
+     * @throws IOException Thrown if the binary revenue file could not be read.
+     */
+    private void addBinaryRecords(FileIO f) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(f.readBytes(DataType.REVENUE.name()));
+        int offset = 0;
+        int next;
+
+        while ((next = RevenueCodec.getNextOffset(buffer, offset)) != -1) {
+            if (!RevenueCodec.isIntact(buffer, offset, next)) {
+                offset = RevenueCodec.findIntact(buffer, offset + 1);
+
+                if (offset == -1) {
+                    break;
+                }
+
+                continue;
+            }
+
+            final RevenueRecord record = (RevenueCodec.getDayKey(buffer, offset, next) == -1) ? null : RevenueCodec.decode(buffer, offset, next);
+
+            if (record != null) {
+                insert(getFingerprint(record.getOrderId()));
+            }
+
+            offset = next;
+        }
+    }
+
+    /**
+     * Writes every fingerprint in the index to the index file, in blocks.
+     * The blocks are written to a temporary file that then replaces the index file, so the index file never exists only in part; otherwise a partial index file left by the application stopping part way would be read in as the whole index.
+     * @param f File IO instance.
+     * @throws IOException Thrown if the index file could not be written.
+     */
+    private void save(FileIO f) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BATCH_SIZE * Long.BYTES);
+
+        if (f.isBinaryFileExists(TEMP_FILE_NAME)) {
+            f.truncateBinaryFile(TEMP_FILE_NAME, 0);
+        }
+
+        for (long fingerprint : slots) {
+            if (fingerprint == 0) {
+                continue;
+            }
+
+            buffer.putLong(fingerprint);
+
+            if (!buffer.hasRemaining()) {
+                f.appendBytes(TEMP_FILE_NAME, buffer.array(), false);
+                buffer.clear();
+            }
+        }
+
+        f.appendBytes(TEMP_FILE_NAME, Arrays.copyOf(buffer.array(), buffer.position()), true);
+        f.replaceBinaryFile(TEMP_FILE_NAME, FILE_NAME);
+    }
+
+    /**
+     * Inserts a fingerprint into the hash table, doubling the table once it is half full.
+     * @param fingerprint Fingerprint to insert.
+     */
+    private void insert(long fingerprint) {
+        if ((size + 1) * 2 > slots.length) {
+            final long[] oldSlots = slots;
+            slots = new long[oldSlots.length * 2];
+            size = 0;
+
+            for (long oldFingerprint : oldSlots) {
+                if (oldFingerprint != 0) {
+                    insert(oldFingerprint);
+                }
+            }
+        }
+
+        int slot = getSlot(fingerprint);
+
+        while (slots[slot] != 0) {
+            if (slots[slot] == fingerprint) {
+                return;
+            }
+
+            slot = (slot + 1) & (slots.length - 1);
+        }
+
+        slots[slot] = fingerprint;
+        size++;
+    }
+
+    /**
+     * Retrieves the first slot to probe for a fingerprint.
+     * @param fingerprint Fingerprint to look up.
+     * @return Slot index.
+     */
+    private int getSlot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & (slots.length - 1);
+    }
+
+    /**
+     * Calculates the 64-bit fingerprint of a bill key, using FNV-1a followed by a bit mixing step.
+     * @param key Key of the bill.
+     * @return Non-zero fingerprint of the key.
+     */
+    private static long getFingerprint(String key) {
+        long hash = 0xCBF29CE484222325L;
+
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = hash ^ (hash >>> 33);
+        return (hash == 0) ? 1 : hash;
+    }
+}
@@ -0,0 +1,736 @@
+package revenue;
+
+import enums.DataType;
+import tools.ConsolePrinter;
+import tools.FileIO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Reads paid bills from the revenue files as a stream of records, without loading the files into memory.
+ * Bills are recorded into the binary revenue file; the revenue text file holds the bills recorded before the binary format was introduced, and is read side by side with it, before it, as the older of the two.
+ * Each file is memory-mapped and scanned one record at a time, so memory use does not grow with the number of bills recorded. Binary records are stepped over by their length prefix and only decoded if they fall within the period read; corrupted records are stepped over to the next intact record.
+ * Each file is indexed by day, as the runs of consecutive records of every day, so a report only scans the runs of the days in its period.
+ * As bills are mostly appended in chronological order, a day is usually a single run and the runs of a period join into one range of the file; a bill paid late, after bills of later days, starts a further run of its own day rather than disabling the index.
+ * The index of each file is kept for the lifetime of the application and extended with only the records appended since the previous read. The files are mapped only for the duration of each read.
+ * Reports over large periods are aggregated in parallel, in chunks of the mapped files split at record boundaries.
+ * @see RevenueRecorder
+ * @see RevenueCodec
+ */
+public class RevenueLedger {
+    /**
+     * Smallest number of bytes a period must span in a file to be aggregated in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    /**
+     * Largest number of bytes aggregated by a single fork/join task.
+     */
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    /**
+     * Ledger instance shared by every manager for the lifetime of the application.
+     */
+    private static RevenueLedger instance;
+
+    /**
+     * Revenue text file, holding the bills recorded before the binary format was introduced.
+     */
+    private final Segment textSegment;
+
+    /**
+     * Binary revenue file, holding the bills recorded since.
+     */
+    private final Segment binarySegment;
+
+    /**
+     * Creates a ledger with empty indexes.
+     */
+    private RevenueLedger() {
+        textSegment = new Segment(false);
+        binarySegment = new Segment(true);
+    }
+
+    /**
+     * Retrieves the ledger for the application, creating it on first use.
+     * @return Revenue ledger instance.
+     */
+    public static synchronized RevenueLedger getInstance() {
+        if (instance == null) {
+            instance = new RevenueLedger();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Streams the revenue records of a period to a consumer, those of the text file first, each file in the order the records appear in it.
+     * Revenue records still queued by the recorder are written first, so recently paid bills are included.
+     * Records without a valid date, malformed text records, corrupted binary records and binary records of an unknown format version are skipped.
+     * @param startDate First day of the period, inclusive.
+     * @param endDate Last day of the period, inclusive.
+     * @param consumer Consumer to hand each record of the period to.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    public synchronized void read(LocalDate startDate, LocalDate endDate, RecordConsumer consumer) throws IOException {
+        try {
+            open();
+            final int startDay = RevenueRecord.toDayKey(startDate);
+            final int endDay = RevenueRecord.toDayKey(endDate);
+
+            for (Segment segment : getSegments()) {
+                for (int[] range : segment.getRanges(startDay, endDay)) {
+                    segment.scan(range[0], range[1], startDay, endDay, consumer);
+                }
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Aggregates the revenue records of a period into a single result.
+     * Ranges of a file spanning less than PARALLEL_THRESHOLD bytes are aggregated on the calling thread.
+     * Larger ranges are split into chunks at record boundaries and aggregated in parallel on the common fork/join pool, each chunk into its own partial result, and the partial results are combined in file order, those of the text file first.
+     * Revenue records still queued by the recorder are written first, so recently paid bills are included.
+     * @param startDate First day of the period, inclusive.
+     * @param endDate Last day of the period, inclusive.
+     * @param supplier Creates a new, empty partial result.
+     * @param accumulator Adds a record into a partial result. Called on several threads at once, but never for the same partial result.
+     * @param combiner Combines two partial results, the first covering the earlier part of the files, and returns the combined result.
+     * @param <A> Type of the result.
+     * @return Aggregated result of every record of the period.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    public synchronized <A> A aggregate(LocalDate startDate, LocalDate endDate, Supplier<A> supplier, Accumulator<A> accumulator, BinaryOperator<A> combiner) throws IOException {
+        try {
+            open();
+            final int startDay = RevenueRecord.toDayKey(startDate);
+            final int endDay = RevenueRecord.toDayKey(endDate);
+            A result = null;
+
+            for (Segment segment : getSegments()) {
+                for (int[] range : segment.getRanges(startDay, endDay)) {
+                    final int from = range[0];
+                    final int to = range[1];
+                    final A partial;
+
+                    if (to - from < PARALLEL_THRESHOLD) {
+                        partial = supplier.get();
+                        segment.scan(from, to, startDay, endDay, record -> accumulator.accept(partial, record));
+                    } else {
+                        partial = ForkJoinPool.commonPool().invoke(new AggregateTask<>(segment, from, to, startDay, endDay, supplier, accumulator, combiner));
+                    }
+
+                    result = (result == null) ? partial : combiner.apply(result, partial);
+                }
+            }
+
+            if (result == null) {
+                result = supplier.get();
+            }
+
+            return result;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Aggregates the revenue records of every day of a period into a separate result per day.
+     * Only the indexed runs of the requested days are scanned.
+     * Revenue records still queued by the recorder are written first, so recently paid bills are included.
+     * Every day is reported with the number of records it has in the files, so a caller keeping the result of a day can tell when a bill of the day is recorded late and the result must be aggregated again.
+     * @param startDate First day of the period, inclusive.
+     * @param endDate Last day of the period, inclusive.
+     * @param skipDay Tests for days that need no result, given the day and its number of records, such as days whose results are already known for that many records. Their records are not scanned.
+     * @param supplier Creates a new, empty result for a day.
+     * @param accumulator Adds a record into the result of its day.
+     * @param <A> Type of the result.
+     * @return Results of the days of the period with at least one record that were not skipped, together with the number of records of every day of the period.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    public synchronized <A> DailyResult<A> aggregateByDay(LocalDate startDate, LocalDate endDate, BiPredicate<LocalDate, Integer> skipDay, Supplier<A> supplier, Accumulator<A> accumulator) throws IOException {
+        try {
+            open();
+            final TreeMap<LocalDate, A> resultMap = new TreeMap<>();
+            final int startDay = RevenueRecord.toDayKey(startDate);
+            final int endDay = RevenueRecord.toDayKey(endDate);
+
+            final SortedMap<Integer, Integer> dayCountMap = new TreeMap<>();
+
+            for (Segment segment : getSegments()) {
+                for (int day : segment.dayRunMap.subMap(startDay, true, endDay, true).keySet()) {
+                    dayCountMap.merge(day, segment.dayCountMap.get(day), Integer::sum);
+                }
+            }
+
+            final Map<LocalDate, Integer> countMap = new HashMap<>();
+
+            for (Map.Entry<Integer, Integer> entry : dayCountMap.entrySet()) {
+                final int day = entry.getKey();
+                final LocalDate date = toDate(day);
+                countMap.put(date, entry.getValue());
+
+                if (skipDay.test(date, entry.getValue())) {
+                    continue;
+                }
+
+                final A result = supplier.get();
+
+                for (Segment segment : getSegments()) {
+                    segment.scanDay(day, record -> accumulator.accept(result, record));
+                }
+
+                resultMap.put(date, result);
+            }
+
+            return new DailyResult<>(resultMap, countMap);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Maps both revenue files and brings their indexes up to date, after waiting for queued revenue records to be written.
+     * @throws IOException Thrown if a revenue file could not be mapped.
+     */
+    private void open() throws IOException {
+        RevenueRecorder.getInstance().flush();
+        final FileIO f = new FileIO();
+        textSegment.open(f);
+        binarySegment.open(f);
+    }
+
+    /**
+     * Releases the mapped contents of both revenue files, keeping their indexes.
+     * Called at the end of every read, so no mapping is held while the recorder's writer appends to or rolls back the binary file, as a mapped file cannot be truncated on every platform.
+     */
+    private void close() {
+        textSegment.close();
+        binarySegment.close();
+    }
+
+    /**
+     * Retrieves both revenue files, in the order they are read.
+     * @return The text file, followed by the binary file.
+     */
+    private List<Segment> getSegments() {
+        return Arrays.asList(textSegment, binarySegment);
+    }
+
+    /**
+     * Reads the day of a text record from the first eight characters of its line, without decoding the line.
+     * @param buffer Mapped contents of the revenue text file.
+     * @param offset Offset of the start of the line.
+     * @param lineEnd Offset of the end of the line.
+     * @return Day of the record as a yyyyMMdd number, or -1 if the line does not start with a plausible one.
+     */
+    private static int parseDayKey(ByteBuffer buffer, int offset, int lineEnd) {
+        if (lineEnd - offset < 8) {
+            return -1;
+        }
+
+        int day = 0;
+
+        for (int index = offset; index < offset + 8; index++) {
+            final byte b = buffer.get(index);
+
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+
+            day = day * 10 + (b - '0');
+        }
+
+        final int month = day / 100 % 100;
+        final int dayOfMonth = day % 100;
+        return (month >= 1 && month <= 12 && dayOfMonth >= 1 && dayOfMonth <= 31) ? day : -1;
+    }
+
+    /**
+     * Finds the end of the line starting at an offset of the revenue text file.
+     * @param buffer Mapped contents of the revenue text file.
+     * @param offset Offset of the start of the line.
+     * @return Offset of the line's new line character, or the end of the buffer if the line is incomplete.
+     */
+    private static int findLineEnd(ByteBuffer buffer, int offset) {
+        while (offset < buffer.limit() && buffer.get(offset) != '\n') {
+            offset++;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Decodes a line of the revenue text file, dropping any carriage return at its end.
+     * @param buffer Mapped contents of the revenue text file.
+     * @param offset Offset of the start of the line.
+     * @param lineEnd Offset of the end of the line.
+     * @return Text of the line.
+     */
+    private static String decodeLine(ByteBuffer buffer, int offset, int lineEnd) {
+        if (lineEnd > offset && buffer.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+
+        final byte[] bytes = new byte[lineEnd - offset];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts a yyyyMMdd number back into its date.
+     * @param dayKey Day as a yyyyMMdd number.
+     * @return Date of the day.
+     */
+    private static LocalDate toDate(int dayKey) {
+        return LocalDate.of(dayKey / 10000, dayKey / 100 % 100, dayKey % 100);
+    }
+
+    /**
+     * One of the revenue files, with its mapped contents and day index.
+     * Only read through absolute gets once mapped, so it can be shared between fork/join tasks.
+     */
+    private static class Segment {
+        /**
+         * Whether this is the binary revenue file rather than the revenue text file.
+         */
+        private final boolean binary;
+
+        /**
+         * Maps days, as yyyyMMdd numbers, to the runs of the file holding their records, in file order.
+         * Each run is a pair of the offset of its first record and the offset just past its last record, and holds consecutive records of the day, along with any corrupted or undated records between them.
+         */
+        private final TreeMap<Integer, List<int[]>> dayRunMap;
+
+        /**
+         * Maps the offsets of torn or corrupted binary records to the offset of the next intact record, so reads step over records whose length prefix cannot be trusted.
+         */
+        private final TreeMap<Integer, Integer> gapMap;
+
+        /**
+         * Mapped contents of the file during a read, or an empty buffer if the file does not exist or no read is in progress.
+         */
+        private ByteBuffer buffer;
+
+        /**
+         * Number of bytes at the start of the file that have been indexed, always ending at the end of a record.
+         */
+        private int indexedLength;
+
+        /**
+         * Maps days, as yyyyMMdd numbers, to the number of records of the day indexed.
+         */
+        private final Map<Integer, Integer> dayCountMap;
+
+        /**
+         * Day of the last record indexed, whose run is extended by the next record if it is of the same day, as a yyyyMMdd number.
+         */
+        private int runDay;
+
+        /**
+         * Creates a segment for one of the revenue files, with an empty index.
+         * @param binary True for the binary revenue file, false for the revenue text file.
+         */
+        private Segment(boolean binary) {
+            this.binary = binary;
+            this.dayRunMap = new TreeMap<>();
+            this.dayCountMap = new HashMap<>();
+            this.gapMap = new TreeMap<>();
+            this.buffer = ByteBuffer.allocate(0);
+            reset();
+        }
+
+        /**
+         * Maps the file and extends the index with the complete records appended since it was last indexed.
+         * The index is rebuilt from the start if the file has shrunk, and cleared if the file does not exist.
+         * @param f File IO instance.
+         * @throws IOException Thrown if the file could not be mapped.
+         */
+        private void open(FileIO f) throws IOException {
+            if (!(binary ? f.isBinaryFileExists(DataType.REVENUE.name()) : f.isFileExists(DataType.REVENUE.name()))) {
+                buffer = ByteBuffer.allocate(0);
+                reset();
+                return;
+            }
+
+            buffer = binary ? f.mapBinaryFile(DataType.REVENUE.name()) : f.mapFile(DataType.REVENUE.name());
+
+            if (buffer.limit() < indexedLength) {
+                reset();
+            }
+
+            index();
+        }
+
+        /**
+         * Releases the mapped contents of the file, keeping the index for the next read.
+         */
+        private void close() {
+            buffer = ByteBuffer.allocate(0);
+        }
+
+        /**
+         * Clears the index, so the file is indexed again from the start on the next read.
+         */
+        private void reset() {
+            dayRunMap.clear();
+            dayCountMap.clear();
+            gapMap.clear();
+            indexedLength = 0;
+            runDay = 0;
+        }
+
+        /**
+         * Extends the index with the complete records appended to the file since it was last indexed.
+         * Corrupted binary records and binary records of an unknown format version are counted and reported, as they are skipped by every read.
+         * A corrupted record is stepped over to the next intact record, which is recorded as a gap; indexing stops at the corrupted record until an intact record follows it.
+         */
+        private void index() {
+            int offset = indexedLength;
+            int unknownCount = 0;
+            int corruptedCount = 0;
+
+            while (offset < buffer.limit()) {
+                final int next = getNextOffset(offset);
+
+                if (next == -1) {
+                    break;
+                }
+
+                if (binary && !RevenueCodec.isIntact(buffer, offset, next)) {
+                    final int resync = RevenueCodec.findIntact(buffer, offset + 1);
+
+                    if (resync == -1) {
+                        break;
+                    }
+
+                    gapMap.put(offset, resync);
+                    corruptedCount++;
+                    offset = resync;
+                    continue;
+                }
+
+                final int day = getDayKey(offset, next);
+
+                if (day == -1 && binary) {
+                    unknownCount++;
+                }
+
+                if (day != -1) {
+                    final List<int[]> runList = dayRunMap.computeIfAbsent(day, key -> new ArrayList<>());
+
+                    if (day == runDay) {
+                        runList.get(runList.size() - 1)[1] = next;
+                    } else {
+                        runList.add(new int[] {offset, next});
+                        runDay = day;
+                    }
+
+                    dayCountMap.merge(day, 1, Integer::sum);
+                }
+
+                offset = next;
+            }
+
+            indexedLength = offset;
+
+            if (unknownCount > 0) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, unknownCount + " revenue record(s) of an unknown format version will be left out of reports.");
+            }
+
+            if (corruptedCount > 0) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, corruptedCount + " corrupted revenue record(s) will be left out of reports.");
+            }
+        }
+
+        /**
+         * Finds the ranges of the file to scan for a period, joining the runs of its days that touch or overlap.
+         * @param startDay First day of the period, as a yyyyMMdd number.
+         * @param endDay Last day of the period, as a yyyyMMdd number.
+         * @return Pairs of the offset of the first record and the offset just past the last record of every range, in file order.
+         */
+        private List<int[]> getRanges(int startDay, int endDay) {
+            final List<int[]> runList = new ArrayList<>();
+
+            for (List<int[]> dayRunList : dayRunMap.subMap(startDay, true, endDay, true).values()) {
+                runList.addAll(dayRunList);
+            }
+
+            runList.sort(Comparator.comparingInt(run -> run[0]));
+            final List<int[]> rangeList = new ArrayList<>();
+
+            for (int[] run : runList) {
+                final int[] range = rangeList.isEmpty() ? null : rangeList.get(rangeList.size() - 1);
+
+                if (range != null && run[0] <= range[1]) {
+                    range[1] = Math.max(range[1], run[1]);
+                } else {
+                    rangeList.add(new int[] {run[0], run[1]});
+                }
+            }
+
+            return rangeList;
+        }
+
+        /**
+         * Hands every record in a range of the file that falls within a period to a consumer.
+         * @param from Offset of the first record of the range.
+         * @param to Offset just past the last record of the range.
+         * @param startDay First day of the period, as a yyyyMMdd number.
+         * @param endDay Last day of the period, as a yyyyMMdd number.
+         * @param consumer Consumer to hand each record to.
+         */
+        private void scan(int from, int to, int startDay, int endDay, RecordConsumer consumer) {
+            int offset = from;
+
+            while (offset < to) {
+                final int next = getNextOffset(offset);
+                final int day = getDayKey(offset, next);
+
+                if (day >= startDay && day <= endDay) {
+                    final RevenueRecord record = binary ? RevenueCodec.decode(buffer, offset, next) : RevenueCodec.parseText(decodeLine(buffer, offset, next - 1));
+
+                    if (record != null) {
+                        consumer.accept(record);
+                    }
+                }
+
+                offset = next;
+            }
+        }
+
+        /**
+         * Hands every record of an indexed day to a consumer, scanning only the runs of the day.
+         * @param day Day to scan, as a yyyyMMdd number.
+         * @param consumer Consumer to hand each record to.
+         */
+        private void scanDay(int day, RecordConsumer consumer) {
+            for (int[] run : dayRunMap.getOrDefault(day, Collections.emptyList())) {
+                scan(run[0], run[1], day, day, consumer);
+            }
+        }
+
+        /**
+         * Finds the start of the record following the one at an offset.
+         * @param offset Offset of the record.
+         * @return Offset just past the record, or -1 if the record is incomplete.
+         */
+        private int getNextOffset(int offset) {
+            if (binary) {
+                final Integer gapEnd = gapMap.get(offset);
+                return (gapEnd == null) ? RevenueCodec.getNextOffset(buffer, offset) : gapEnd;
+            }
+
+            final int lineEnd = findLineEnd(buffer, offset);
+            return (lineEnd == buffer.limit()) ? -1 : lineEnd + 1;
+        }
+
+        /**
+         * Reads the day of the record at an offset without decoding the record.
+         * @param offset Offset of the record.
+         * @param next Offset just past the record.
+         * @return Day of the record as a yyyyMMdd number, or -1 if the record has no valid date, is corrupted or is of an unknown format version.
+         */
+        private int getDayKey(int offset, int next) {
+            if (binary) {
+                return gapMap.containsKey(offset) ? -1 : RevenueCodec.getDayKey(buffer, offset, next);
+            }
+
+            return parseDayKey(buffer, offset, next - 1);
+        }
+
+        /**
+         * Finds the first record boundary at or after an offset within an indexed range.
+         * Text records are found by seeking to the end of the line at the offset, while binary records are stepped through from the start of the range by their length prefixes.
+         * @param from Offset of the first record of the range.
+         * @param offset Offset to find the boundary from.
+         * @return Offset of the first record starting at or after the offset.
+         */
+        private int getBoundary(int from, int offset) {
+            if (!binary) {
+                return findLineEnd(buffer, offset) + 1;
+            }
+
+            int boundary = from;
+
+            while (boundary < offset) {
+                boundary = getNextOffset(boundary);
+            }
+
+            return boundary;
+        }
+    }
+
+    /**
+     * Fork/join task aggregating a range of a revenue file, splitting it in half at a record boundary until each chunk is at most CHUNK_SIZE bytes.
+     * @param <A> Type of the result.
+     */
+    private static class AggregateTask<A> extends RecursiveTask<A> {
+        /**
+         * Serialization version of the task, declared as ForkJoinTask is serializable. Tasks are never serialized.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Revenue file to aggregate, shared between tasks.
+         */
+        private final Segment segment;
+
+        /**
+         * Offset of the first record of the range.
+         */
+        private final int from;
+
+        /**
+         * Offset just past the last record of the range.
+         */
+        private final int to;
+
+        /**
+         * First day of the period, as a yyyyMMdd number.
+         */
+        private final int startDay;
+
+        /**
+         * Last day of the period, as a yyyyMMdd number.
+         */
+        private final int endDay;
+
+        /**
+         * Creates a new, empty partial result.
+         */
+        private final Supplier<A> supplier;
+
+        /**
+         * Adds a record into a partial result.
+         */
+        private final Accumulator<A> accumulator;
+
+        /**
+         * Combines two partial results.
+         */
+        private final BinaryOperator<A> combiner;
+
+        /**
+         * Creates a task for a range of a revenue file.
+         * @param segment Revenue file to aggregate.
+         * @param from Offset of the first record of the range.
+         * @param to Offset just past the last record of the range.
+         * @param startDay First day of the period, as a yyyyMMdd number.
+         * @param endDay Last day of the period, as a yyyyMMdd number.
+         * @param supplier Creates a new, empty partial result.
+         * @param accumulator Adds a record into a partial result.
+         * @param combiner Combines two partial results.
+         */
+        private AggregateTask(Segment segment, int from, int to, int startDay, int endDay, Supplier<A> supplier, Accumulator<A> accumulator, BinaryOperator<A> combiner) {
+            this.segment = segment;
+            this.from = from;
+            this.to = to;
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        /**
+         * Aggregates the range, forking the first half and computing the second half on the current thread if the range is larger than a chunk.
+         * @return Partial result of the range.
+         */
+        @Override
+        protected A compute() {
+            final int middle = (to - from > CHUNK_SIZE) ? segment.getBoundary(from, from + (to - from) / 2) : to;
+
+            if (middle >= to) {
+                final A result = supplier.get();
+                segment.scan(from, to, startDay, endDay, record -> accumulator.accept(result, record));
+                return result;
+            }
+
+            final AggregateTask<A> first = new AggregateTask<>(segment, from, middle, startDay, endDay, supplier, accumulator, combiner);
+            first.fork();
+            final A second = new AggregateTask<>(segment, middle, to, startDay, endDay, supplier, accumulator, combiner).compute();
+            return combiner.apply(first.join(), second);
+        }
+    }
+
+    /**
+     * Adds revenue records into a partial result of an aggregation.
+     * @param <A> Type of the result.
+     */
+    @FunctionalInterface
+    public interface Accumulator<A> {
+        /**
+         * Adds a single revenue record into a partial result.
+         * @param result Partial result to add the record into.
+         * @param record Revenue record to add.
+         */
+        void accept(A result, RevenueRecord record);
+    }
+
+    /**
+     * Results of a daily aggregation, with the number of records of every day at the time of the aggregation.
+     * @param <A> Type of the result.
+     */
+    public static class DailyResult<A> {
+        /**
+         * Maps days to their results, in order of day.
+         */
+        private final SortedMap<LocalDate, A> resultMap;
+
+        /**
+         * Maps every day of the period with at least one record, including skipped days, to its number of records.
+         */
+        private final Map<LocalDate, Integer> countMap;
+
+        /**
+         * Creates the results of a daily aggregation.
+         * @param resultMap Maps days to their results.
+         * @param countMap Maps every day of the period with at least one record to its number of records.
+         */
+        private DailyResult(SortedMap<LocalDate, A> resultMap, Map<LocalDate, Integer> countMap) {
+            this.resultMap = Collections.unmodifiableSortedMap(resultMap);
+            this.countMap = Collections.unmodifiableMap(countMap);
+        }
+
+        /**
+         * Retrieves the results of every day with at least one record that was not skipped.
+         * @return Unmodifiable map of days to their results, in order of day.
+         */
+        public SortedMap<LocalDate, A> getResultMap() {
+            return resultMap;
+        }
+
+        /**
+         * Retrieves the number of records of a day the result of the day was aggregated from.
+         * @param date Day to check.
+         * @return Number of records of the day, or 0 if the day has none.
+         */
+        public int getRecordCount(LocalDate date) {
+            return countMap.getOrDefault(date, 0);
+        }
+    }
+
+    /**
+     * Consumer of the revenue records streamed from the ledger.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        /**
+         * Handles a single revenue record.
+         * @param record Revenue record, decoded from either revenue file.
+         */
+        void accept(RevenueRecord record);
+    }
+}
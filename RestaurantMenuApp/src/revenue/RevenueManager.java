@@ -3,17 +3,25 @@ package revenue;
 import core.Restaurant;
 import core.RestaurantManager;
 import enums.DataType;
+import enums.Session;
+import menu.MenuCatalog;
+import menu.MenuItem;
+import staff.Staff;
 import tools.ConsolePrinter;
-import tools.FileIO;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.LongFunction;
 
 /**
  * Displays revenue information of the restaurant by periods.
+ * Items are totalled by menu ID and shown under their current menu names, falling back to the names they were last sold under once removed from the menu.
  */
 public class RevenueManager extends RestaurantManager {
     /**
@@ -26,21 +34,13 @@ public class RevenueManager extends RestaurantManager {
         DAILY
     }
 
-    /**
-     * List of all revenue information read from its text file.
-     */
-    private List<String[]> revenueList;
-
     /**
      * Initialises the manager with a restaurant object for data storage and manipulation.
-     * Also reads in data from the revenue text file for local storage.
+     * Revenue data is not read in here; each report streams only the records of its period from the revenue ledger.
      * @param restaurant Restaurant instance from main
-     * @throws Exception Errors that occurred while reading in revenue data from text file.
      */
-    public RevenueManager(Restaurant restaurant) throws Exception {
+    public RevenueManager(Restaurant restaurant) {
         super(restaurant);
-        final FileIO f = new FileIO();
-        revenueList = f.read(DataType.REVENUE).stream().map(data -> data.split(" // ")).filter(data -> data.length == 2).collect(Collectors.toList());
     }
 
     /**
@@ -55,6 +55,12 @@ public class RevenueManager extends RestaurantManager {
             tempList.add("Show revenue (" + period.name().toLowerCase() + ")");
         }
 
+        tempList.add("Query revenue by date range");
+        tempList.add("Show live sales analytics");
+        tempList.add("Show staff performance");
+        tempList.add("Rebuild item suggestions");
+        tempList.add("Show demand forecast for next session");
+        tempList.add("Run demand forecast backtest");
         return tempList.toArray(new String[0]);
     }
 
@@ -70,6 +76,12 @@ public class RevenueManager extends RestaurantManager {
             tempList.add(() -> print(period));
         }
 
+        tempList.add(this::query);
+        tempList.add(this::showAnalytics);
+        tempList.add(this::showStaffPerformance);
+        tempList.add(this::rebuildSuggestions);
+        tempList.add(this::showForecast);
+        tempList.add(this::runBacktest);
         return tempList.toArray(new Runnable[0]);
     }
 
@@ -79,61 +91,393 @@ public class RevenueManager extends RestaurantManager {
      */
     private void print(Period period) {
         try {
-            LocalDate compareDate = LocalDate.now();
-            Set<String> keySet = new TreeSet<>();
-            Map<String, Integer> countMap = new HashMap<>();
-            Map<String, BigDecimal> priceMap = new HashMap<>();
-
-            for (String[] datas : revenueList) {
-                String orderId = datas[0];
-                DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMdd HHmmss");
-                LocalDate orderDate = LocalDate.parse(orderId, format);
-
-                if (period.equals(Period.DAILY) && !orderDate.equals(compareDate)) {
-                    continue;
-                } else if (period.equals(Period.MONTHLY) && (!orderDate.getMonth().equals(compareDate.getMonth()) || orderDate.getYear() != compareDate.getYear())) {
-                    continue;
-                } else if (period.equals(Period.ANNUALLY) && orderDate.getYear() != compareDate.getYear()) {
-                    continue;
-                }
+            final LocalDate today = LocalDate.now();
+            final LocalDate startDate;
+            final LocalDate endDate;
 
-                for (String items : datas[1].split("--")) {
-                    String[] itemDetails = items.split(" - ");
-                    String itemName = itemDetails[0];
-                    int itemCount = Integer.parseInt(itemDetails[1]);
-                    BigDecimal itemPrice = new BigDecimal(itemDetails[2]);
+            switch (period) {
+                case DAILY:
+                    startDate = today;
+                    endDate = today;
+                    break;
 
-                    if (countMap.containsKey(itemName)) {
-                        itemCount += countMap.get(itemName);
-                    }
+                case MONTHLY:
+                    startDate = today.withDayOfMonth(1);
+                    endDate = today.with(TemporalAdjusters.lastDayOfMonth());
+                    break;
 
-                    if (priceMap.containsKey(itemName)) {
-                        itemPrice = priceMap.get(itemName).add(itemPrice);
-                    }
+                case ANNUALLY:
+                    startDate = today.withDayOfYear(1);
+                    endDate = today.with(TemporalAdjusters.lastDayOfYear());
+                    break;
 
-                    keySet.add(itemName);
-                    countMap.put(itemName, itemCount);
-                    priceMap.put(itemName, itemPrice);
-                }
+                default:
+                    startDate = LocalDate.of(1, 1, 1);
+                    endDate = LocalDate.of(9999, 12, 31);
+                    break;
             }
 
-            if (keySet.size() == 0) {
+            registerMenuItems();
+            final RevenueDictionary dictionary = RevenueDictionary.getInstance();
+            final RevenueTally tally = RevenueLedger.getInstance().aggregate(startDate, endDate, () -> new RevenueTally(dictionary), RevenueTally::add, RevenueTally::merge);
+
+            if (tally.isEmpty()) {
                 ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No revenue information found for this period.");
                 return;
             }
 
-            List<String> displayList = new ArrayList<>();
+            final List<String> displayList = tally.toDisplayList(getNameLookup());
 
-            for (String key : keySet) {
-                displayList.add(key + " // " + countMap.get(key) + " // " + priceMap.get(key));
+            final String title = period + " Revenue Report";
+            ConsolePrinter.clearCmd();
+            ConsolePrinter.printTable(title, "Item // Amount // Total Price", displayList, true);
+            getInputHelper().getInt("Enter 0 to go back", 0, 0);
+        } catch (IOException | RuntimeException e) {
+            ConsolePrinter.logToFile(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Prints revenue information for a date range chosen by the user, broken down into periods and optionally limited to one session.
+     */
+    private void query() {
+        try {
+            final RevenueQuery query = getQueryInput();
+
+            if (query == null) {
+                ConsolePrinter.clearCmd();
+                return;
             }
 
-            final String title = period + " Revenue Report";
+            registerMenuItems();
+            final SortedMap<LocalDate, RevenueTally> periodMap = RevenueQueryEngine.getInstance().execute(query);
+
+            if (periodMap.isEmpty()) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No revenue information found for this query.");
+                return;
+            }
+
+            final LongFunction<String> nameLookup = getNameLookup();
+            final List<String> displayList = new ArrayList<>();
+
+            for (Map.Entry<LocalDate, RevenueTally> entry : periodMap.entrySet()) {
+                displayList.add("\\SUB" + query.getPeriodLabel(entry.getKey()));
+                displayList.addAll(entry.getValue().toDisplayList(nameLookup));
+            }
+
+            final String title = "Revenue Query" + ((query.getSession() == null) ? "" : " (" + query.getSession() + " session)");
             ConsolePrinter.clearCmd();
             ConsolePrinter.printTable(title, "Item // Amount // Total Price", displayList, true);
             getInputHelper().getInt("Enter 0 to go back", 0, 0);
-        } catch (RuntimeException e) {
+        } catch (IOException | RuntimeException e) {
             ConsolePrinter.logToFile(e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Prints the top-selling items and hourly sales of a period chosen by the user, from the live sales analytics.
+     * Only bills paid since the application was started are included.
+     * @see SalesAnalytics
+     */
+    private void showAnalytics() {
+        final SalesAnalytics.Period[] periods = SalesAnalytics.Period.values();
+        final List<String> periodList = new ArrayList<>();
+
+        for (SalesAnalytics.Period period : periods) {
+            periodList.add(period.name().charAt(0) + period.name().substring(1).toLowerCase().replace('_', ' '));
+        }
+
+        ConsolePrinter.printTable("Command // Period", ConsolePrinter.formatChoiceList(periodList, null), true);
+        final int periodIndex = getInputHelper().getInt("Select a period", 0, periods.length) - 1;
+        if (periodIndex == -1) {
+            ConsolePrinter.clearCmd();
+            return;
+        }
+
+        final SalesAnalytics analytics = SalesAnalytics.getInstance();
+        final SalesAnalytics.Period period = periods[periodIndex];
+        final long totalCount = analytics.getTotalCount(period);
+
+        if (totalCount == 0) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No sales recorded for this period since the application was started.");
+            return;
+        }
+
+        final LongFunction<String> nameLookup = getNameLookup();
+        final List<String> topList = new ArrayList<>();
+        int rank = 1;
+
+        for (long[] item : analytics.getTopItems(period, 10)) {
+            final String name = nameLookup.apply(item[0]);
+            topList.add(rank++ + " // " + ((name == null) ? "Item " + item[0] : name) + " // " + item[1] + " // " + (item[1] * 100 / totalCount) + "%");
+        }
+
+        ConsolePrinter.clearCmd();
+        ConsolePrinter.printTable("Top Selling Items (" + periodList.get(periodIndex) + ")", "Rank // Item // Amount Sold (Est.) // Share", topList, true);
+        ConsolePrinter.printTable("Hourly Sales (" + periodList.get(periodIndex) + ")", "Hour // Amount // Total Price", analytics.getHourlyDisplayList(period), true);
+        getInputHelper().getInt("Enter 0 to go back", 0, 0);
+    }
+
+    /**
+     * Prints the bills, covers, revenue and average ticket of every staff over a date range chosen by the user, for each day and in total.
+     * Totals are read from the staff rollup rather than the revenue files. Bills recorded before staff were attributed are not included.
+     * @see StaffRollup
+     */
+    private void showStaffPerformance() {
+        try {
+            final LocalDate[] range = getDateRangeInput();
+
+            if (range == null) {
+                ConsolePrinter.clearCmd();
+                return;
+            }
+
+            final SortedMap<LocalDate, SortedMap<Integer, StaffRollup.Totals>> dayMap = StaffRollup.getInstance().getDailyTotals(range[0], range[1]);
+
+            if (dayMap.isEmpty()) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No staff revenue information found for this date range.");
+                return;
+            }
+
+            final DateTimeFormatter format = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            final SortedMap<Integer, StaffRollup.Totals> rangeMap = new TreeMap<>();
+            final List<String> displayList = new ArrayList<>();
+
+            for (Map.Entry<LocalDate, SortedMap<Integer, StaffRollup.Totals>> dayEntry : dayMap.entrySet()) {
+                displayList.add("\\SUB" + dayEntry.getKey().format(format));
+
+                for (Map.Entry<Integer, StaffRollup.Totals> staffEntry : dayEntry.getValue().entrySet()) {
+                    displayList.add(toStaffDisplayString(staffEntry.getKey(), staffEntry.getValue()));
+                    rangeMap.computeIfAbsent(staffEntry.getKey(), key -> new StaffRollup.Totals()).merge(staffEntry.getValue());
+                }
+            }
+
+            displayList.add("\\SUBTotal, " + range[0].format(format) + " to " + range[1].format(format));
+
+            for (Map.Entry<Integer, StaffRollup.Totals> staffEntry : rangeMap.entrySet()) {
+                displayList.add(toStaffDisplayString(staffEntry.getKey(), staffEntry.getValue()));
+            }
+
+            ConsolePrinter.clearCmd();
+            ConsolePrinter.printTable("Staff Performance", "Staff // Bills // Covers // Revenue // Avg Ticket", displayList, true);
+            getInputHelper().getInt("Enter 0 to go back", 0, 0);
+        } catch (IOException | RuntimeException e) {
+            ConsolePrinter.logToFile(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rebuilds the item pairs behind the suggestions made during order entry from every recorded bill.
+     * @see CoOccurrenceMatrix
+     */
+    private void rebuildSuggestions() {
+        try {
+            final int itemCount = CoOccurrenceMatrix.getInstance().rebuild();
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Item suggestions have been rebuilt for " + itemCount + " item(s).");
+        } catch (IOException | RuntimeException e) {
+            ConsolePrinter.logToFile(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Prints the forecast demand and quantity to prepare of every item for the next session, from the smoothed demand of the same session on the same weekday in past weeks.
+     * @see DemandForecast
+     */
+    private void showForecast() {
+        try {
+            final Map.Entry<LocalDate, Session> nextSession = DemandForecast.getNextSession(LocalDateTime.now());
+            final Map<Long, Double> forecastMap = DemandForecast.getInstance().forecast(nextSession.getKey(), nextSession.getValue());
+            final List<Map.Entry<Long, Double>> entryList = new ArrayList<>(forecastMap.entrySet());
+            final LongFunction<String> nameLookup = getNameLookup();
+            final List<String> displayList = new ArrayList<>();
+            entryList.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+
+            for (Map.Entry<Long, Double> entry : entryList) {
+                final String name = nameLookup.apply(entry.getKey());
+                final long prepQuantity = Math.round(Math.ceil(entry.getValue() - 0.05));
+
+                if (name != null && prepQuantity > 0) {
+                    displayList.add(name + " // " + String.format("%.1f", entry.getValue()) + " // " + prepQuantity);
+                }
+            }
+
+            if (displayList.isEmpty()) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No demand forecast for the next session.");
+                return;
+            }
+
+            final String title = "Demand Forecast (" + nextSession.getKey().getDayOfWeek() + " " + nextSession.getKey().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) + ", " + nextSession.getValue() + " session)";
+            ConsolePrinter.clearCmd();
+            ConsolePrinter.printTable(title, "Item // Forecast // Prepare", displayList, true);
+            getInputHelper().getInt("Enter 0 to go back", 0, 0);
+        } catch (IOException | RuntimeException e) {
+            ConsolePrinter.logToFile(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Prints the accuracy of the demand forecast when replayed over every recorded bill, for several smoothing factors against a naive baseline.
+     * @see DemandForecast
+     */
+    private void runBacktest() {
+        try {
+            final List<String> resultList = DemandForecast.getInstance().backtest();
+
+            if (resultList.isEmpty()) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No revenue information found to backtest the forecast with.");
+                return;
+            }
+
+            ConsolePrinter.clearCmd();
+            ConsolePrinter.printTable("Demand Forecast Backtest", "Method // Forecasts // Mean Abs. Error // Time (ms)", resultList, true);
+            getInputHelper().getInt("Enter 0 to go back", 0, 0);
+        } catch (IOException | RuntimeException e) {
+            ConsolePrinter.logToFile(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Formats the totals of a staff as a row of the staff performance report.
+     * @param staffId Staff the totals are for.
+     * @param totals Totals of the staff.
+     * @return String in the format 'staff // bills // covers // revenue // average ticket'.
+     */
+    private String toStaffDisplayString(int staffId, StaffRollup.Totals totals) {
+        String staffName;
+
+        try {
+            final Staff staff = getRestaurant().getDataFromId(DataType.STAFF, staffId);
+            staffName = staff.getName();
+        } catch (Exception e) {
+            staffName = "Staff " + staffId;
+        }
+
+        return staffName + " // " + totals.getBills() + " // " + totals.getCovers() + " // " + totals.getRevenue() + " // " + totals.getAverageTicket();
+    }
+
+    /**
+     * Records the date range, granularity and session filter of a revenue query.
+     * @return Revenue query, or null if the user chose to go back.
+     */
+    private RevenueQuery getQueryInput() {
+        final LocalDate[] range = getDateRangeInput();
+        if (range == null) {
+            return null;
+        }
+
+        final RevenueQuery.Granularity[] granularities = RevenueQuery.Granularity.values();
+        final List<String> granularityList = new ArrayList<>();
+
+        for (RevenueQuery.Granularity granularity : granularities) {
+            granularityList.add(granularity.name().charAt(0) + granularity.name().substring(1).toLowerCase());
+        }
+
+        List<String> choiceList = ConsolePrinter.formatChoiceList(granularityList, null);
+        ConsolePrinter.printTable("Command // Break Down By", choiceList, true);
+        final int granularityIndex = getInputHelper().getInt("Select how to break down the revenue", 0, granularities.length) - 1;
+        if (granularityIndex == -1) {
+            return null;
+        }
+
+        final Session[] sessions = Session.values();
+        final List<String> sessionList = new ArrayList<>();
+        sessionList.add("Whole day");
+
+        for (Session session : sessions) {
+            sessionList.add(session + " session (" + session.getOpening() + " - " + session.getClosing() + ")");
+        }
+
+        choiceList = ConsolePrinter.formatChoiceList(sessionList, null);
+        ConsolePrinter.printTable("Command // Session", choiceList, true);
+        final int sessionIndex = getInputHelper().getInt("Select a session", 0, sessionList.size()) - 1;
+        if (sessionIndex == -1) {
+            return null;
+        }
+
+        return new RevenueQuery(range[0], range[1], granularities[granularityIndex], (sessionIndex == 0) ? null : sessions[sessionIndex - 1]);
+    }
+
+    /**
+     * Records a date range chosen by the user from the preset ranges, or entered as custom start and end dates.
+     * @return Array of the start and end dates of the range, both inclusive, or null if the user chose to go back.
+     */
+    private LocalDate[] getDateRangeInput() {
+        final LocalDate today = LocalDate.now();
+        final List<String> choiceList = ConsolePrinter.formatChoiceList(Arrays.asList("Last 7 days", "Last week (Monday to Sunday)", "Custom date range"), null);
+        ConsolePrinter.printTable("Command // Date Range", choiceList, true);
+        final int range = getInputHelper().getInt("Select a date range", 0, 3);
+
+        if (range == 0) {
+            return null;
+        } else if (range == 1) {
+            return new LocalDate[] {today.minusDays(6), today};
+        } else if (range == 2) {
+            final LocalDate startDate = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+            return new LocalDate[] {startDate, startDate.plusDays(6)};
+        }
+
+        ConsolePrinter.printInstructions(Collections.singletonList("Date format: ddMMyyyy"));
+        final LocalDate startDate = getDateInput("Enter start date", null);
+        return new LocalDate[] {startDate, getDateInput("Enter end date", startDate)};
+    }
+
+    /**
+     * Obtains a date from the CLI in the format ddMMyyyy, prompting again until a valid date is entered.
+     * @param message Message prompt to be printed in the CLI.
+     * @param minDate Earliest date accepted, or null to accept any date.
+     * @return Date entered.
+     */
+    private LocalDate getDateInput(String message, LocalDate minDate) {
+        final DateTimeFormatter format = DateTimeFormatter.ofPattern("ddMMuuuu");
+
+        do {
+            try {
+                final LocalDate date = LocalDate.parse(getInputHelper().getString(message), format);
+
+                if (minDate == null || !date.isBefore(minDate)) {
+                    return date;
+                }
+
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Date cannot be before " + minDate.format(format) + ".");
+            } catch (DateTimeParseException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Invalid date format.");
+            }
+        } while (true);
+    }
+
+    /**
+     * Registers every item on the menu with the revenue dictionary, so items named in records written before items were referred to by menu ID are totalled with the item.
+     * @throws IOException Thrown if the dictionary file could not be written.
+     */
+    private void registerMenuItems() throws IOException {
+        final RevenueDictionary dictionary = RevenueDictionary.getInstance();
+        final List<MenuItem> itemList;
+
+        try {
+            itemList = MenuCatalog.getInstance(getRestaurant()).getSelectionList();
+        } catch (Exception e) {
+            ConsolePrinter.logToFile(e.getMessage(), e);
+            return;
+        }
+
+        for (MenuItem item : itemList) {
+            dictionary.registerMenuItem(item.getMenuId(), item.getName());
+        }
+    }
+
+    /**
+     * Creates a lookup of the current menu names of items, for naming the items of a report.
+     * @return Lookup of item names by menu ID, returning null for items no longer on the menu.
+     */
+    private LongFunction<String> getNameLookup() {
+        final MenuCatalog catalog = MenuCatalog.getInstance(getRestaurant());
+
+        return menuId -> {
+            try {
+                return catalog.resolve(menuId).getName();
+            } catch (Exception e) {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package revenue;
+
+import enums.Session;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Revenue query over an arbitrary date range, broken down into periods of a chosen granularity and optionally limited to one session.
+ * Queries are answered by the revenue query engine.
+ * @see RevenueQueryEngine
+ */
+public class RevenueQuery {
+    /**
+     * Granularity enumerator for the periods a query is broken down into.
+     */
+    public enum Granularity {
+        DAY,
+        WEEK,
+        MONTH,
+        YEAR,
+        TOTAL
+    }
+
+    /**
+     * Date format of period labels.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * First day of the range, inclusive.
+     */
+    private final LocalDate startDate;
+
+    /**
+     * Last day of the range, inclusive.
+     */
+    private final LocalDate endDate;
+
+    /**
+     * Granularity of the periods the range is broken down into.
+     */
+    private final Granularity granularity;
+
+    /**
+     * Session to limit the query to, or null for the whole day.
+     */
+    private final Session session;
+
+    /**
+     * Creates a revenue query with the specified parameters.
+     * @param startDate First day of the range, inclusive.
+     * @param endDate Last day of the range, inclusive.
+     * @param granularity Granularity of the periods the range is broken down into.
+     * @param session Session to limit the query to, or null for the whole day. Bills are placed in a session by the time their orders were created.
+     * @throws IllegalArgumentException Thrown if the range ends before it starts.
+     */
+    public RevenueQuery(LocalDate startDate, LocalDate endDate, Granularity granularity, Session session) {
+        if (endDate.isBefore(startDate)) {
+            throw (new IllegalArgumentException("Revenue query range ends before it starts."));
+        }
+
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.granularity = granularity;
+        this.session = session;
+    }
+
+    /**
+     * Retrieves the first day of the range.
+     * @return Start date, inclusive.
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Retrieves the last day of the range.
+     * @return End date, inclusive.
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Retrieves the session the query is limited to.
+     * @return Session of the query, or null for the whole day.
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Retrieves the start of the period a day falls in. Periods are cut off at the start of the range, so the first period may be shorter than the rest.
+     * @param date Day within the range.
+     * @return First day of the period within the range.
+     */
+    LocalDate getPeriodStart(LocalDate date) {
+        final LocalDate periodStart;
+
+        switch (granularity) {
+            case WEEK:
+                periodStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                break;
+
+            case MONTH:
+                periodStart = date.withDayOfMonth(1);
+                break;
+
+            case YEAR:
+                periodStart = date.withDayOfYear(1);
+                break;
+
+            case TOTAL:
+                periodStart = startDate;
+                break;
+
+            default:
+                periodStart = date;
+                break;
+        }
+
+        return periodStart.isBefore(startDate) ? startDate : periodStart;
+    }
+
+    /**
+     * Formats the label of a period for display.
+     * @param periodStart First day of the period within the range.
+     * @return Label of the period.
+     */
+    public String getPeriodLabel(LocalDate periodStart) {
+        switch (granularity) {
+            case WEEK:
+                return "Week of " + periodStart.format(DATE_FORMAT);
+
+            case MONTH:
+                return periodStart.format(DateTimeFormatter.ofPattern("MMMM yyyy"));
+
+            case YEAR:
+                return String.valueOf(periodStart.getYear());
+
+            case TOTAL:
+                return startDate.format(DATE_FORMAT) + " to " + endDate.format(DATE_FORMAT);
+
+            default:
+                return periodStart.format(DATE_FORMAT);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package revenue;
+
+import enums.Session;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Answers revenue queries from per-day buckets of pre-aggregated revenue, one tally per session of each day.
+ * Buckets are kept for the lifetime of the application together with the number of records of the day they were built from, so a query only reads the ledger for the days of its range not already bucketed, using the ledger's day index to scan nothing outside them.
+ * A bill paid after the day of its order is recorded under the day of its order, so a bucket is only reused while its day still has the same number of records, and is built again once a bill of the day is recorded late.
+ * Periods of a query are then built by merging the buckets of their days.
+ * @see RevenueQuery
+ * @see RevenueLedger
+ */
+public class RevenueQueryEngine {
+    /**
+     * Number of session slots in a bucket: one per session, followed by one for bills of orders created outside opening hours.
+     */
+    private static final int SLOT_COUNT = Session.values().length + 1;
+
+    /**
+     * Engine instance shared by every manager for the lifetime of the application.
+     */
+    private static RevenueQueryEngine instance;
+
+    /**
+     * Maps days to their buckets.
+     */
+    private final TreeMap<LocalDate, Bucket> bucketMap;
+
+    /**
+     * Creates an engine without any buckets.
+     */
+    private RevenueQueryEngine() {
+        bucketMap = new TreeMap<>();
+    }
+
+    /**
+     * Retrieves the engine for the application, creating it on first use.
+     * @return Revenue query engine instance.
+     */
+    public static synchronized RevenueQueryEngine getInstance() {
+        if (instance == null) {
+            instance = new RevenueQueryEngine();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Answers a revenue query. Days of the range without a bucket, or whose bucket was built from a different number of records than the day now has, are aggregated from the ledger and kept as buckets.
+     * @param query Query to answer.
+     * @return Map of the start of every period with revenue, in order, to the totals of the period.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    synchronized SortedMap<LocalDate, RevenueTally> execute(RevenueQuery query) throws IOException {
+        final RevenueDictionary dictionary = RevenueDictionary.getInstance();
+        final RevenueLedger.DailyResult<RevenueTally[]> daily = RevenueLedger.getInstance().aggregateByDay(query.getStartDate(), query.getEndDate(), this::isBucketed, () -> new RevenueTally[SLOT_COUNT], (bucket, record) -> {
+            final int slot = getSlot(record);
+
+            if (bucket[slot] == null) {
+                bucket[slot] = new RevenueTally(dictionary);
+            }
+
+            bucket[slot].add(record);
+        });
+
+        for (Map.Entry<LocalDate, RevenueTally[]> entry : daily.getResultMap().entrySet()) {
+            bucketMap.put(entry.getKey(), new Bucket(entry.getValue(), daily.getRecordCount(entry.getKey())));
+        }
+
+        final SortedMap<LocalDate, RevenueTally[]> dayMap = new TreeMap<>();
+
+        for (Map.Entry<LocalDate, Bucket> entry : bucketMap.subMap(query.getStartDate(), true, query.getEndDate(), true).entrySet()) {
+            if (entry.getValue().recordCount == daily.getRecordCount(entry.getKey())) {
+                dayMap.put(entry.getKey(), entry.getValue().tallies);
+            }
+        }
+
+        final SortedMap<LocalDate, RevenueTally> periodMap = new TreeMap<>();
+
+        for (Map.Entry<LocalDate, RevenueTally[]> entry : dayMap.entrySet()) {
+            final RevenueTally periodTally = periodMap.computeIfAbsent(query.getPeriodStart(entry.getKey()), date -> new RevenueTally(dictionary));
+
+            for (int slot = 0; slot < SLOT_COUNT; slot++) {
+                final RevenueTally tally = entry.getValue()[slot];
+
+                if (tally != null && (query.getSession() == null || query.getSession().ordinal() == slot)) {
+                    periodTally.merge(tally);
+                }
+            }
+        }
+
+        periodMap.values().removeIf(RevenueTally::isEmpty);
+        return periodMap;
+    }
+
+    /**
+     * Checks if a day has a bucket built from its current number of records, so its records need not be read.
+     * @param date Day to check.
+     * @param recordCount Number of records of the day in the revenue files.
+     * @return True if the bucket of the day is up to date.
+     */
+    private boolean isBucketed(LocalDate date, int recordCount) {
+        final Bucket bucket = bucketMap.get(date);
+        return bucket != null && bucket.recordCount == recordCount;
+    }
+
+    /**
+     * Retrieves the session slot of a revenue record from the time of its order.
+     * @param record Revenue record.
+     * @return Ordinal of the session the order was created in, or the last slot if it was created outside opening hours.
+     */
+    private static int getSlot(RevenueRecord record) {
+        final Session session = Session.fromTime(record.getTime().withSecond(0));
+        return (session == null) ? SLOT_COUNT - 1 : session.ordinal();
+    }
+
+    /**
+     * Pre-aggregated revenue of a day, with the number of records it was built from.
+     */
+    private static class Bucket {
+        /**
+         * Tally per session slot, or null for slots without any bill.
+         */
+        private final RevenueTally[] tallies;
+
+        /**
+         * Number of records of the day the tallies were built from.
+         */
+        private final int recordCount;
+
+        /**
+         * Creates the bucket of a day.
+         * @param tallies Tally per session slot.
+         * @param recordCount Number of records of the day the tallies were built from.
+         */
+        private Bucket(RevenueTally[] tallies, int recordCount) {
+            this.tallies = tallies;
+            this.recordCount = recordCount;
+        }
+    }
+}
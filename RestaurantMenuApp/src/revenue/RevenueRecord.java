@@ -0,0 +1,259 @@
+package revenue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Read-only revenue record of a paid bill, as written by the recorder and streamed from the ledger.
+ * Items are held in parallel primitive arrays, one entry per billed line, with prices in cents, so records can be aggregated without creating objects per line.
+ * Records read from the revenue text file written before items were referred to by menu ID name their items instead, and records written before staff were attributed carry no attribution fields.
+ * @see RevenueCodec
+ */
+public class RevenueRecord {
+    /**
+     * Day the order was created, as a yyyyMMdd number.
+     */
+    private final int dayKey;
+
+    /**
+     * Time the order was created, as a HHmmss number.
+     */
+    private final int timeKey;
+
+    /**
+     * Menu ID of the item on every line, or 0 on lines naming their item.
+     */
+    private final long[] menuIds;
+
+    /**
+     * Name of the item on every line, or null if every line refers to its item by menu ID. Entries are null on lines referring to their item by menu ID.
+     */
+    private final String[] names;
+
+    /**
+     * Number of items on every line.
+     */
+    private final int[] counts;
+
+    /**
+     * Price of every line in cents.
+     */
+    private final long[] cents;
+
+    /**
+     * Whether the record carries the staff, table and pax of its order.
+     */
+    private final boolean attributed;
+
+    /**
+     * Staff that served the order.
+     */
+    private final int staffId;
+
+    /**
+     * Table the order was attached to.
+     */
+    private final int tableId;
+
+    /**
+     * Number of pax seated for the order, or 0 if unknown.
+     */
+    private final int pax;
+
+    /**
+     * Order ID of the bill, or null for records written before order IDs were recorded.
+     */
+    private final String orderId;
+
+    /**
+     * Creates the revenue record of a paid bill.
+     * @param orderDateTime Date/time the order was created.
+     * @param menuIds Menu ID of the item on every line.
+     * @param counts Number of items on every line.
+     * @param cents Price of every line in cents.
+     * @param staffId Staff that served the order.
+     * @param tableId Table the order was attached to.
+     * @param pax Number of pax seated for the order, or 0 if unknown.
+     * @param orderId Order ID of the bill.
+     */
+    public RevenueRecord(LocalDateTime orderDateTime, long[] menuIds, int[] counts, long[] cents, int staffId, int tableId, int pax, String orderId) {
+        this(toDayKey(orderDateTime.toLocalDate()), orderDateTime.getHour() * 10000 + orderDateTime.getMinute() * 100 + orderDateTime.getSecond(), menuIds, null, counts, cents, true, staffId, tableId, pax, orderId);
+    }
+
+    /**
+     * Creates a revenue record from its decoded fields.
+     * @param dayKey Day the order was created, as a yyyyMMdd number.
+     * @param timeKey Time the order was created, as a HHmmss number.
+     * @param menuIds Menu ID of the item on every line, or 0 on lines naming their item.
+     * @param names Name of the item on every line, or null if every line refers to its item by menu ID.
+     * @param counts Number of items on every line.
+     * @param cents Price of every line in cents.
+     * @param attributed Whether the record carries the staff, table and pax of its order.
+     * @param staffId Staff that served the order.
+     * @param tableId Table the order was attached to.
+     * @param pax Number of pax seated for the order, or 0 if unknown.
+     * @param orderId Order ID of the bill, or null if not recorded.
+     */
+    RevenueRecord(int dayKey, int timeKey, long[] menuIds, String[] names, int[] counts, long[] cents, boolean attributed, int staffId, int tableId, int pax, String orderId) {
+        this.dayKey = dayKey;
+        this.timeKey = timeKey;
+        this.menuIds = menuIds;
+        this.names = names;
+        this.counts = counts;
+        this.cents = cents;
+        this.attributed = attributed;
+        this.staffId = staffId;
+        this.tableId = tableId;
+        this.pax = pax;
+        this.orderId = orderId;
+    }
+
+    /**
+     * Converts a date into its yyyyMMdd number, which sorts in the same order as the dates.
+     * @param date Date to convert.
+     * @return Day as a yyyyMMdd number.
+     */
+    static int toDayKey(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    /**
+     * Retrieves the day the order was created as a yyyyMMdd number.
+     * @return Day of the record.
+     */
+    int getDayKey() {
+        return dayKey;
+    }
+
+    /**
+     * Retrieves the day the order was created.
+     * @return Date of the record.
+     */
+    public LocalDate getDate() {
+        return LocalDate.of(dayKey / 10000, dayKey / 100 % 100, dayKey % 100);
+    }
+
+    /**
+     * Retrieves the time the order was created.
+     * @return Time of the record.
+     */
+    public LocalTime getTime() {
+        return LocalTime.of(timeKey / 10000, timeKey / 100 % 100, timeKey % 100);
+    }
+
+    /**
+     * Retrieves the time the order was created as a HHmmss number.
+     * @return Time of the record.
+     */
+    int getTimeKey() {
+        return timeKey;
+    }
+
+    /**
+     * Retrieves the number of billed lines.
+     * @return Number of lines.
+     */
+    public int getLineCount() {
+        return counts.length;
+    }
+
+    /**
+     * Checks if the item on a line is referred to by menu ID.
+     * @param line Index of the line.
+     * @return False if the line names its item, as in records written before items were referred to by menu ID.
+     */
+    public boolean isMenuIdLine(int line) {
+        return names == null || names[line] == null;
+    }
+
+    /**
+     * Retrieves the menu ID of the item on a line.
+     * @param line Index of the line.
+     * @return Menu ID of the item, or 0 if the line names its item.
+     */
+    public long getMenuId(int line) {
+        return menuIds[line];
+    }
+
+    /**
+     * Retrieves the name of the item on a line.
+     * @param line Index of the line.
+     * @return Name of the item, or null if the line refers to its item by menu ID.
+     */
+    public String getName(int line) {
+        return (names == null) ? null : names[line];
+    }
+
+    /**
+     * Retrieves the number of items on a line.
+     * @param line Index of the line.
+     * @return Number of items.
+     */
+    public int getCount(int line) {
+        return counts[line];
+    }
+
+    /**
+     * Retrieves the price of a line.
+     * @param line Index of the line.
+     * @return Price of the line in cents.
+     */
+    public long getCents(int line) {
+        return cents[line];
+    }
+
+    /**
+     * Adds up the prices of every line.
+     * @return Total price of the bill in cents, before service charge and GST.
+     */
+    public long getTotalCents() {
+        long total = 0;
+
+        for (long lineCents : cents) {
+            total += lineCents;
+        }
+
+        return total;
+    }
+
+    /**
+     * Checks if the record carries the staff, table and pax of its order.
+     * @return False for records written before staff were attributed.
+     */
+    public boolean isAttributed() {
+        return attributed;
+    }
+
+    /**
+     * Retrieves the staff that served the order.
+     * @return Staff ID, only meaningful if the record is attributed.
+     */
+    public int getStaffId() {
+        return staffId;
+    }
+
+    /**
+     * Retrieves the table the order was attached to.
+     * @return Table ID, only meaningful if the record is attributed.
+     */
+    public int getTableId() {
+        return tableId;
+    }
+
+    /**
+     * Retrieves the number of pax seated for the order.
+     * @return Number of pax, or 0 if unknown.
+     */
+    public int getPax() {
+        return pax;
+    }
+
+    /**
+     * Retrieves the order ID of the bill.
+     * @return Order ID, or null for records written before order IDs were recorded.
+     */
+    public String getOrderId() {
+        return orderId;
+    }
+}
@@ -0,0 +1,179 @@
+package revenue;
+
+import enums.DataType;
+import tools.AsyncFileWriter;
+import tools.ConsolePrinter;
+import tools.FileIO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records paid bills into the binary revenue file without blocking the payment process.
+ * Records are encoded by the revenue codec and handed to a background writer that appends them in batches; see AsyncFileWriter for details.
+ * The sync interval in milliseconds may be configured with the system property 'revenue.syncInterval'.
+ * The date/time of a record is that of order creation and the staff is the server of the order.
+ * Bills recorded before the binary format was introduced remain in the revenue text file, in the format 'yyyyMMdd HHmmss // items // staff ID // table ID // pax // order ID'. Text records written before staff were attributed end after the items, and text records written before order IDs were recorded end after the pax.
+ * Recording is idempotent: a bill already in either revenue file, identified by its order ID through the revenue index, is not recorded again.
+ * Items in a record are referred to by menu ID and must be registered with the revenue dictionary before the record is queued.
+ * @see AsyncFileWriter
+ * @see RevenueCodec
+ * @see RevenueIndex
+ */
+public class RevenueRecorder {
+    /**
+     * Prefix marking an item reference in a text record as a menu ID rather than an item name.
+     */
+    public static final String MENU_ID_PREFIX = "@";
+
+    /**
+     * Separator between the fields of a text record.
+     */
+    public static final String FIELD_SEPARATOR = " // ";
+
+    /**
+     * Maximum number of revenue records that may be waiting to be written.
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * Default interval in milliseconds between each batch write and sync.
+     */
+    private static final long DEFAULT_SYNC_INTERVAL = 1000;
+
+    /**
+     * Recorder instance shared by every manager for the lifetime of the application.
+     */
+    private static RevenueRecorder instance;
+
+    /**
+     * Background writer for the binary revenue file.
+     */
+    private final AsyncFileWriter writer;
+
+    /**
+     * Index of the bills in the revenue files.
+     */
+    private final RevenueIndex index;
+
+    /**
+     * Creates the recorder, truncating any torn record at the end of the binary revenue file and opening the revenue index before starting its background writer, so any one-off pass over the revenue files is done before they are appended to.
+     * @throws IOException Thrown if the binary revenue file could not be repaired or the revenue index could not be opened.
+     */
+    private RevenueRecorder() throws IOException {
+        final long syncInterval = Long.getLong("revenue.syncInterval", DEFAULT_SYNC_INTERVAL);
+        repair();
+        index = RevenueIndex.open();
+        writer = new AsyncFileWriter(DataType.REVENUE.name(), true, QUEUE_CAPACITY, syncInterval);
+    }
+
+    /**
+     * Retrieves the recorder for the application, creating it on first use.
+     * @return Revenue recorder instance.
+     * @throws IOException Thrown if the revenue index could not be opened.
+     */
+    public static synchronized RevenueRecorder getInstance() throws IOException {
+        if (instance == null) {
+            instance = new RevenueRecorder();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Queues a revenue record to be appended to the binary revenue file, unless its bill has already been recorded.
+     * A bill matching the index is confirmed by reading the records of its day from the revenue ledger, so only a true duplicate is skipped.
+     * @param record Revenue record of the bill, with its order ID.
+     * @return True if the record was queued, false if its bill had already been recorded.
+     * @throws IOException Thrown if the record could not be queued, or the revenue files could not be read to confirm a duplicate.
+     */
+    public synchronized boolean record(RevenueRecord record) throws IOException {
+        final String key = record.getOrderId();
+
+        if (index.mightContain(key) && isRecorded(record.getDate(), key)) {
+            return false;
+        }
+
+        index.add(key);
+        writer.writeBytes(RevenueCodec.encode(record));
+        return true;
+    }
+
+    /**
+     * Blocks until every revenue record queued so far has been written to the binary revenue file.
+     * Used before reading the revenue files so that recently paid bills are included.
+     * @throws IOException Thrown if the calling thread is interrupted while waiting.
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Truncates the binary revenue file to its last intact record, dropping a record torn by the application stopping part way through an append.
+     * Left in place, the length prefix of a torn record would swallow the records appended after it.
+     * The file is read onto the heap rather than mapped, as a file with a live mapping cannot be truncated on every platform.
+     * @throws IOException Thrown if the binary revenue file could not be read or truncated.
+     */
+    private static void repair() throws IOException {
+        final FileIO f = new FileIO();
+
+        if (!f.isBinaryFileExists(DataType.REVENUE.name())) {
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(f.readBytes(DataType.REVENUE.name()));
+        final int repairedLength = RevenueCodec.getRepairedLength(buffer);
+
+        if (repairedLength < buffer.limit()) {
+            f.truncateBinaryFile(DataType.REVENUE.name(), repairedLength);
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, (buffer.limit() - repairedLength) + " byte(s) of incomplete revenue records have been removed from the end of the revenue file.");
+        }
+    }
+
+    /**
+     * Checks if a bill has already been recorded, such as by an earlier attempt at its payment.
+     * @param record Revenue record of the bill, with its order ID.
+     * @return True if the bill is in either revenue file or waiting to be written.
+     * @throws IOException Thrown if the revenue files could not be read to confirm a match.
+     */
+    public synchronized boolean isRecorded(RevenueRecord record) throws IOException {
+        return index.mightContain(record.getOrderId()) && isRecorded(record.getDate(), record.getOrderId());
+    }
+
+    /**
+     * Retrieves the order IDs of every bill recorded on a set of days, reading the records of each day once.
+     * Used by the rollups to drop bills they counted that never reached the revenue files.
+     * @param daySet Days the orders of the bills were created.
+     * @return Order IDs of the bills recorded on the days.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    Set<String> getRecordedOrderIds(Set<LocalDate> daySet) throws IOException {
+        final Set<String> orderIdSet = new HashSet<>();
+
+        for (LocalDate day : daySet) {
+            RevenueLedger.getInstance().read(day, day, record -> {
+                if (record.getOrderId() != null) {
+                    orderIdSet.add(record.getOrderId());
+                }
+            });
+        }
+
+        return orderIdSet;
+    }
+
+    /**
+     * Checks if a bill is in the revenue files, reading only the records of its day.
+     * @param day Day the order of the bill was created.
+     * @param key Order ID of the bill.
+     * @return True if a record of the same day has the same order ID.
+     * @throws IOException Thrown if the revenue files could not be read.
+     */
+    private boolean isRecorded(LocalDate day, String key) throws IOException {
+        final boolean[] found = {false};
+        RevenueLedger.getInstance().read(day, day, record -> found[0] |= key.equals(record.getOrderId()));
+        return found[0];
+    }
+}
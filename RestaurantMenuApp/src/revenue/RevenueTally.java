@@ -0,0 +1,217 @@
+package revenue;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.LongFunction;
+
+/**
+ * Running totals of the items sold in a revenue report, kept in primitive arrays indexed by item code.
+ * Items are coded through the revenue dictionary, so sales of an item are totalled together across renames.
+ * Records written before items were referred to by menu ID carry item names instead. These are resolved to the dictionary code of the item registered under the name, and only names that cannot be resolved are given codes of their own after the dictionary codes, one per name.
+ * Totals are kept in cents so they can be added up without creating objects.
+ * A tally is not thread-safe. Reports aggregated in parallel keep a tally per chunk of the ledger and merge them at the end.
+ * @see RevenueDictionary
+ */
+class RevenueTally {
+    /**
+     * Dictionary the item codes are taken from.
+     */
+    private final RevenueDictionary dictionary;
+
+    /**
+     * Number of dictionary codes when the tally was created. Codes from this value onwards are local to the tally.
+     */
+    private final int dictionarySize;
+
+    /**
+     * Maps the unresolved item names of older records, and the menu IDs of items missing from the dictionary, to their local codes.
+     */
+    private final Map<String, Integer> localCodeMap;
+
+    /**
+     * Item reference of every local code, starting from dictionarySize.
+     */
+    private final List<String> localReferenceList;
+
+    /**
+     * Display name of every local code, starting from dictionarySize.
+     */
+    private final List<String> localNameList;
+
+    /**
+     * Number of items sold, indexed by code.
+     */
+    private int[] counts;
+
+    /**
+     * Total price of the items sold in cents, indexed by code.
+     */
+    private long[] totalCents;
+
+    /**
+     * Creates an empty tally over the codes of a dictionary.
+     * @param dictionary Dictionary to take the item codes from.
+     */
+    RevenueTally(RevenueDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.dictionarySize = dictionary.size();
+        this.localCodeMap = new HashMap<>();
+        this.localReferenceList = new ArrayList<>();
+        this.localNameList = new ArrayList<>();
+        this.counts = new int[dictionarySize + 16];
+        this.totalCents = new long[dictionarySize + 16];
+    }
+
+    /**
+     * Adds the items of a revenue record to the tally.
+     * @param record Revenue record to add.
+     */
+    void add(RevenueRecord record) {
+        for (int line = 0; line < record.getLineCount(); line++) {
+            final int code = record.isMenuIdLine(line) ? getCode(record.getMenuId(line)) : getNameCode(record.getName(line));
+            addToCode(code, record.getCount(line), record.getCents(line));
+        }
+    }
+
+    /**
+     * Merges the totals of another tally over the same dictionary into this tally.
+     * Local codes of the other tally are matched to the codes of this tally by their item references, so items registered with the dictionary after the other tally was created are merged under their dictionary codes.
+     * @param other Tally to merge in, created no later than this tally. Left unchanged.
+     * @return This tally, holding the totals of both.
+     */
+    RevenueTally merge(RevenueTally other) {
+        for (int code = 0; code < other.dictionarySize; code++) {
+            if (other.counts[code] != 0 || other.totalCents[code] != 0) {
+                addToCode(code, other.counts[code], other.totalCents[code]);
+            }
+        }
+
+        for (int index = 0; index < other.localReferenceList.size(); index++) {
+            final int otherCode = other.dictionarySize + index;
+            addToCode(getCode(other.localReferenceList.get(index)), other.counts[otherCode], other.totalCents[otherCode]);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds to the totals of a code, growing the arrays if the code is beyond them.
+     * @param code Code of the item.
+     * @param count Number of items sold.
+     * @param cents Total price of the items sold in cents.
+     */
+    private void addToCode(int code, int count, long cents) {
+        if (code >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(counts.length * 2, code + 1));
+            totalCents = Arrays.copyOf(totalCents, counts.length);
+        }
+
+        counts[code] += count;
+        totalCents[code] += cents;
+    }
+
+    /**
+     * Checks if any item has been added to the tally.
+     * @return True / False
+     */
+    boolean isEmpty() {
+        for (int count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds the report lines of the tally, one per item sold, in alphabetical order of the item names.
+     * @param nameLookup Lookup of the current names of items by menu ID, returning null for items no longer on the menu. Items not found are named as they were last sold.
+     * @return List of strings in the format 'name // count // total price'.
+     */
+    List<String> toDisplayList(LongFunction<String> nameLookup) {
+        final List<Integer> codeList = new ArrayList<>();
+        final String[] names = new String[dictionarySize + localNameList.size()];
+
+        for (int code = 0; code < names.length; code++) {
+            if (counts[code] == 0 && totalCents[code] == 0) {
+                continue;
+            }
+
+            if (code < dictionarySize) {
+                final String currentName = nameLookup.apply(dictionary.getMenuId(code));
+                names[code] = (currentName == null) ? dictionary.getName(code) : currentName;
+            } else {
+                names[code] = localNameList.get(code - dictionarySize);
+            }
+
+            codeList.add(code);
+        }
+
+        codeList.sort(Comparator.comparing(code -> names[code]));
+        final List<String> displayList = new ArrayList<>(codeList.size());
+
+        for (int code : codeList) {
+            displayList.add(names[code] + " // " + counts[code] + " // " + BigDecimal.valueOf(totalCents[code], 2));
+        }
+
+        return displayList;
+    }
+
+    /**
+     * Retrieves the code of an item referred to by menu ID, giving it a local code if it is not in the dictionary.
+     * @param menuId Menu ID of the item.
+     * @return Code of the item.
+     */
+    private int getCode(long menuId) {
+        final int code = dictionary.getCode(menuId);
+
+        if (code != -1 && code < dictionarySize) {
+            return code;
+        }
+
+        return getLocalCode(RevenueRecorder.MENU_ID_PREFIX + menuId, "Item " + menuId);
+    }
+
+    /**
+     * Retrieves the code of a local item reference of another tally.
+     * @param reference Menu ID marked with the menu ID prefix, or the item name in older records.
+     * @return Code of the item.
+     */
+    private int getCode(String reference) {
+        if (reference.startsWith(RevenueRecorder.MENU_ID_PREFIX)) {
+            return getCode(Long.parseLong(reference.substring(RevenueRecorder.MENU_ID_PREFIX.length())));
+        }
+
+        return getNameCode(reference);
+    }
+
+    /**
+     * Retrieves the code of an item named in an older record, giving it a local code if no item in the dictionary has been registered under the name.
+     * @param name Item name in the record.
+     * @return Code of the item.
+     */
+    private int getNameCode(String name) {
+        final int code = dictionary.getCode(name);
+
+        if (code != -1 && code < dictionarySize) {
+            return code;
+        }
+
+        return getLocalCode(name, name);
+    }
+
+    /**
+     * Retrieves the local code of an item reference, giving out a new one on first use.
+     * @param reference Menu ID marked with the menu ID prefix, or the item name in older records.
+     * @param name Display name of the item.
+     * @return Local code of the item.
+     */
+    private int getLocalCode(String reference, String name) {
+        return localCodeMap.computeIfAbsent(reference, key -> {
+            localReferenceList.add(reference);
+            localNameList.add(name);
+            return dictionarySize + localNameList.size() - 1;
+        });
+    }
+}
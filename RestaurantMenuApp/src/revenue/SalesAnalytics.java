@@ -0,0 +1,271 @@
+package revenue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Live sales analytics of the bills paid while the application is running, kept in constant memory and queried in constant time.
+ * For every period, the number of each item sold is estimated by a Count-Min sketch, and the items with the highest estimates are kept as a fixed number of top-selling candidates.
+ * Sales are also totalled per hour of the day in a histogram.
+ * Nothing is read from the revenue file: the analytics start empty and are fed each bill as it is paid. Periods are cleared when the date moves past them.
+ * @see CountMinSketch
+ */
+public class SalesAnalytics {
+    /**
+     * Period enumerator for the analytics periods.
+     */
+    public enum Period {
+        TODAY,
+        THIS_WEEK,
+        THIS_MONTH,
+        SINCE_STARTUP
+    }
+
+    /**
+     * Number of columns per row of each Count-Min sketch.
+     */
+    private static final int SKETCH_WIDTH = 256;
+
+    /**
+     * Number of top-selling candidates kept per period. Queries may ask for at most this many items.
+     */
+    public static final int TOP_CAPACITY = 20;
+
+    /**
+     * Analytics instance shared by every manager for the lifetime of the application.
+     */
+    private static SalesAnalytics instance;
+
+    /**
+     * Analytics of every period, indexed by period ordinal.
+     */
+    private final Window[] windows;
+
+    /**
+     * Creates empty analytics for every period.
+     */
+    private SalesAnalytics() {
+        windows = new Window[Period.values().length];
+
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new Window();
+        }
+    }
+
+    /**
+     * Retrieves the analytics for the application, creating them on first use.
+     * @return Sales analytics instance.
+     */
+    public static synchronized SalesAnalytics getInstance() {
+        if (instance == null) {
+            instance = new SalesAnalytics();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Adds a billed line of a paid order to the analytics of every period.
+     * @param paidDateTime Date/time of payment.
+     * @param menuId Menu ID of the billed item.
+     * @param count Number of items billed.
+     * @param price Total price of the billed line.
+     */
+    public synchronized void record(LocalDateTime paidDateTime, long menuId, int count, BigDecimal price) {
+        final long cents = price.setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+
+        for (Period period : Period.values()) {
+            final Window window = getWindow(period, paidDateTime.toLocalDate());
+            window.add(menuId, count);
+            window.hourlyCounts[paidDateTime.getHour()] += count;
+            window.hourlyCents[paidDateTime.getHour()] += cents;
+        }
+    }
+
+    /**
+     * Retrieves the top-selling items of a period, by estimated number sold.
+     * @param period Period to retrieve the top-selling items of.
+     * @param limit Maximum number of items to retrieve, up to TOP_CAPACITY.
+     * @return Array of menu ID and estimated count pairs, in descending order of count. Estimates are taken from the sketch at the time of the query.
+     */
+    synchronized long[][] getTopItems(Period period, int limit) {
+        final Window window = getWindow(period, LocalDate.now());
+        final long[][] topItems = new long[window.topSize][];
+
+        for (int i = 0; i < window.topSize; i++) {
+            topItems[i] = new long[] {window.topIds[i], window.sketch.estimate(window.topIds[i])};
+        }
+
+        Arrays.sort(topItems, Comparator.comparingLong((long[] item) -> item[1]).reversed());
+        return Arrays.copyOf(topItems, Math.min(limit, topItems.length));
+    }
+
+    /**
+     * Retrieves the total number of items sold in a period.
+     * @param period Period to retrieve the total of.
+     * @return Total number of items sold.
+     */
+    synchronized long getTotalCount(Period period) {
+        return getWindow(period, LocalDate.now()).sketch.getTotalCount();
+    }
+
+    /**
+     * Builds the hourly sales histogram of a period, one line per hour with any sales.
+     * @param period Period to build the histogram of.
+     * @return List of strings in the format 'hour // count // total price'.
+     */
+    synchronized List<String> getHourlyDisplayList(Period period) {
+        final Window window = getWindow(period, LocalDate.now());
+        final List<String> displayList = new ArrayList<>();
+
+        for (int hour = 0; hour < window.hourlyCounts.length; hour++) {
+            if (window.hourlyCounts[hour] != 0) {
+                displayList.add(String.format("%02d:00 - %02d:59", hour, hour) + " // " + window.hourlyCounts[hour] + " // " + BigDecimal.valueOf(window.hourlyCents[hour], 2));
+            }
+        }
+
+        return displayList;
+    }
+
+    /**
+     * Retrieves the analytics of a period, clearing them first if the date has moved past the period.
+     * @param period Period to retrieve the analytics of.
+     * @param date Current date.
+     * @return Analytics of the period.
+     */
+    private Window getWindow(Period period, LocalDate date) {
+        final Window window = windows[period.ordinal()];
+        final LocalDate periodStart = getPeriodStart(period, date);
+
+        if (window.periodStart == null) {
+            window.periodStart = periodStart;
+        } else if (periodStart.isAfter(window.periodStart)) {
+            window.clear(periodStart);
+        }
+
+        return window;
+    }
+
+    /**
+     * Retrieves the start of the period a date falls in.
+     * @param period Period enumerator.
+     * @param date Date within the period.
+     * @return First day of the period.
+     */
+    private static LocalDate getPeriodStart(Period period, LocalDate date) {
+        switch (period) {
+            case TODAY:
+                return date;
+
+            case THIS_WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+            case THIS_MONTH:
+                return date.withDayOfMonth(1);
+
+            default:
+                return LocalDate.MIN;
+        }
+    }
+
+    /**
+     * Sales analytics of a single period.
+     */
+    private static class Window {
+        /**
+         * Estimated number sold of every item.
+         */
+        private final CountMinSketch sketch;
+
+        /**
+         * Menu IDs of the top-selling candidates, in no particular order.
+         */
+        private final long[] topIds;
+
+        /**
+         * Estimated counts of the top-selling candidates, matching topIds.
+         */
+        private final long[] topCounts;
+
+        /**
+         * Number of items sold, indexed by hour of the day.
+         */
+        private final long[] hourlyCounts;
+
+        /**
+         * Total price of the items sold in cents, indexed by hour of the day.
+         */
+        private final long[] hourlyCents;
+
+        /**
+         * Number of top-selling candidates held.
+         */
+        private int topSize;
+
+        /**
+         * First day of the period the analytics are for, or null before the first use.
+         */
+        private LocalDate periodStart;
+
+        /**
+         * Creates empty analytics for a period.
+         */
+        private Window() {
+            sketch = new CountMinSketch(SKETCH_WIDTH);
+            topIds = new long[TOP_CAPACITY];
+            topCounts = new long[TOP_CAPACITY];
+            hourlyCounts = new long[24];
+            hourlyCents = new long[24];
+        }
+
+        /**
+         * Adds to the count of an item, and makes it a top-selling candidate if its estimate is above the lowest candidate.
+         * @param menuId Menu ID of the item.
+         * @param count Number of items sold.
+         */
+        private void add(long menuId, int count) {
+            final long estimate = sketch.add(menuId, count);
+            int lowest = 0;
+
+            for (int i = 0; i < topSize; i++) {
+                if (topIds[i] == menuId) {
+                    topCounts[i] = estimate;
+                    return;
+                }
+
+                if (topCounts[i] < topCounts[lowest]) {
+                    lowest = i;
+                }
+            }
+
+            if (topSize < TOP_CAPACITY) {
+                topIds[topSize] = menuId;
+                topCounts[topSize] = estimate;
+                topSize++;
+            } else if (estimate > topCounts[lowest]) {
+                topIds[lowest] = menuId;
+                topCounts[lowest] = estimate;
+            }
+        }
+
+        /**
+         * Removes every sale from the analytics and moves them to a new period.
+         * @param periodStart First day of the new period.
+         */
+        private void clear(LocalDate periodStart) {
+            sketch.clear();
+            Arrays.fill(hourlyCounts, 0);
+            Arrays.fill(hourlyCents, 0);
+            topSize = 0;
+            this.periodStart = periodStart;
+        }
+    }
+}
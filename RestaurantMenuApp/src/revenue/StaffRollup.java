@@ -0,0 +1,292 @@
+package revenue;
+
+import tools.ConsolePrinter;
+import tools.FileIO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Rollup of the bills served by each staff on each day, with the number of bills, covers and revenue, persisted in its own text file.
+ * The rollup is updated as every bill is paid, so staff reports read it instead of scanning the revenue files.
+ * A line is appended to the file for every bill, and lines of the same staff and day are merged into one when the file is read at startup, so the file holds a single line per staff per day between sessions.
+ * Bills are counted before their revenue record is queued, and the line of every bill carries its order ID until it is merged. Lines of bills that never reached the revenue files, such as when the application stopped part way through a payment, are dropped at startup, so a retried payment is counted once.
+ * If the file does not exist, it is built once from the attributed records in the revenue files. Records written before staff were attributed are left out.
+ * @see RevenueRecorder
+ */
+public class StaffRollup {
+    /**
+     * Name of the rollup text file.
+     */
+    private static final String FILE_NAME = "revenue_staff";
+
+    /**
+     * Name of the text file the rollup file is rewritten into before replacing it.
+     */
+    private static final String TEMP_FILE_NAME = "revenue_staff_new";
+
+    /**
+     * Date format of the days in the rollup file.
+     */
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * Rollup instance shared by every manager for the lifetime of the application.
+     */
+    private static StaffRollup instance;
+
+    /**
+     * Maps days to the totals of every staff that served a bill on the day.
+     */
+    private final TreeMap<LocalDate, TreeMap<Integer, Totals>> dayMap;
+
+    /**
+     * Order IDs of the bills counted since the rollup file was last merged.
+     */
+    private final Set<String> orderIdSet;
+
+    /**
+     * Reads in the rollup file, merging the lines of the same staff and day, or builds it from the revenue files if it does not exist.
+     * Lines of bills not in the revenue files are dropped.
+     * @throws IOException Thrown if the rollup or revenue files could not be read or written.
+     */
+    private StaffRollup() throws IOException {
+        dayMap = new TreeMap<>();
+        orderIdSet = new HashSet<>();
+        final FileIO f = new FileIO();
+
+        if (!f.isFileExists(FILE_NAME)) {
+            RevenueLedger.getInstance().read(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), record -> {
+                if (record.isAttributed()) {
+                    add(record.getDate(), record.getStaffId(), 1, record.getPax(), record.getTotalCents());
+                }
+            });
+
+            save(f);
+            return;
+        }
+
+        final List<String> lineList = f.read(FILE_NAME);
+        final List<String[]> billList = new ArrayList<>();
+        final Set<LocalDate> billDaySet = new HashSet<>();
+
+        for (String line : lineList) {
+            final String[] data = line.split(" // ");
+
+            try {
+                if (data.length == 5) {
+                    add(LocalDate.parse(data[0], DAY_FORMAT), Integer.parseInt(data[1]), Long.parseLong(data[2]), Long.parseLong(data[3]), Long.parseLong(data[4]));
+                } else if (data.length == 6) {
+                    billDaySet.add(LocalDate.parse(data[0], DAY_FORMAT));
+                    billList.add(data);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Invalid file data for detected for staff rollup: " + e.getMessage());
+            }
+        }
+
+        final Set<String> recordedOrderIdSet = billList.isEmpty() ? Collections.emptySet() : RevenueRecorder.getInstance().getRecordedOrderIds(billDaySet);
+        int droppedCount = 0;
+
+        for (String[] data : billList) {
+            if (!recordedOrderIdSet.contains(data[5])) {
+                droppedCount++;
+                continue;
+            }
+
+            try {
+                add(LocalDate.parse(data[0], DAY_FORMAT), Integer.parseInt(data[1]), Long.parseLong(data[2]), Long.parseLong(data[3]), Long.parseLong(data[4]));
+            } catch (NumberFormatException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Invalid file data for detected for staff rollup: " + e.getMessage());
+            }
+        }
+
+        if (droppedCount > 0) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, droppedCount + " bill(s) not in the revenue files have been removed from the staff rollup.");
+        }
+
+        int entryCount = 0;
+
+        for (TreeMap<Integer, Totals> staffMap : dayMap.values()) {
+            entryCount += staffMap.size();
+        }
+
+        if (entryCount < lineList.size() || !billList.isEmpty()) {
+            save(f);
+        }
+    }
+
+    /**
+     * Retrieves the rollup for the application, reading it in on first use.
+     * @return Staff rollup instance.
+     * @throws IOException Thrown if the rollup or revenue files could not be read or written.
+     */
+    public static synchronized StaffRollup getInstance() throws IOException {
+        if (instance == null) {
+            instance = new StaffRollup();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Adds a paid bill to the rollup and appends it to the rollup file with its order ID, unless the bill has already been counted since the file was last merged.
+     * Must be called before the revenue record of the bill is queued, and only for a bill not yet recorded, so a rollup built from the revenue files on first use does not count the bill twice.
+     * @param date Day the order was created.
+     * @param staffId Staff that served the order.
+     * @param pax Number of pax seated for the order.
+     * @param total Total price of the bill, before service charge and GST.
+     * @param orderId Order ID of the bill.
+     * @throws IOException Thrown if the rollup file could not be written.
+     */
+    public synchronized void record(LocalDate date, int staffId, int pax, BigDecimal total, String orderId) throws IOException {
+        if (orderIdSet.contains(orderId)) {
+            return;
+        }
+
+        final long cents = total.setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+        (new FileIO()).writeLine(FILE_NAME, toFileString(date, staffId, 1, pax, cents) + " // " + orderId);
+        add(date, staffId, 1, pax, cents);
+        orderIdSet.add(orderId);
+    }
+
+    /**
+     * Retrieves the totals of every staff on every day of a period.
+     * @param startDate First day of the period, inclusive.
+     * @param endDate Last day of the period, inclusive.
+     * @return Map of days with bills, in order, to the totals of every staff on the day, by staff ID. The totals are copies.
+     */
+    synchronized SortedMap<LocalDate, SortedMap<Integer, Totals>> getDailyTotals(LocalDate startDate, LocalDate endDate) {
+        final SortedMap<LocalDate, SortedMap<Integer, Totals>> resultMap = new TreeMap<>();
+
+        for (Map.Entry<LocalDate, TreeMap<Integer, Totals>> dayEntry : dayMap.subMap(startDate, true, endDate, true).entrySet()) {
+            final SortedMap<Integer, Totals> staffMap = new TreeMap<>();
+
+            for (Map.Entry<Integer, Totals> staffEntry : dayEntry.getValue().entrySet()) {
+                staffMap.put(staffEntry.getKey(), (new Totals()).merge(staffEntry.getValue()));
+            }
+
+            resultMap.put(dayEntry.getKey(), staffMap);
+        }
+
+        return resultMap;
+    }
+
+    /**
+     * Adds to the totals of a staff on a day.
+     * @param date Day of the bills.
+     * @param staffId Staff that served the bills.
+     * @param bills Number of bills.
+     * @param covers Number of pax seated for the bills.
+     * @param cents Total price of the bills in cents.
+     */
+    private void add(LocalDate date, int staffId, long bills, long covers, long cents) {
+        final Totals totals = dayMap.computeIfAbsent(date, key -> new TreeMap<>()).computeIfAbsent(staffId, key -> new Totals());
+        totals.bills += bills;
+        totals.covers += covers;
+        totals.cents += cents;
+    }
+
+    /**
+     * Rewrites the rollup file with a single line per staff per day.
+     * The lines are written to a separate file that then replaces the rollup file, so the rollup file is never left empty or part written.
+     * @param f File IO instance.
+     * @throws IOException Thrown if the rollup file could not be written.
+     */
+    private void save(FileIO f) throws IOException {
+        final List<String> lineList = new ArrayList<>();
+
+        for (Map.Entry<LocalDate, TreeMap<Integer, Totals>> dayEntry : dayMap.entrySet()) {
+            for (Map.Entry<Integer, Totals> staffEntry : dayEntry.getValue().entrySet()) {
+                final Totals totals = staffEntry.getValue();
+                lineList.add(toFileString(dayEntry.getKey(), staffEntry.getKey(), totals.bills, totals.covers, totals.cents));
+            }
+        }
+
+        f.clearFile(TEMP_FILE_NAME);
+        f.writeLines(TEMP_FILE_NAME, lineList, true);
+        f.replaceFile(TEMP_FILE_NAME, FILE_NAME);
+    }
+
+    /**
+     * Formats the totals of a staff on a day as a line of the rollup file.
+     * @param date Day of the bills.
+     * @param staffId Staff that served the bills.
+     * @param bills Number of bills.
+     * @param covers Number of pax seated for the bills.
+     * @param cents Total price of the bills in cents.
+     * @return Line in the format 'yyyyMMdd // staff ID // bills // covers // cents'.
+     */
+    private static String toFileString(LocalDate date, int staffId, long bills, long covers, long cents) {
+        return date.format(DAY_FORMAT) + " // " + staffId + " // " + bills + " // " + covers + " // " + cents;
+    }
+
+    /**
+     * Totals of the bills served by a staff over a period.
+     */
+    static class Totals {
+        /**
+         * Number of bills.
+         */
+        private long bills;
+
+        /**
+         * Number of pax seated for the bills. Bills of orders created before pax were recorded count no covers.
+         */
+        private long covers;
+
+        /**
+         * Total price of the bills in cents, before service charge and GST.
+         */
+        private long cents;
+
+        /**
+         * Adds the totals of another period into these totals.
+         * @param other Totals to add. Left unchanged.
+         * @return These totals, holding the totals of both.
+         */
+        Totals merge(Totals other) {
+            bills += other.bills;
+            covers += other.covers;
+            cents += other.cents;
+            return this;
+        }
+
+        /**
+         * Retrieves the number of bills.
+         * @return Number of bills.
+         */
+        long getBills() {
+            return bills;
+        }
+
+        /**
+         * Retrieves the number of covers.
+         * @return Number of pax seated.
+         */
+        long getCovers() {
+            return covers;
+        }
+
+        /**
+         * Retrieves the revenue.
+         * @return Total price of the bills.
+         */
+        BigDecimal getRevenue() {
+            return BigDecimal.valueOf(cents, 2);
+        }
+
+        /**
+         * Calculates the average price of a bill.
+         * @return Revenue divided by the number of bills, or zero if there are no bills.
+         */
+        BigDecimal getAverageTicket() {
+            return (bills == 0) ? BigDecimal.ZERO.setScale(2) : BigDecimal.valueOf(cents, 2).divide(BigDecimal.valueOf(bills), 2, RoundingMode.HALF_UP);
+        }
+    }
+}
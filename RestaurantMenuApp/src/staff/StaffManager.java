@@ -113,12 +113,11 @@ public class StaffManager extends RestaurantManager {
         final List<String> footerOptions = Collections.singletonList("Go back");
         final List<String> options = ConsolePrinter.formatChoiceList(sortOptions, footerOptions);
         int sortOption = 2;
-        List<String> displayList;
 
         do {
+            final int option = sortOption;
             ConsolePrinter.clearCmd();
-            displayList = getDisplayList(sortOption);
-            ConsolePrinter.printTable(title, "ID // Name // Title", displayList, true);
+            ConsolePrinter.printCachedTable("staff roster " + option, getRestaurant().getDataVersion(DataType.STAFF), title, "ID // Name // Title", () -> getDisplayList(option), true);
             ConsolePrinter.printTable("Command // Sort Option", options, true);
         } while ((sortOption = getInputHelper().getInt("Select a sort option", (1 - footerOptions.size()), sortOptions.size())) != 0);
 
@@ -139,10 +138,7 @@ public class StaffManager extends RestaurantManager {
         }
 
         final String title = getInputHelper().getString("Enter staff title");
-        final List<Staff> dataList = getRestaurant().getDataList(DataType.STAFF);
-        final boolean isNameExists = dataList.stream().anyMatch(x -> x.getName().equalsIgnoreCase(name));
-
-        if (isNameExists) {
+        if (getRestaurant().isNameExists(DataType.STAFF, name)) {
             ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Failed to add staff as the staff already exists on the roster.");
             return;
         }
@@ -0,0 +1,221 @@
+package tables;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only record of a paid order, kept in the order archive after the order is removed from the restaurant.
+ * Holds the names and prices of the items as they were billed, so receipts can be reprinted even if the menu has since changed.
+ * @see OrderArchive
+ */
+class ClosedOrder {
+    /**
+     * Table the order was attached to.
+     */
+    private final int tableId;
+
+    /**
+     * Order ID beginning with the date-time at order creation.
+     */
+    private final String orderId;
+
+    /**
+     * Staff that took the order and served the table.
+     */
+    private final int staffId;
+
+    /**
+     * Staff that processed the payment.
+     */
+    private final int cashierStaffId;
+
+    /**
+     * Date/time of payment.
+     */
+    private final LocalDateTime paidDateTime;
+
+    /**
+     * Billed lines of the order.
+     */
+    private final List<Line> lineList;
+
+    /**
+     * Creates a closed order with the specified parameters.
+     * @param tableId Table the order was attached to.
+     * @param orderId Order ID beginning with the date-time at order creation.
+     * @param staffId Staff that took the order and served the table.
+     * @param cashierStaffId Staff that processed the payment.
+     * @param paidDateTime Date/time of payment.
+     * @param lineList Billed lines of the order.
+     */
+    ClosedOrder(int tableId, String orderId, int staffId, int cashierStaffId, LocalDateTime paidDateTime, List<Line> lineList) {
+        this.tableId = tableId;
+        this.orderId = orderId;
+        this.staffId = staffId;
+        this.cashierStaffId = cashierStaffId;
+        this.paidDateTime = paidDateTime;
+        this.lineList = Collections.unmodifiableList(lineList);
+    }
+
+    /**
+     * Creates a closed order from an open order at the time of payment.
+     * @param order Order being paid.
+     * @param cashierStaffId Staff processing the payment.
+     * @param paidDateTime Date/time of payment.
+     * @return Closed order holding the billed lines of the order, and both the staff of the order and the staff processing the payment.
+     */
+    static ClosedOrder fromOrder(Order order, int cashierStaffId, LocalDateTime paidDateTime) {
+        final List<Line> lineList = new ArrayList<>();
+
+        for (Order.OrderItem item : order.getOrderItemList()) {
+            lineList.add(new Line(order.getItemMenuId(item), order.getItemName(item), order.getItemCount(item), order.getItemPrice(item)));
+        }
+
+        return new ClosedOrder(order.getId(), order.getOrderId(), order.getStaffId(), cashierStaffId, paidDateTime, lineList);
+    }
+
+    /**
+     * Retrieves the table the order was attached to.
+     * @return Table ID.
+     */
+    int getTableId() {
+        return tableId;
+    }
+
+    /**
+     * Retrieves the order ID.
+     * @return Order ID.
+     */
+    String getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Retrieves the date/time the order was created, obtained from the order ID.
+     * @return Date/time of order creation.
+     */
+    LocalDateTime getOrderDateTime() {
+        return Order.parseOrderDateTime(orderId);
+    }
+
+    /**
+     * Retrieves the staff that took the order and served the table.
+     * @return Staff ID.
+     */
+    int getStaffId() {
+        return staffId;
+    }
+
+    /**
+     * Retrieves the staff that processed the payment.
+     * @return Staff ID.
+     */
+    int getCashierStaffId() {
+        return cashierStaffId;
+    }
+
+    /**
+     * Retrieves the date/time of payment.
+     * @return Date/time of payment.
+     */
+    LocalDateTime getPaidDateTime() {
+        return paidDateTime;
+    }
+
+    /**
+     * Retrieves the billed lines of the order.
+     * @return Unmodifiable list of billed lines.
+     */
+    List<Line> getLineList() {
+        return lineList;
+    }
+
+    /**
+     * Calculates the total price of the billed lines, before service charge and GST.
+     * @return Total price of the order.
+     */
+    BigDecimal getTotal() {
+        BigDecimal total = new BigDecimal(0).setScale(2, RoundingMode.FLOOR);
+
+        for (Line line : lineList) {
+            total = total.add(line.getPrice());
+        }
+
+        return total;
+    }
+
+    /**
+     * A billed line of a closed order.
+     */
+    static class Line {
+        /**
+         * Menu ID of the billed item.
+         */
+        private final long menuId;
+
+        /**
+         * Name of the item at the time of billing.
+         */
+        private final String name;
+
+        /**
+         * Count of the item billed.
+         */
+        private final int count;
+
+        /**
+         * Final price of the line.
+         */
+        private final BigDecimal price;
+
+        /**
+         * Creates a billed line with the specified parameters.
+         * @param menuId Menu ID of the billed item.
+         * @param name Name of the item at the time of billing.
+         * @param count Count of the item billed.
+         * @param price Final price of the line.
+         */
+        Line(long menuId, String name, int count, BigDecimal price) {
+            this.menuId = menuId;
+            this.name = name;
+            this.count = count;
+            this.price = price;
+        }
+
+        /**
+         * Retrieves the menu ID of the billed item.
+         * @return Menu ID.
+         */
+        long getMenuId() {
+            return menuId;
+        }
+
+        /**
+         * Retrieves the name of the item at the time of billing.
+         * @return Item name.
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Retrieves the count of the item billed.
+         * @return Item count.
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Retrieves the final price of the line.
+         * @return Line price.
+         */
+        BigDecimal getPrice() {
+            return price;
+        }
+    }
+}
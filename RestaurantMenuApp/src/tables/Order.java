@@ -5,6 +5,8 @@ import menu.MenuItem;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,20 +25,27 @@ public class Order extends RestaurantData {
     private int staffId;
 
     /**
-     * Order ID in the form of the date-time at order creation.
+     * Order ID beginning with the date-time at order creation.
      */
     private String orderId;
 
+    /**
+     * Number of pax seated for the order, or 0 if unknown for orders saved before it was recorded.
+     */
+    private int pax;
+
     /**
      * Creates an order with the specified parameters.
      * @param tableId Table ID to attach the order to. Passed into the parent class as the unique ID.
-     * @param orderId Order ID in the form of the date-time at order creation.
+     * @param orderId Order ID beginning with the date-time at order creation.
      * @param staffId The last staff that managed the order.
+     * @param pax Number of pax seated for the order.
      */
-    Order(int tableId, String orderId, int staffId) {
+    Order(int tableId, String orderId, int staffId, int pax) {
         super(tableId);
         this.orderId = orderId;
         this.staffId = staffId;
+        this.pax = pax;
         orderItemList = new ArrayList<>();
     }
 
@@ -56,13 +65,40 @@ public class Order extends RestaurantData {
         return orderId;
     }
 
+    /**
+     * Retrieves the last staff that managed the order.
+     * @return Staff ID.
+     */
+    int getStaffId() {
+        return staffId;
+    }
+
+    /**
+     * Retrieves the number of pax seated for the order.
+     * @return Number of pax, or 0 if unknown.
+     */
+    int getPax() {
+        return pax;
+    }
+
+    /**
+     * Retrieves the date/time of order creation from an order ID.
+     * @param orderId Order ID beginning with the date-time at order creation.
+     * @return Date/time of order creation.
+     */
+    static LocalDateTime parseOrderDateTime(String orderId) {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+        return LocalDateTime.parse(orderId.substring(0, 15), format);
+    }
+
     /**
      * Adds an item to the list of order items.
      * @param item MenuItem to be added.
      * @param count Amount of the item to be added.
+     * @param pricePer Price of each of the item, fixed when the item is ordered.
      */
-    void addItem(MenuItem item, int count) {
-        orderItemList.add(new OrderItem(item, count));
+    void addItem(MenuItem item, int count, BigDecimal pricePer) {
+        orderItemList.add(new OrderItem(item, count, pricePer));
     }
 
     /**
@@ -102,6 +138,15 @@ public class Order extends RestaurantData {
         return item.getItem().getName();
     }
 
+    /**
+     * Retrieves the menu ID of the MenuItem assigned to the OrderItem.
+     * @param item OrderItem to retrieve the menu ID from.
+     * @return Menu ID of the MenuItem
+     */
+    long getItemMenuId(OrderItem item) {
+        return item.getItem().getMenuId();
+    }
+
     /**
      * Retrieves the item count of the MenuItem assigned to the specified OrderItem.
      * @param item OrderItem to retrieve the count from.
@@ -152,15 +197,11 @@ public class Order extends RestaurantData {
     @Override
     public String toFileString() {
         StringBuilder sb = new StringBuilder();
-        String head = getId() + " // " + orderId + " // " + staffId;
+        String head = getId() + " // " + orderId + " // " + staffId + " // ";
         sb.append(head);
 
-        if (orderItemList.size() > 0) {
-            sb.append(" // ");
-        }
-
         for (int index = 0; index < orderItemList.size(); index++) {
-            String s = orderItemList.get(index).getItem().getId() + "x" + orderItemList.get(index).getCount();
+            String s = orderItemList.get(index).getItem().getMenuId() + "x" + orderItemList.get(index).getCount() + "@" + orderItemList.get(index).getPricePer();
             sb.append(s);
 
             if (index != orderItemList.size() - 1) {
@@ -168,6 +209,7 @@ public class Order extends RestaurantData {
             }
         }
 
+        sb.append(" // ").append(pax);
         return sb.toString();
     }
 
@@ -221,11 +263,12 @@ public class Order extends RestaurantData {
          * Creates a new OrderItem with the specified parameters.
          * @param item MenuItem to be assigned.
          * @param count Count of the MenuItem assigned.
+         * @param pricePer Price of each of the MenuItem.
          */
-        private OrderItem(MenuItem item, int count) {
+        private OrderItem(MenuItem item, int count, BigDecimal pricePer) {
             this.item = item;
             this.count = count;
-            this.pricePer = item.getPrice();
+            this.pricePer = pricePer;
             this.price = pricePer.multiply(new BigDecimal(count)).setScale(2, RoundingMode.FLOOR);
         }
 
@@ -235,7 +278,7 @@ public class Order extends RestaurantData {
          * @return True / False.
          */
         private boolean matchItemId(OrderItem item) {
-            return (this.getItem().getId() == item.getItem().getId());
+            return (this.getItem().getMenuId() == item.getItem().getMenuId());
         }
 
         /**
@@ -272,6 +315,14 @@ public class Order extends RestaurantData {
             return (this.count == count);
         }
 
+        /**
+         * Retrieves the price of each of the assigned MenuItem.
+         * @return Price of each of the MenuItem.
+         */
+        private BigDecimal getPricePer() {
+            return pricePer;
+        }
+
         /**
          * Retrieves the final price of the OrderItem.
          * @return Final price of the OrderItem.
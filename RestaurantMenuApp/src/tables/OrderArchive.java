@@ -0,0 +1,364 @@
+package tables;
+
+import tools.ConsolePrinter;
+import tools.FileIO;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Archives closed orders into daily segment files in a compressed binary format.
+ * Each segment holds the orders created on one day. Every order is stored as a length-prefixed block of deflate-compressed data, and each segment has a text index of order IDs to block offsets.
+ * A segment list records which days have segments, so date range lookups only open the segments in range, and order ID lookups seek straight to the order's block.
+ * Only indexed blocks are read. An order is archived by listing its day, then appending its block, then indexing it, each synced before the next, so the application stopping part way leaves at most an empty listed day or an unindexed block, both of which are ignored. A line torn at the end of the segment list or an index is ignored as well, and dropped before the file is next appended to.
+ */
+class OrderArchive {
+    /**
+     * Directory in the storage directory holding the archive files.
+     */
+    private static final String ARCHIVE_DIR = "archive/";
+
+    /**
+     * Text file listing the days that have segments.
+     */
+    private static final String SEGMENT_LIST_FILE = ARCHIVE_DIR + "segments";
+
+    /**
+     * Version of the binary order format, written at the start of every order.
+     * Version 2 added the staff that processed the payment after the staff of the order.
+     */
+    private static final byte FORMAT_VERSION = 2;
+
+    /**
+     * Version of the binary order format holding a single staff ID, that of the staff who processed the payment.
+     */
+    private static final byte LEGACY_FORMAT_VERSION = 1;
+
+    /**
+     * Date format used in segment file names and the segment list.
+     */
+    private static final DateTimeFormatter SEGMENT_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * Archive instance for the application session.
+     */
+    private static OrderArchive instance;
+
+    /**
+     * Days that have segments, in ascending order.
+     */
+    private final TreeSet<LocalDate> segmentSet;
+
+    /**
+     * Reads in the segment list.
+     * @throws IOException Errors that occurred while reading the segment list.
+     */
+    private OrderArchive() throws IOException {
+        final FileIO f = new FileIO();
+        segmentSet = new TreeSet<>();
+
+        for (String data : readLines(f, SEGMENT_LIST_FILE)) {
+            if (!data.isBlank()) {
+                segmentSet.add(LocalDate.parse(data.trim(), SEGMENT_FORMAT));
+            }
+        }
+    }
+
+    /**
+     * Retrieves the archive, reading in the segment list on first use.
+     * @return Order archive instance.
+     * @throws IOException Errors that occurred while reading the segment list.
+     */
+    static synchronized OrderArchive getInstance() throws IOException {
+        if (instance == null) {
+            instance = new OrderArchive();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Appends a closed order to the segment of the day it was created, creating the segment if needed, unless the order is already archived.
+     * The day is listed before the block is written and the block is indexed last, so an order is never indexed without its block or its day.
+     * A block left past the last indexed order, by the application stopping between writing a block and indexing it, is truncated first, as it is never read.
+     * @param order Closed order to archive.
+     * @return True if the order was archived, false if it was already in the archive.
+     * @throws IOException Errors that occurred while writing to the archive.
+     */
+    synchronized boolean archive(ClosedOrder order) throws IOException {
+        final FileIO f = new FileIO();
+        final LocalDate date = order.getOrderDateTime().toLocalDate();
+        final List<String> indexList = readLines(f, getIndexFile(date));
+        boolean archived = false;
+        long indexedLength = 0;
+
+        for (String data : indexList) {
+            final String[] indexData = data.split(" // ");
+
+            if (indexData.length == 3) {
+                archived |= indexData[0].equals(order.getOrderId());
+                indexedLength = Math.max(indexedLength, Long.parseLong(indexData[1]) + Integer.parseInt(indexData[2]));
+            }
+        }
+
+        if (segmentSet.add(date)) {
+            appendLine(f, SEGMENT_LIST_FILE, readLines(f, SEGMENT_LIST_FILE), date.format(SEGMENT_FORMAT));
+        }
+
+        if (!archived) {
+            if (f.getBinaryFileSize(getSegmentFile(date)) > indexedLength) {
+                f.truncateBinaryFile(getSegmentFile(date), indexedLength);
+            }
+
+            final byte[] block = encode(order);
+            final long offset = f.appendBytes(getSegmentFile(date), block, true);
+            appendLine(f, getIndexFile(date), indexList, order.getOrderId() + " // " + offset + " // " + block.length);
+        }
+
+        return !archived;
+    }
+
+    /**
+     * Retrieves every archived order created within a date range, by day and then in the order they were archived.
+     * Only the segments of days within the range are read, and only the blocks in their indexes are decoded. A corrupted block is left out with a warning rather than failing the whole range.
+     * @param from Start date, inclusive.
+     * @param to End date, inclusive.
+     * @return List of archived orders.
+     * @throws IOException Errors that occurred while reading the archive.
+     */
+    synchronized List<ClosedOrder> findByDateRange(LocalDate from, LocalDate to) throws IOException {
+        final FileIO f = new FileIO();
+        final List<ClosedOrder> orderList = new ArrayList<>();
+        int corruptedCount = 0;
+
+        if (from.isAfter(to)) {
+            return orderList;
+        }
+
+        for (LocalDate date : segmentSet.subSet(from, true, to, true)) {
+            final List<String> indexList = readLines(f, getIndexFile(date));
+
+            if (indexList.isEmpty()) {
+                continue;
+            }
+
+            final byte[] segment = f.readBytes(getSegmentFile(date));
+
+            for (String data : indexList) {
+                final String[] indexData = data.split(" // ");
+
+                if (indexData.length == 3) {
+                    try {
+                        orderList.add(decode(segment, Integer.parseInt(indexData[1]), Integer.parseInt(indexData[2])));
+                    } catch (IOException e) {
+                        corruptedCount++;
+                    }
+                }
+            }
+        }
+
+        if (corruptedCount > 0) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, corruptedCount + " corrupted archived order(s) have been left out.");
+        }
+
+        return orderList;
+    }
+
+    /**
+     * Retrieves an archived order by its order ID. Only the order's own block is read from its segment.
+     * @param orderId Order ID of the archived order.
+     * @return The archived order, or null if it is not in the archive.
+     * @throws IOException Errors that occurred while reading the archive.
+     */
+    synchronized ClosedOrder findByOrderId(String orderId) throws IOException {
+        final FileIO f = new FileIO();
+        final LocalDate date = Order.parseOrderDateTime(orderId).toLocalDate();
+
+        if (!segmentSet.contains(date)) {
+            return null;
+        }
+
+        for (String data : readLines(f, getIndexFile(date))) {
+            final String[] indexData = data.split(" // ");
+
+            if (indexData.length == 3 && indexData[0].equals(orderId)) {
+                final long offset = Long.parseLong(indexData[1]);
+                final int length = Integer.parseInt(indexData[2]);
+                return decode(f.readBytes(getSegmentFile(date), offset, length), 0, length);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the lines of the segment list or an index, leaving out a last line torn by the application stopping part way through writing it.
+     * Both files only hold ASCII, so a torn last line is found by the file being shorter than its lines with their line breaks.
+     * @param f File IO instance.
+     * @param fileName Text file to read.
+     * @return Complete lines of the file, or an empty list if it does not exist.
+     * @throws IOException Errors that occurred while reading the file.
+     */
+    private static List<String> readLines(FileIO f, String fileName) throws IOException {
+        if (!f.isFileExists(fileName)) {
+            return new ArrayList<>();
+        }
+
+        final List<String> lineList = f.read(fileName);
+
+        if (getLength(lineList) != f.getFileSize(fileName)) {
+            lineList.remove(lineList.size() - 1);
+        }
+
+        return lineList;
+    }
+
+    /**
+     * Appends a line to the segment list or an index and syncs it. If the file ends with a torn line, it is rewritten without it first, so the new line is not joined onto the torn one.
+     * @param f File IO instance.
+     * @param fileName Text file to append to.
+     * @param lineList Complete lines of the file, as read by readLines.
+     * @param line Line to append.
+     * @throws IOException Errors that occurred while writing the file.
+     */
+    private static void appendLine(FileIO f, String fileName, List<String> lineList, String line) throws IOException {
+        if (f.isFileExists(fileName) && getLength(lineList) != f.getFileSize(fileName)) {
+            final String tempFileName = fileName + "_temp";
+            f.clearFile(tempFileName);
+            f.writeLines(tempFileName, lineList, true);
+            f.replaceFile(tempFileName, fileName);
+        }
+
+        f.writeLines(fileName, Collections.singletonList(line), true);
+    }
+
+    /**
+     * Calculates the length in bytes of ASCII lines written one per line.
+     * @param lineList Lines of text.
+     * @return Total length of the lines and their line breaks.
+     */
+    private static long getLength(List<String> lineList) {
+        long length = 0;
+
+        for (String line : lineList) {
+            length += line.length() + 1;
+        }
+
+        return length;
+    }
+
+    /**
+     * Retrieves the segment file name of a day.
+     * @param date Day of the segment.
+     * @return Segment file name.
+     */
+    private static String getSegmentFile(LocalDate date) {
+        return ARCHIVE_DIR + "orders_" + date.format(SEGMENT_FORMAT);
+    }
+
+    /**
+     * Retrieves the segment index file name of a day.
+     * @param date Day of the segment.
+     * @return Segment index file name.
+     */
+    private static String getIndexFile(LocalDate date) {
+        return ARCHIVE_DIR + "orders_" + date.format(SEGMENT_FORMAT) + "_index";
+    }
+
+    /**
+     * Encodes a closed order into a length-prefixed block of compressed data.
+     * @param order Closed order to encode.
+     * @return Encoded block.
+     * @throws IOException Errors that occurred while compressing the order.
+     */
+    private static byte[] encode(ClosedOrder order) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(compressed))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(order.getTableId());
+            out.writeUTF(order.getOrderId());
+            out.writeInt(order.getStaffId());
+            out.writeInt(order.getCashierStaffId());
+            out.writeLong(order.getPaidDateTime().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(order.getLineList().size());
+
+            for (ClosedOrder.Line line : order.getLineList()) {
+                out.writeLong(line.getMenuId());
+                out.writeUTF(line.getName());
+                out.writeInt(line.getCount());
+                out.writeLong(line.getPrice().setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact());
+            }
+        }
+
+        final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(block);
+        out.writeInt(compressed.size());
+        compressed.writeTo(out);
+        return block.toByteArray();
+    }
+
+    /**
+     * Reads the total length of the block starting at the given offset.
+     * @param data Bytes holding the block.
+     * @param offset Offset of the block.
+     * @return Total length of the block, including the length prefix.
+     * @throws IOException Thrown if the block is truncated.
+     */
+    private static int decodeLength(byte[] data, int offset) throws IOException {
+        if (offset + 4 > data.length) {
+            throw (new IOException("Truncated archive block at offset " + offset + "."));
+        }
+
+        return 4 + (new DataInputStream(new ByteArrayInputStream(data, offset, 4))).readInt();
+    }
+
+    /**
+     * Decodes a closed order from a length-prefixed block of compressed data.
+     * Orders of the legacy format only recorded the staff that processed the payment, which is taken as the staff of the order as well.
+     * @param data Bytes holding the block.
+     * @param offset Offset of the block.
+     * @param length Total length of the block, including the length prefix.
+     * @return Decoded closed order.
+     * @throws IOException Thrown if the block is truncated, corrupted or of an unknown format version.
+     */
+    private static ClosedOrder decode(byte[] data, int offset, int length) throws IOException {
+        if (decodeLength(data, offset) != length || offset + length > data.length) {
+            throw (new IOException("Corrupted archive block at offset " + offset + "."));
+        }
+
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data, offset + 4, length - 4)))) {
+            final byte version = in.readByte();
+
+            if (version != FORMAT_VERSION && version != LEGACY_FORMAT_VERSION) {
+                throw (new IOException("Unknown archive format version " + version + "."));
+            }
+
+            final int tableId = in.readInt();
+            final String orderId = in.readUTF();
+            final int staffId = in.readInt();
+            final int cashierStaffId = (version == LEGACY_FORMAT_VERSION) ? staffId : in.readInt();
+            final LocalDateTime paidDateTime = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+            final int lineCount = in.readInt();
+            final List<ClosedOrder.Line> lineList = new ArrayList<>(lineCount);
+
+            for (int index = 0; index < lineCount; index++) {
+                final long menuId = in.readLong();
+                final String name = in.readUTF();
+                final int count = in.readInt();
+                final BigDecimal price = BigDecimal.valueOf(in.readLong(), 2);
+                lineList.add(new ClosedOrder.Line(menuId, name, count, price));
+            }
+
+            return new ClosedOrder(tableId, orderId, staffId, cashierStaffId, paidDateTime, lineList);
+        }
+    }
+}
@@ -140,15 +140,16 @@ public class Table extends RestaurantData {
     }
 
     /**
-     * Attaches a new order to the table with the specified staff ID.
+     * Attaches a new order to the table with the specified order ID, staff ID and pax.
+     * @param orderId Unique order ID, usually generated using the restaurant's order ID generator.
      * @param staffId Staff ID to be attached to the order.
+     * @param pax Number of pax seated for the order.
      * @return The newly created order.
      */
-    Order attachOrder(int staffId) {
+    Order attachOrder(String orderId, int staffId, int pax) {
         occupied = true;
         reserved = false;
-        String orderId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
-        order = new Order(getId(), orderId, staffId);
+        order = new Order(getId(), orderId, staffId, pax);
         return order;
     }
 
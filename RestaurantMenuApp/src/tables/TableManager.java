@@ -5,9 +5,19 @@ import core.Restaurant;
 import core.RestaurantData;
 import core.RestaurantManager;
 import enums.DataType;
+import enums.Session;
 import menu.AlaCarteItem;
+import menu.MenuCatalog;
 import menu.MenuItem;
+import menu.MenuSnapshot;
 import menu.PromotionPackage;
+import revenue.CoOccurrenceMatrix;
+import revenue.DemandForecast;
+import revenue.RevenueDictionary;
+import revenue.RevenueRecord;
+import revenue.RevenueRecorder;
+import revenue.SalesAnalytics;
+import revenue.StaffRollup;
 import staff.Staff;
 import tools.ConsolePrinter;
 import tools.FileIO;
@@ -29,36 +39,47 @@ import java.util.stream.Collectors;
  * Additionally manages reservation information within each table object.
  */
 public class TableManager extends RestaurantManager {
+    /**
+     * Largest number of items listed when searching the menu by name.
+     */
+    private final int SEARCH_RESULT_LIMIT = 10;
+
+    /**
+     * Largest number of items suggested after an item is added to an order.
+     */
+    private final int SUGGESTION_LIMIT = 3;
+
     /**
      * Constant of restaurant opening hour for the morning session.
      */
-    private final LocalTime AM_OPENING = LocalTime.of(11, 0);
+    private final LocalTime AM_OPENING = Session.AM.getOpening();
 
     /**
      * Constant of restaurant closing hour for the morning session.
      */
-    private final LocalTime AM_CLOSING = LocalTime.of(15, 0);
+    private final LocalTime AM_CLOSING = Session.AM.getClosing();
 
     /**
      * Constant of restaurant opening hour for the afternoon session.
      */
-    private final LocalTime PM_OPENING = LocalTime.of(18, 0);
+    private final LocalTime PM_OPENING = Session.PM.getOpening();
 
     /**
      * Constant of restaurant closing hour for the afternoon session.
      */
-    private final LocalTime PM_CLOSING = LocalTime.of(22, 0);
+    private final LocalTime PM_CLOSING = Session.PM.getClosing();
 
     /**
      * Initialises the manager with a restaurant object for data storage and manipulation.
      * Reservations are checked for each table, and expired reservations (over 30 minutes) will be removed.
+     * Reservations are not checked if no tables have been loaded yet, as init checks them once the tables are loaded.
      * @param restaurant Restaurant instance from main.
      * @throws Exception Errors that occurred while checking reservations.
      */
     public TableManager(Restaurant restaurant) throws Exception {
         super(restaurant);
 
-        if (getRestaurant().isDataTypeExists(DataType.TABLE)) {
+        if (getRestaurant().isDataTypeExists(DataType.TABLE) && !getRestaurant().getDataList(DataType.TABLE).isEmpty()) {
             checkReservations();
         }
     }
@@ -71,7 +92,7 @@ public class TableManager extends RestaurantManager {
     public void init() throws Exception {
         final FileIO f = new FileIO();
         final List<String[]> tableData = f.read(DataType.TABLE).stream().map(data -> data.split(" // ")).filter(data -> data.length >= 4 && data.length <= 5).collect(Collectors.toList());
-        final List<String[]> orderData = f.read(DataType.ORDER).stream().map(data -> data.split(" // ")).filter(data -> (data.length >= 3 && data.length <= 4)).collect(Collectors.toList());
+        final List<String[]> orderData = f.read(DataType.ORDER).stream().map(data -> data.split(" // ")).filter(data -> (data.length >= 3 && data.length <= 5)).collect(Collectors.toList());
 
         if (tableData.size() == 0) {
             int cap = 10;
@@ -115,41 +136,55 @@ public class TableManager extends RestaurantManager {
             }
         }
 
-        getRestaurant().bulkSave(DataType.TABLE);
+        loadOrders(orderData);
+        checkReservations();
+    }
+
+    /**
+     * Rehydrates open orders from their file data in a single pass and attaches them to their tables.
+     * Menu items are resolved through the menu catalog and tables through an ID map built once, and nothing is written to file here; the tables are saved in bulk by checkReservations afterwards.
+     * Order lines keep the price they were ordered at. Lines saved before prices were recorded are priced at the item's own price, and orders saved before pax were recorded have 0 pax.
+     * @param orderData Order file data, split into fields.
+     * @throws Exception Errors that occurred while retrieving the menu items or tables.
+     */
+    private void loadOrders(List<String[]> orderData) throws Exception {
+        if (orderData.size() == 0) {
+            return;
+        }
+
+        final MenuCatalog catalog = MenuCatalog.getInstance(getRestaurant());
+        final Map<Integer, Table> tableMap = getRestaurant().getDataMap(DataType.TABLE);
 
         for (String[] data : orderData) {
             try {
                 final int tableId = Integer.parseInt(data[0]);
                 final String orderId = data[1];
                 final int staffId = Integer.parseInt(data[2]);
-                Order order = new Order(tableId, orderId, staffId);
+                final int pax = (data.length == 5) ? Integer.parseInt(data[4]) : 0;
+                final Table table = tableMap.get(tableId);
+                Order order = new Order(tableId, orderId, staffId, pax);
 
-                if (data.length == 4) {
+                if (table == null) {
+                    ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Order " + orderId + " refers to a missing table '" + tableId + "'.");
+                    continue;
+                }
+
+                if (data.length >= 4 && !data[3].isEmpty()) {
                     for (String itemData : data[3].split("--")) {
-                        int itemId = Integer.parseInt(itemData.split("x")[0]);
-                        int count = Integer.parseInt(itemData.split("x")[1]);
-
-                        if (itemId < 100000) {
-                            MenuItem item = getRestaurant().getDataFromId(DataType.ALA_CARTE_ITEM, itemId);
-                            order.addItem(item, count);
-                        } else {
-                            MenuItem item = getRestaurant().getDataFromId(DataType.PROMO_PACKAGE, itemId);
-                            order.addItem(item, count);
-                        }
+                        final String[] priceSplit = itemData.split("@");
+                        final long menuId = MenuCatalog.parseMenuId(priceSplit[0].split("x")[0]);
+                        final int count = Integer.parseInt(priceSplit[0].split("x")[1]);
+                        final MenuItem item = catalog.resolve(menuId);
+                        order.addItem(item, count, (priceSplit.length == 2) ? new BigDecimal(priceSplit[1]) : item.getPrice());
                     }
                 }
 
                 getRestaurant().load(order);
-
-                final Table table = getRestaurant().getDataFromId(DataType.TABLE, tableId);
                 table.attachOrder(order);
-                getRestaurant().save(table);
             } catch (NumberFormatException e) {
                 ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Invalid file data for detected for " + DataType.ORDER.name() + ": " + e.getMessage());
             }
         }
-
-        checkReservations();
     }
 
     /**
@@ -165,6 +200,7 @@ public class TableManager extends RestaurantManager {
                 "View all reservations",
                 "Make new reservation",
                 "Manage reservations",
+                "View order history",
         };
     }
 
@@ -181,6 +217,7 @@ public class TableManager extends RestaurantManager {
                 () -> display(4),
                 () -> display(5),
                 () -> display(6),
+                () -> display(7),
         };
     }
 
@@ -214,6 +251,10 @@ public class TableManager extends RestaurantManager {
                 case 6:
                     manageReservations();
                     break;
+
+                case 7:
+                    viewOrderHistory();
+                    break;
             }
         } catch (Exception e) {
             ConsolePrinter.logToFile(e.getMessage(), e);
@@ -229,12 +270,11 @@ public class TableManager extends RestaurantManager {
         int sortOption = 1;
         final List<String> sortOptions = Arrays.asList("Sort by ID", "Sort by occupancy", "Sort by reservation");
         final List<String> options = ConsolePrinter.formatChoiceList(sortOptions, null);
-        List<String> displayList;
 
         do {
+            final int option = sortOption;
             ConsolePrinter.clearCmd();
-            displayList = getTableDisplayList(sortOption);
-            ConsolePrinter.printTable("Table Status", "ID // Occupied // Reserved", displayList, true);
+            ConsolePrinter.printCachedTable("table status " + option, getRestaurant().getDataVersion(DataType.TABLE), "Table Status", "ID // Occupied // Reserved", () -> getTableDisplayList(option), true);
             ConsolePrinter.printTable("Command // Sort Option", options, true);
         } while ((sortOption = getInputHelper().getInt("Select a sort option", 0, sortOptions.size())) != 0);
 
@@ -264,13 +304,11 @@ public class TableManager extends RestaurantManager {
             return;
         }
 
-        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
         Table table = getAvailableTable(LocalDateTime.now(), pax);
-        String orderId = LocalDateTime.now().format(format);
-        Order order = table.attachOrder(getRestaurant().getSessionStaffId());
+        Order order = table.attachOrder(getRestaurant().generateOrderId(), getRestaurant().getSessionStaffId(), pax);
         getRestaurant().save(order);
         getRestaurant().save(table);
-        ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Order " + orderId + " has been created successfully.");
+        ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Order " + order.getOrderId() + " has been created successfully.");
     }
 
     /**
@@ -329,58 +367,102 @@ public class TableManager extends RestaurantManager {
 
     /**
      * Adds menu items into an open order.
+     * Items are priced at the price in effect at the time of ordering, looked up from the price tables of the menu snapshot.
      * @param table The table which the order is attached to.
      * @throws Exception Errors that occurred while adding items into the order.
      */
     private void addItemToOrder(Table table) throws Exception {
-        final List<AlaCarteItem> alaCarteItemList = getRestaurant().getDataList(DataType.ALA_CARTE_ITEM);
-        final Set<String> categoryList = alaCarteItemList.stream().map(AlaCarteItem::getCategory).collect(Collectors.toSet());
+        final MenuCatalog catalog = MenuCatalog.getInstance(getRestaurant());
+        final MenuSnapshot snapshot = catalog.getSnapshot();
+        final List<MenuItem> selectionList = snapshot.getSelectionList();
         final List<String> displayList = new ArrayList<>();
-        final List<AlaCarteItem> referenceList = new ArrayList<>();
-        int trashCount = 0;
 
-        for (String category : categoryList) {
-            displayList.add("\\SUB" + category);
-            final List<AlaCarteItem> tempList = alaCarteItemList.stream().filter(item -> item.matchCategory(category)).collect(Collectors.toList());
-            displayList.addAll(tempList.stream().map(AlaCarteItem::getName).collect(Collectors.toList()));
-            referenceList.addAll(tempList);
-            trashCount++;
+        for (Map.Entry<String, List<AlaCarteItem>> entry : snapshot.getCategoryMap().entrySet()) {
+            displayList.add("\\SUB" + entry.getKey());
+            entry.getValue().forEach(item -> displayList.add(item.getName()));
         }
 
         displayList.add("\\SUB" + "Promotion Packages");
-        final List<PromotionPackage> promoPackageList = getRestaurant().getDataList(DataType.PROMO_PACKAGE);
-        displayList.addAll(promoPackageList.stream().map(MenuItem::getName).collect(Collectors.toList()));
-        trashCount++;
+        selectionList.stream().filter(item -> item instanceof PromotionPackage).forEach(item -> displayList.add(item.getName()));
 
-        List<String> choiceList = ConsolePrinter.formatChoiceList(displayList, null);
+        List<String> choiceList = ConsolePrinter.formatChoiceList(displayList, Arrays.asList("Go back", "Search menu by name"));
         ConsolePrinter.printTable("Command // Menu Item", choiceList, true);
-        int itemIndex = getInputHelper().getInt("Select an item to add to order", 0, displayList.size() - trashCount) - 1;
+        int itemIndex = getInputHelper().getInt("Select an item to add to order", -1, selectionList.size()) - 1;
         if (itemIndex == -1) {
             ConsolePrinter.clearCmd();
             return;
         }
 
-        int count = getInputHelper().getInt("Enter the amount to add", 0, 100);
-        if (count == 0) {
+        final MenuItem item = (itemIndex == -2) ? searchMenuItem(catalog) : selectionList.get(itemIndex);
+        if (item == null) {
             ConsolePrinter.clearCmd();
             return;
         }
 
-        int itemCount = referenceList.size();
-        DataType dataType = (itemIndex < itemCount)? DataType.ALA_CARTE_ITEM : DataType.PROMO_PACKAGE;
-        MenuItem item;
-
-        if (dataType.equals(DataType.ALA_CARTE_ITEM)) {
-            item = referenceList.get(itemIndex);
-        } else {
-            itemIndex -= itemCount;
-            item = getRestaurant().getDataFromIndex(dataType, itemIndex);
+        int count = getInputHelper().getInt("Enter the amount to add", 0, 100);
+        if (count == 0) {
+            ConsolePrinter.clearCmd();
+            return;
         }
 
-        table.getOrder().addItem(item, count);
+        table.getOrder().addItem(item, count, snapshot.getEffectivePrice(item, LocalTime.now()));
         getRestaurant().save(table.getOrder());
         getRestaurant().save(table);
         ConsolePrinter.printMessage(ConsolePrinter.MessageType.SUCCESS, "Item has been added to order successfully.");
+        printSuggestions(catalog, item, table.getOrder());
+    }
+
+    /**
+     * Called by addItemToOrder to suggest items frequently ordered together with the item just added, leaving out items already in the order or no longer on the menu.
+     * @param catalog Menu catalog of the restaurant.
+     * @param item Item just added to the order.
+     * @param order Order the item was added to.
+     * @throws Exception Errors that occurred while reading the item pairs.
+     */
+    private void printSuggestions(MenuCatalog catalog, MenuItem item, Order order) throws Exception {
+        final Set<Long> orderedIdSet = order.getOrderItemList().stream().map(order::getItemMenuId).collect(Collectors.toSet());
+        final List<String> nameList = new ArrayList<>();
+
+        for (long menuId : CoOccurrenceMatrix.getInstance().getNeighbours(item.getMenuId())) {
+            if (nameList.size() == SUGGESTION_LIMIT || orderedIdSet.contains(menuId)) {
+                continue;
+            }
+
+            try {
+                nameList.add(catalog.resolve(menuId).getName());
+            } catch (Exception e) {
+                // Item has been removed from the menu since it was last ordered.
+            }
+        }
+
+        if (!nameList.isEmpty()) {
+            ConsolePrinter.printInstructions(Collections.singletonList("Frequently ordered with " + item.getName() + ": " + String.join(", ", nameList)));
+        }
+    }
+
+    /**
+     * Called by addItemToOrder as an extension for finding an item by name. Lists the items with names starting with, or similar to, the search query for the user to select.
+     * @param catalog Menu catalog of the restaurant.
+     * @return The selected menu item, or null if the user chose to go back or nothing was found.
+     * @throws Exception Errors that occurred while searching the menu.
+     */
+    private MenuItem searchMenuItem(MenuCatalog catalog) throws Exception {
+        final String query = getInputHelper().getString("Enter item name to search");
+        final List<MenuItem> resultList = new ArrayList<>();
+
+        for (long menuId : catalog.getSearchIndex().search(query, SEARCH_RESULT_LIMIT)) {
+            resultList.add(catalog.resolve(menuId));
+        }
+
+        if (resultList.isEmpty()) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No menu items found for '" + query + "'.");
+            return null;
+        }
+
+        final List<String> choiceList = ConsolePrinter.formatChoiceList(resultList.stream().map(MenuItem::toDisplayString).collect(Collectors.toList()), null);
+        ConsolePrinter.printTable("Command // Search Results // Price", choiceList, true);
+        final int itemIndex = getInputHelper().getInt("Select an item to add to order", 0, resultList.size()) - 1;
+        return (itemIndex == -1) ? null : resultList.get(itemIndex);
     }
 
     /**
@@ -584,7 +666,7 @@ public class TableManager extends RestaurantManager {
             return;
         }
 
-        Order order = table.attachOrder(getRestaurant().getSessionStaffId());
+        Order order = table.attachOrder(getRestaurant().generateOrderId(), getRestaurant().getSessionStaffId(), reservation.getPax());
         table.deleteReservation(reservation);
         getRestaurant().save(order);
         getRestaurant().save(table);
@@ -607,6 +689,7 @@ public class TableManager extends RestaurantManager {
      * Checks existing reservations.
      * Expired reservations (over 30 minutes) are removed for their respective tables.
      * Sets tables with reservations in the current session to reserved status.
+     * All tables are written to file in a single bulk save.
      * @throws Exception Errors that occurred while checking the reservations.
      */
     private void checkReservations() throws Exception {
@@ -622,13 +705,15 @@ public class TableManager extends RestaurantManager {
                     break;
                 }
             }
-
-            getRestaurant().save(table);
         }
+
+        getRestaurant().bulkSave(DataType.TABLE);
     }
 
     /**
      * Prints the bill invoice for a specified table.
+     * Once payment is processed, the order is moved into the order archive, the staff rollup and item pairs are updated, the revenue is recorded against the server and table of the order, and the sales analytics and demand forecast are updated.
+     * Every step is skipped for a bill it already holds, by order ID, so a payment retried after the application stopped part way through it completes the steps left undone without repeating the others.
      * @param table Table to print invoice for.
      * @throws Exception Errors that occurred while printing the bill invoice.
      */
@@ -643,48 +728,141 @@ public class TableManager extends RestaurantManager {
             return;
         }
 
-        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
-        DateTimeFormatter format2 = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        DateTimeFormatter format3 = DateTimeFormatter.ofPattern("yyyyMMdd HHmmss");
-        String receiptId = order.getOrderId();
-        LocalDateTime dateTime = LocalDateTime.parse(receiptId, format);
-        int tableNo= table.getId();
-        int staffId = getRestaurant().getSessionStaffId();
-        final Staff staff = getRestaurant().getDataFromId(DataType.STAFF, staffId);
+        final ClosedOrder closedOrder = ClosedOrder.fromOrder(order, getRestaurant().getSessionStaffId(), LocalDateTime.now());
+        final List<ClosedOrder.Line> lineList = closedOrder.getLineList();
+        final long[] menuIds = new long[lineList.size()];
+        final int[] counts = new int[lineList.size()];
+        final long[] cents = new long[lineList.size()];
+
+        for (int index = 0; index < lineList.size(); index++) {
+            final ClosedOrder.Line line = lineList.get(index);
+            RevenueDictionary.getInstance().register(line.getMenuId(), line.getName());
+            menuIds[index] = line.getMenuId();
+            counts[index] = line.getCount();
+            cents[index] = line.getPrice().setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact();
+        }
+
+        final RevenueRecord record = new RevenueRecord(closedOrder.getOrderDateTime(), menuIds, counts, cents, order.getStaffId(), order.getId(), order.getPax(), order.getOrderId());
+        ConsolePrinter.clearCmd();
+        printReceipt(closedOrder);
+        getInputHelper().getInt("Enter 0 to process payment", 0, 0);
+        final StaffRollup staffRollup = StaffRollup.getInstance();
+        final CoOccurrenceMatrix coOccurrenceMatrix = CoOccurrenceMatrix.getInstance();
+        final RevenueRecorder revenueRecorder = RevenueRecorder.getInstance();
+        OrderArchive.getInstance().archive(closedOrder);
+
+        if (!revenueRecorder.isRecorded(record)) {
+            staffRollup.record(closedOrder.getOrderDateTime().toLocalDate(), order.getStaffId(), order.getPax(), closedOrder.getTotal(), order.getOrderId());
+            coOccurrenceMatrix.record(menuIds, closedOrder.getOrderDateTime().toLocalDate(), order.getOrderId());
+        }
+
+        if (revenueRecorder.record(record)) {
+            for (ClosedOrder.Line line : closedOrder.getLineList()) {
+                SalesAnalytics.getInstance().record(closedOrder.getPaidDateTime(), line.getMenuId(), line.getCount(), line.getPrice());
+                DemandForecast.getInstance().record(closedOrder.getOrderDateTime(), line.getMenuId(), line.getCount());
+            }
+        } else {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.WARNING, "Order " + order.getOrderId() + " has already been paid and was not recorded again.");
+        }
+
+        table.clear();
+        getRestaurant().remove(order);
+        getRestaurant().save(table);
+    }
+
+    /**
+     * Prints the bill invoice of a closed order.
+     * @param order Closed order to print the invoice of.
+     */
+    private void printReceipt(ClosedOrder order) {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
         final String title = "Scam Money Restaurant";
         List<String> printList = new ArrayList<>();
+        printList.add("Server: " + getStaffName(order.getStaffId()) + " // " + order.getOrderDateTime().format(format));
 
-        ConsolePrinter.clearCmd();
-        printList.add("Server: " + staff.getName() + " // " + dateTime.format(format2));
-        printList.add("Table " + tableNo);
-        printList.add(" ");
+        if (order.getCashierStaffId() != order.getStaffId()) {
+            printList.add("Cashier: " + getStaffName(order.getCashierStaffId()));
+        }
 
-        BigDecimal total = new BigDecimal(0).setScale(2, RoundingMode.FLOOR);
-        StringBuilder sb = new StringBuilder(dateTime.format(format3) + " // ");
+        printList.add("Table " + order.getTableId());
+        printList.add(" ");
 
-        for (Order.OrderItem o : order.getOrderItemList()) {
-            final String name = order.getItemName(o);
-            final int count = order.getItemCount(o);
-            final BigDecimal price = order.getItemPrice(o);
-            printList.add(name + " x " + count + " // " + price);
-            total = total.add(price);
-            sb.append(name).append(" - ").append(count).append(" - ").append(price);
-            sb.append("--");
+        for (ClosedOrder.Line line : order.getLineList()) {
+            printList.add(line.getName() + " x " + line.getCount() + " // " + line.getPrice());
         }
 
         printList.add(" ");
 
+        BigDecimal total = order.getTotal();
         BigDecimal sc = total.multiply(new BigDecimal(0.5)).setScale(2, RoundingMode.FLOOR);
         BigDecimal gst = total.multiply(new BigDecimal(0.07)).setScale(2, RoundingMode.FLOOR);
         printList.add("Service charge (50%): // " + sc);
         printList.add("GST (7%): // " + gst);
         printList.add("Total (incl. GST and service charge): // " + total.add(sc).add(gst));
         ConsolePrinter.printTable(title, "", printList, false);
-        getInputHelper().getInt("Enter 0 to process payment", 0, 0);
-        (new FileIO()).writeLine("revenue", sb.toString());
-        table.clear();
-        getRestaurant().remove(order);
-        getRestaurant().save(table);
+    }
+
+    /**
+     * Retrieves the name of a staff for printing on a bill invoice.
+     * @param staffId ID of the staff.
+     * @return Name of the staff, or a placeholder with the staff ID if the staff has since been removed.
+     */
+    private String getStaffName(int staffId) {
+        try {
+            final Staff staff = getRestaurant().getDataFromId(DataType.STAFF, staffId);
+            return staff.getName();
+        } catch (Exception e) {
+            return "Staff " + staffId;
+        }
+    }
+
+    /**
+     * Displays paid orders from the order archive within a date range, and reprints the bill invoice of a selected order.
+     * @throws Exception Errors that occurred while reading the order archive.
+     */
+    private void viewOrderHistory() throws Exception {
+        final LocalDate from = getDate("Enter start date");
+        final LocalDate to = getDate("Enter end date");
+        final List<ClosedOrder> orderList = OrderArchive.getInstance().findByDateRange(from, to);
+
+        if (orderList.size() == 0) {
+            ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "No paid orders found for this period.");
+            return;
+        }
+
+        final List<String> displayList = orderList.stream().map(order -> order.getOrderId() + " // " + order.getTableId() + " // " + order.getTotal()).collect(Collectors.toList());
+        ConsolePrinter.clearCmd();
+        ConsolePrinter.printTable("Order History", "Command // Order ID // Table // Total", ConsolePrinter.formatChoiceList(displayList, null), true);
+        final int choice = getInputHelper().getInt("Select an order to reprint its receipt", 0, orderList.size());
+
+        if (choice == 0) {
+            ConsolePrinter.clearCmd();
+            return;
+        }
+
+        final ClosedOrder order = OrderArchive.getInstance().findByOrderId(orderList.get(choice - 1).getOrderId());
+        ConsolePrinter.clearCmd();
+        printReceipt((order != null) ? order : orderList.get(choice - 1));
+        getInputHelper().getInt("Enter 0 to go back", 0, 0);
+        ConsolePrinter.clearCmd();
+    }
+
+    /**
+     * Obtains a date input in the format ddMMyyyy from the CLI, prompting again until a valid date is entered.
+     * @param message Message prompt to be printed in the CLI.
+     * @return Date entered.
+     */
+    private LocalDate getDate(String message) {
+        DateTimeFormatter formatter = new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("ddMMyyyy").toFormatter(Locale.ENGLISH);
+
+        while (true) {
+            try {
+                ConsolePrinter.printInstructions(Collections.singletonList("Date format: ddMMyyyy"));
+                return LocalDate.parse(getInputHelper().getString(message), formatter);
+            } catch (DateTimeParseException e) {
+                ConsolePrinter.printMessage(ConsolePrinter.MessageType.FAILED, "Invalid date format.");
+            }
+        }
     }
 
     /**
@@ -0,0 +1,381 @@
+package tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends lines to a text file, or blocks of bytes to a binary file, on a background thread.
+ * Lines or blocks are queued in a bounded queue, written in batches and forced onto the storage device once per sync interval.
+ * Callers are only blocked when the queue is full.
+ * A shutdown hook drains the queue so that queued lines are not lost when the application exits.
+ * Lines or blocks that still cannot be written when the application exits are saved to a separate file, named after the file with '_unwritten' appended, and appended to the file when a writer for it is next created.
+ */
+public class AsyncFileWriter {
+    /**
+     * Maximum number of lines written in a single batch.
+     */
+    private final int MAX_BATCH_SIZE = 512;
+
+    /**
+     * Number of attempts made to write the last batch when the writer is closed, before it is saved to the unwritten file instead.
+     */
+    private final int CLOSE_ATTEMPTS = 3;
+
+    /**
+     * Suffix of the file holding lines or blocks that could not be written before the application exited.
+     */
+    private static final String UNWRITTEN_SUFFIX = "_unwritten";
+
+    /**
+     * Text or binary file to append to.
+     */
+    private final String fileName;
+
+    /**
+     * Whether the file is a binary file appended to in blocks of bytes, rather than a text file appended to in lines.
+     */
+    private final boolean binary;
+
+    /**
+     * Bounded queue of lines, encoded in the platform charset, or blocks waiting to be written.
+     */
+    private final BlockingQueue<byte[]> queue;
+
+    /**
+     * Interval in milliseconds between each batch write and sync.
+     */
+    private final long syncInterval;
+
+    /**
+     * Background thread that writes queued lines to the file.
+     */
+    private final Thread worker;
+
+    /**
+     * Set to false once the writer has been closed.
+     */
+    private volatile boolean running;
+
+    /**
+     * Number of lines accepted into the queue.
+     */
+    private long queuedCount;
+
+    /**
+     * Number of lines written and synced to the file. Guarded by this writer's monitor.
+     */
+    private long writtenCount;
+
+    /**
+     * Error of the last failed batch, or null if the last batch was written. Guarded by this writer's monitor.
+     */
+    private IOException failure;
+
+    /**
+     * Size to truncate the file back to before the next append, left by a failed batch whose roll back also failed, or -1 if there is none.
+     * Only accessed by the background thread.
+     */
+    private long rollBackSize = -1;
+
+    /**
+     * Creates a new writer for the specified text file and starts its background thread.
+     * @param fileName Text file to append to.
+     * @param capacity Maximum number of lines that may be queued before callers are blocked.
+     * @param syncInterval Interval in milliseconds between each batch write and sync.
+     */
+    public AsyncFileWriter(String fileName, int capacity, long syncInterval) {
+        this(fileName, false, capacity, syncInterval);
+    }
+
+    /**
+     * Creates a new writer for the specified text or binary file and starts its background thread.
+     * @param fileName Text or binary file to append to.
+     * @param binary Appends blocks of bytes to a binary file through writeBytes if set to true, or lines to a text file through writeLine otherwise.
+     * @param capacity Maximum number of lines or blocks that may be queued before callers are blocked.
+     * @param syncInterval Interval in milliseconds between each batch write and sync.
+     */
+    public AsyncFileWriter(String fileName, boolean binary, int capacity, long syncInterval) {
+        this.fileName = fileName;
+        this.binary = binary;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.syncInterval = Math.max(syncInterval, 1);
+        this.running = true;
+        recoverUnwritten();
+        this.worker = new Thread(this::run, "AsyncFileWriter-" + fileName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "AsyncFileWriter-" + fileName + "-drain"));
+    }
+
+    /**
+     * Queues a line to be appended to the text file. Blocks if the queue is full.
+     * @param line Line of text to append.
+     * @throws IOException Thrown if the writer is not for a text file, if the writer has been closed or if the calling thread is interrupted while waiting.
+     */
+    public void writeLine(String line) throws IOException {
+        if (binary) {
+            throw (new IOException("Writer for '" + fileName + "' appends bytes, not lines."));
+        }
+
+        write(line.getBytes());
+    }
+
+    /**
+     * Queues a block of bytes to be appended to the binary file. Blocks if the queue is full.
+     * @param data Bytes to append.
+     * @throws IOException Thrown if the writer is not for a binary file, if the writer has been closed or if the calling thread is interrupted while waiting.
+     */
+    public void writeBytes(byte[] data) throws IOException {
+        if (!binary) {
+            throw (new IOException("Writer for '" + fileName + "' appends lines, not bytes."));
+        }
+
+        write(data);
+    }
+
+    /**
+     * Queues an encoded line or block to be appended to the file. Blocks if the queue is full.
+     * @param data Encoded line or block to append.
+     * @throws IOException Thrown if the writer has been closed or if the calling thread is interrupted while waiting.
+     */
+    private void write(byte[] data) throws IOException {
+        if (!running) {
+            throw (new IOException("Writer for '" + fileName + "' has been closed."));
+        }
+
+        try {
+            queue.put(data);
+
+            synchronized (this) {
+                queuedCount++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IOException("Interrupted while queueing line for '" + fileName + "'."));
+        }
+    }
+
+    /**
+     * Blocks until every line queued before this call has been written and synced.
+     * Failed batches are retried once per sync interval, so a batch that still fails after one interval is reported rather than waited on.
+     * @throws IOException Thrown if the lines could not be written, or if the calling thread is interrupted while waiting.
+     */
+    public synchronized void flush() throws IOException {
+        final long target = queuedCount;
+
+        try {
+            while (writtenCount < target && worker.isAlive()) {
+                wait(syncInterval);
+
+                if (writtenCount < target && failure != null) {
+                    throw (new IOException("Failed to write queued data to '" + fileName + "': " + failure.getMessage()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (new IOException("Interrupted while flushing '" + fileName + "'."));
+        }
+    }
+
+    /**
+     * Stops accepting new lines, then waits for every queued line to be written and synced.
+     * The worker is not interrupted as an interrupt would close the file channel mid-write; it notices the closed state within one sync interval.
+     */
+    public void close() {
+        running = false;
+
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Background loop that collects queued lines into batches and writes them once per sync interval.
+     * A full batch is written straight away, unless the last batch failed, in which case it is only retried once per sync interval.
+     * Remaining lines are written before the loop exits, and saved to the unwritten file if they still cannot be written.
+     */
+    private void run() {
+        final List<byte[]> batch = new ArrayList<>();
+        long nextSync = System.currentTimeMillis() + syncInterval;
+
+        while (running || !queue.isEmpty()) {
+            try {
+                final byte[] data = queue.poll(Math.max(nextSync - System.currentTimeMillis(), 1), TimeUnit.MILLISECONDS);
+
+                if (data != null) {
+                    batch.add(data);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+                }
+            } catch (InterruptedException ignored) {}
+
+            if (!batch.isEmpty() && (!running || (batch.size() >= MAX_BATCH_SIZE && !isFailing()) || System.currentTimeMillis() >= nextSync)) {
+                flush(batch);
+            }
+
+            if (System.currentTimeMillis() >= nextSync) {
+                nextSync = System.currentTimeMillis() + syncInterval;
+            }
+        }
+
+        for (int attempt = 1; !flush(batch) && attempt < CLOSE_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(syncInterval);
+            } catch (InterruptedException ignored) {}
+        }
+
+        if (!batch.isEmpty()) {
+            saveUnwritten(batch);
+        }
+    }
+
+    /**
+     * Checks if the last batch failed to be written.
+     * @return True / False
+     */
+    private synchronized boolean isFailing() {
+        return failure != null;
+    }
+
+    /**
+     * Writes and syncs a batch of lines or blocks in a single append, then clears the batch.
+     * Failed batches are logged and kept for the next attempt. The file is first truncated back to its size before the failed append, so a batch written in part is not written twice, nor left with a torn line or block at its end.
+     * If the truncation fails too, it is retried before every later attempt, and nothing is appended until it succeeds.
+     * @param batch Encoded lines or blocks to write.
+     * @return True if the batch was written or was empty, false if it was kept for the next attempt.
+     */
+    private boolean flush(List<byte[]> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        if (rollBackSize != -1 && !rollBack(rollBackSize)) {
+            return false;
+        }
+
+        long size = -1;
+
+        try {
+            final FileIO f = new FileIO();
+            size = binary ? f.getBinaryFileSize(fileName) : f.getFileSize(fileName);
+
+            if (binary) {
+                f.appendBytes(fileName, concat(batch), true);
+            } else {
+                f.writeLines(fileName, batch.stream().map(String::new).collect(Collectors.toList()), true);
+            }
+
+            synchronized (this) {
+                writtenCount += batch.size();
+                failure = null;
+                notifyAll();
+            }
+
+            batch.clear();
+            return true;
+        } catch (IOException e) {
+            FileIO.logToFile("Failed to write batch to '" + fileName + "': " + e.getMessage(), e);
+            rollBack(size);
+
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Saves a batch that could not be written before the writer closed to the unwritten file, so it is appended to the file when a writer for it is next created.
+     * @param batch Encoded lines or blocks that could not be written.
+     */
+    private void saveUnwritten(List<byte[]> batch) {
+        try {
+            final FileIO f = new FileIO();
+
+            if (binary) {
+                f.appendBytes(fileName + UNWRITTEN_SUFFIX, concat(batch), true);
+            } else {
+                f.writeLines(fileName + UNWRITTEN_SUFFIX, batch.stream().map(String::new).collect(Collectors.toList()), true);
+            }
+        } catch (IOException e) {
+            FileIO.logToFile(batch.size() + " queued line(s) or block(s) for '" + fileName + "' could not be written or saved and have been lost: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends the lines or blocks saved to the unwritten file by an earlier writer to the file, then empties the unwritten file.
+     * Called before the background thread starts, so they are written ahead of anything queued by this writer. If they still cannot be written, they are left for the next writer.
+     */
+    private void recoverUnwritten() {
+        final String unwrittenFileName = fileName + UNWRITTEN_SUFFIX;
+
+        try {
+            final FileIO f = new FileIO();
+
+            if (binary) {
+                if (f.getBinaryFileSize(unwrittenFileName) > 0) {
+                    f.appendBytes(fileName, f.readBytes(unwrittenFileName), true);
+                    f.truncateBinaryFile(unwrittenFileName, 0);
+                }
+            } else if (f.getFileSize(unwrittenFileName) > 0) {
+                f.writeLines(fileName, f.read(unwrittenFileName), true);
+                f.clearFile(unwrittenFileName);
+            }
+        } catch (IOException e) {
+            FileIO.logToFile("Failed to recover unwritten data of '" + fileName + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Joins encoded blocks into a single block.
+     * @param batch Encoded blocks to join.
+     * @return Bytes of every block, in order.
+     */
+    private static byte[] concat(List<byte[]> batch) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (byte[] data : batch) {
+            out.write(data, 0, data.length);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Truncates the file back to its size before a failed append, dropping whatever part of the batch was written.
+     * The truncation fails on some platforms while the file is mapped by a reader, in which case it is left pending for the next attempt.
+     * @param size Size of the file before the append, or -1 if it was not read.
+     * @return True if the file was truncated or there was nothing to truncate, false if the truncation is still pending.
+     */
+    private boolean rollBack(long size) {
+        if (size == -1) {
+            return true;
+        }
+
+        try {
+            final FileIO f = new FileIO();
+
+            if (binary) {
+                f.truncateBinaryFile(fileName, size);
+            } else {
+                f.truncateFile(fileName, size);
+            }
+
+            rollBackSize = -1;
+            return true;
+        } catch (IOException e) {
+            FileIO.logToFile("Failed to roll back batch written to '" + fileName + "': " + e.getMessage(), e);
+            rollBackSize = size;
+            return false;
+        }
+    }
+}
@@ -10,6 +10,16 @@ import java.util.stream.Collectors;
  * Handles printing of text in the CLI.
  */
 public class ConsolePrinter {
+    /**
+     * Line separator appended to every row of a rendered table, matching the one used by System.out.println.
+     */
+    private static final String NEWLINE = System.lineSeparator();
+
+    /**
+     * Maps screen keys to the last rendered text of each screen.
+     */
+    private static final Map<String, RenderedScreen> renderCache = new HashMap<>();
+
     /**
      * Message types for printed messages.
      */
@@ -101,6 +111,57 @@ public class ConsolePrinter {
             return;
         }
 
+        System.out.print(renderTable(title, columnHeaders, stringList, verticalDivider));
+        System.out.flush();
+    }
+
+    /**
+     * Prints a table of a screen through the render cache.
+     * The screen is rendered once and kept in the cache along with the data version it was rendered from. Redraws of the same screen and version print the cached text in a single write, without building the rows or laying out the table again.
+     * @param screen Unique key of the screen, including any option that changes its contents such as the sort order.
+     * @param version Version of the data the screen is built from. The screen is rendered again whenever the version differs from the cached one.
+     * @param title Title of the table.
+     * @param columnHeaders The first row, 'header row', for the table.
+     * @param stringListSupplier Builds the list of strings to be printed. Only called when the screen has to be rendered again.
+     * @param verticalDivider Specifies if column dividers are to be printed in the table.
+     * @throws Exception Errors that occurred while building the list of strings.
+     */
+    public static void printCachedTable(String screen, long version, String title, String columnHeaders, ScreenSupplier stringListSupplier, boolean verticalDivider) throws Exception {
+        RenderedScreen rendered;
+
+        synchronized (renderCache) {
+            rendered = renderCache.get(screen);
+        }
+
+        if (rendered == null || rendered.version != version) {
+            final List<String> stringList = stringListSupplier.get();
+
+            if (stringList == null || stringList.size() == 0) {
+                return;
+            }
+
+            rendered = new RenderedScreen(version, renderTable(title, columnHeaders, stringList, verticalDivider));
+
+            synchronized (renderCache) {
+                renderCache.put(screen, rendered);
+            }
+        }
+
+        System.out.print(rendered.text);
+        System.out.flush();
+    }
+
+    /**
+     * Lays out a table into a single string, ready to be printed in one write.
+     * @param title Title of the table. No title row is printed if empty.
+     * @param columnHeaders The first row, 'header row', for the table. No header row is printed if empty.
+     * @param stringList List of strings to be printed, post-formatted with column division symbols. See print formatting documentation for more details.
+     * @param verticalDivider Specifies if column dividers are to be printed in the table.
+     * @return Text of the table, including line separators.
+     */
+    private static String renderTable(String title, String columnHeaders, List<String> stringList, boolean verticalDivider) {
+        final StringBuilder sb = new StringBuilder();
+
         List<String> stringListCopy = new ArrayList<>(stringList);
 
         if (columnHeaders.length() > 0) {
@@ -112,10 +173,10 @@ public class ConsolePrinter {
         final int totalLength = cellLengths.stream().mapToInt(Integer::intValue).sum() + (5 * (cellLengths.size() - 1));
 
         if (title.length() > 0) {
-            printTitle(title, totalLength);
+            appendTitle(sb, title, totalLength);
         } else {
-            System.out.println();
-            printDivider('=', totalLength);
+            sb.append(NEWLINE);
+            appendDivider(sb, '=', totalLength);
         }
 
         boolean horizontalDivider = false;
@@ -132,7 +193,7 @@ public class ConsolePrinter {
 
             for (int cellRow = 0; cellRow < maxRowCount; cellRow++) {
                 if (rowStringList.size() == 1 && rowStringList.get(0).size() == 1 && rowStringList.get(0).get(0).equals("---")) {
-                    printDivider('-', cellLengths, verticalDivider);
+                    appendDivider(sb, '-', cellLengths, verticalDivider);
                     break;
                 }
 
@@ -143,15 +204,15 @@ public class ConsolePrinter {
                     final String stringPadding = " ".repeat(totalLength - s.length());
 
                     if (((row > 0 && columnHeaders.length() == 0) || (row > 1)) && !horizontalDivider) {
-                        printDivider('-', cellLengths, verticalDivider);
+                        appendDivider(sb, '-', cellLengths, verticalDivider);
                     }
 
-                    System.out.println("|  " + s + stringPadding + "  |");
-                    printDivider('-', cellLengths, verticalDivider);
+                    sb.append("|  " + s + stringPadding + "  |").append(NEWLINE);
+                    appendDivider(sb, '-', cellLengths, verticalDivider);
                     break;
                 }
 
-                System.out.print("|  ");
+                sb.append("|  ");
 
                 for (int cell = 0; cell < cellLengths.size(); cell++) {
                     String cellRowString = rowStringList.get(cell).get(cellRow);
@@ -171,26 +232,26 @@ public class ConsolePrinter {
 
                     if (row == 0 && columnHeaders.length() > 0) {
                         final int pad = Math.max(cellLength - stringLength, 0);
-                        System.out.print(" ".repeat(pad / 2) + cellRowString.toUpperCase() + " ".repeat(pad - (pad / 2)));
+                        sb.append(" ".repeat(pad / 2) + cellRowString.toUpperCase() + " ".repeat(pad - (pad / 2)));
                     } else {
                         if (cellRowString.matches("^(-?\\d+|-?\\d+\\.\\d+)$")) {
                             final int pad = Math.max(cellLength - stringLength, 0);
-                            System.out.print(" ".repeat(pad - (pad / 2)) + cellRowString + " ".repeat(pad / 2));
+                            sb.append(" ".repeat(pad - (pad / 2)) + cellRowString + " ".repeat(pad / 2));
                         } else {
-                            System.out.print(cellRowString + stringPadding);
+                            sb.append(cellRowString + stringPadding);
                         }
                     }
 
                     if (cell != cellLengths.size() - 1) {
                         if (verticalDivider) {
-                            System.out.print("  |  ");
+                            sb.append("  |  ");
                         } else {
-                            System.out.print(" ".repeat(5));
+                            sb.append(" ".repeat(5));
                         }
                     }
                 }
 
-                System.out.println("  |");
+                sb.append("  |").append(NEWLINE);
             }
 
             if (maxRowCount > 1) {
@@ -198,11 +259,12 @@ public class ConsolePrinter {
             }
 
             if ((columnHeaders.length() > 0 && row == 0) || ((horizontalDivider || header) && row != stringListProcessed.size() - 1)) {
-                printDivider('-', cellLengths, verticalDivider);
+                appendDivider(sb, '-', cellLengths, verticalDivider);
             }
         }
 
-        printDivider('=', totalLength);
+        appendDivider(sb, '=', totalLength);
+        return sb.toString();
     }
 
     /**
@@ -379,49 +441,52 @@ public class ConsolePrinter {
     }
 
     /**
-     * Prints the title row of a table.
+     * Appends the title row of a table.
      * Text in title rows are automatically centered.
+     * @param sb String builder holding the table being laid out.
      * @param title Title string to print
      * @param length Total column lengths not including table online characters like '|'.
      */
-    private static void printTitle(String title, int length) {
+    private static void appendTitle(StringBuilder sb, String title, int length) {
         final int pad = Math.max(length - title.length(), 0);
-        System.out.println();
-        printDivider('=', length);
-        System.out.println("|  " + " ".repeat(pad / 2) + title.toUpperCase() + " ".repeat(pad - (pad / 2)) + "  |");
-        printDivider('=', length);
+        sb.append(NEWLINE);
+        appendDivider(sb, '=', length);
+        sb.append("|  " + " ".repeat(pad / 2) + title.toUpperCase() + " ".repeat(pad - (pad / 2)) + "  |").append(NEWLINE);
+        appendDivider(sb, '=', length);
     }
 
     /**
-     * Prints a table divider with no column dividers up to the supplied length.
+     * Appends a table divider with no column dividers up to the supplied length.
      * The length should be the overall column lengths not including the table outline characters '|'.
+     * @param sb String builder holding the table being laid out.
      * @param c Character to repeat as divider.
      * @param length Length to repeat characters up to.
      */
-    private static void printDivider(char c, int length) {
-        System.out.println("|" + (c + "").repeat(length + 4) + "|");
+    private static void appendDivider(StringBuilder sb, char c, int length) {
+        sb.append("|" + (c + "").repeat(length + 4) + "|").append(NEWLINE);
     }
 
     /**
-     * Prints a table divider by repeating the supplied character up to the total length of the supplied cellLengths.
+     * Appends a table divider by repeating the supplied character up to the total length of the supplied cellLengths.
      * The length should be the overall column lengths not including the table outline characters '|'.
+     * @param sb String builder holding the table being laid out.
      * @param c Character to be repeated.
      * @param cellLengths List of calculated lengths for each column.
      * @param verticalDivider The table divider conforms to the table column dividers if set to true.
      */
-    private static void printDivider(char c, List<Integer> cellLengths, boolean verticalDivider) {
-        System.out.print("|");
+    private static void appendDivider(StringBuilder sb, char c, List<Integer> cellLengths, boolean verticalDivider) {
+        sb.append("|");
 
         for (int column = 0; column < cellLengths.size(); column++) {
             int length = cellLengths.get(column);
-            System.out.print((c + "").repeat(length + 4));
+            sb.append((c + "").repeat(length + 4));
 
             if (column != (cellLengths.size() - 1)) {
-                System.out.print(verticalDivider? "|" : c);
+                sb.append(verticalDivider? "|" : c);
             }
         }
 
-        System.out.println("|");
+        sb.append("|").append(NEWLINE);
     }
 
     /**
@@ -459,4 +524,42 @@ public class ConsolePrinter {
     }
 
 
+
+    /**
+     * Builds the list of strings of a cached screen. Unlike a plain supplier, it may throw the exceptions of the data retrieval it performs.
+     */
+    @FunctionalInterface
+    public interface ScreenSupplier {
+        /**
+         * Builds the list of strings to be printed for a screen.
+         * @return List of strings to be printed, post-formatted with column division symbols.
+         * @throws Exception Errors that occurred while retrieving the data of the screen.
+         */
+        List<String> get() throws Exception;
+    }
+
+    /**
+     * Rendered text of a screen, along with the data version it was rendered from.
+     */
+    private static class RenderedScreen {
+        /**
+         * Data version the screen was rendered from.
+         */
+        private final long version;
+
+        /**
+         * Rendered text of the screen.
+         */
+        private final String text;
+
+        /**
+         * Creates a rendered screen with the specified parameters.
+         * @param version Data version the screen was rendered from.
+         * @param text Rendered text of the screen.
+         */
+        private RenderedScreen(long version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+    }
 }
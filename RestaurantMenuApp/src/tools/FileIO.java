@@ -2,20 +2,30 @@ package tools;
 
 import enums.DataType;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Handles input / output for text files in plain text format.
  * Each data type defined in the enumerator will have a text files dedicated to it.
  * File names could also be specified to allow IO to other text files.
+ * Binary files, used for compact or compressed storage, are handled by the byte-based functions and use the '.bin' extension instead.
+ * File names may contain sub-directories, which are created when the file is first written to.
  * Files are stored in the source directory under the folder DataStorage.
  * External files will need to be stored in this directory as well.
  */
@@ -65,6 +75,93 @@ public class FileIO {
         }
     }
 
+    /**
+     * Opens a user-specified text file for reading line by line, so large files can be processed without holding every line in memory.
+     * The caller is responsible for closing the returned reader.
+     * @param fileName Text file to read from.
+     * @return Buffered reader over the text file.
+     * @throws IOException Thrown if the file does not exist or cannot be opened.
+     */
+    public BufferedReader openReader(String fileName) throws IOException {
+        try {
+            return Files.newBufferedReader(getPath(fileName));
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to open file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Memory-maps the current contents of a user-specified text file for reading, so the file can be scanned without copying it onto the heap.
+     * Data appended to the file after it is mapped is not visible through the returned buffer.
+     * @param fileName Text file to map.
+     * @return Read-only buffer over the contents of the file at the time of mapping.
+     * @throws IOException Thrown if the file does not exist, is too large to map in one buffer, or cannot be mapped.
+     */
+    public MappedByteBuffer mapFile(String fileName) throws IOException {
+        return map(getPath(fileName), fileName);
+    }
+
+    /**
+     * Memory-maps the current contents of the specified binary file for reading, so the file can be scanned without copying it onto the heap.
+     * Data appended to the file after it is mapped is not visible through the returned buffer.
+     * @param fileName Binary file to map.
+     * @return Read-only buffer over the contents of the file at the time of mapping.
+     * @throws IOException Thrown if the file does not exist, is too large to map in one buffer, or cannot be mapped.
+     */
+    public MappedByteBuffer mapBinaryFile(String fileName) throws IOException {
+        return map(getBinaryPath(fileName), fileName);
+    }
+
+    /**
+     * Memory-maps the current contents of a file for reading.
+     * @param filePath Path of the file to map.
+     * @param fileName Name of the file, for error messages.
+     * @return Read-only buffer over the contents of the file at the time of mapping.
+     * @throws IOException Thrown if the file does not exist, is too large to map in one buffer, or cannot be mapped.
+     */
+    private MappedByteBuffer map(Path filePath, String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw (new IOException("File is larger than " + Integer.MAX_VALUE + " bytes."));
+            }
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to map file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks if a user-specified text file holds exactly the given content, comparing the file size first and then the contents in blocks.
+     * @param fileName Text file to compare.
+     * @param content Content to compare the file against.
+     * @return True if the file exists and its bytes are the same as the content.
+     * @throws IOException Thrown if there is an error in the read process.
+     */
+    public boolean isFileContentEqual(String fileName, byte[] content) throws IOException {
+        if (!isFileExists(fileName) || getFileSize(fileName) != content.length) {
+            return false;
+        }
+
+        try (InputStream in = Files.newInputStream(getPath(fileName))) {
+            final byte[] buffer = new byte[8192];
+            int offset = 0;
+            int length;
+
+            while ((length = in.read(buffer)) != -1) {
+                if (offset + length > content.length || !Arrays.equals(buffer, 0, length, content, offset, offset + length)) {
+                    return false;
+                }
+
+                offset += length;
+            }
+
+            return offset == content.length;
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to read file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
     /**
      * Writes a line of data into the specified text file.
      * @param fileName Text file to write to.
@@ -82,6 +179,198 @@ public class FileIO {
         }
     }
 
+    /**
+     * Writes multiple lines of data into the specified text file in a single append, encoded in UTF-8 as the text files are read.
+     * @param fileName Text file to write to.
+     * @param lines Lines of text to write.
+     * @param sync Forces the written data onto the storage device before returning if set to true.
+     * @throws IOException Thrown if the function fails to check if the file exists or if there is an error in the write process.
+     */
+    public void writeLines(String fileName, List<String> lines, boolean sync) throws IOException {
+        try {
+            createFileIfNotExists(fileName);
+            StringBuilder sb = new StringBuilder();
+
+            for (String line : lines) {
+                sb.append(line).append("\n");
+            }
+
+            try (FileChannel channel = FileChannel.open(getPath(fileName), StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                if (sync) {
+                    channel.force(true);
+                }
+            }
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to write lines to file for '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Appends bytes to the end of the specified binary file.
+     * @param fileName Binary file to write to.
+     * @param data Bytes to append.
+     * @param sync Forces the written data onto the storage device before returning if set to true.
+     * @return Offset in the file where the appended bytes start.
+     * @throws IOException Thrown if the function fails to check if the file exists or if there is an error in the write process.
+     */
+    public long appendBytes(String fileName, byte[] data, boolean sync) throws IOException {
+        try {
+            Path filePath = getBinaryPath(fileName);
+            createFileIfNotExists(filePath);
+
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE)) {
+                final long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                channel.position(offset);
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                if (sync) {
+                    channel.force(true);
+                }
+
+                return offset;
+            }
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to append bytes to file for '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Reads all bytes from the specified binary file.
+     * @param fileName Binary file to read from.
+     * @return Bytes of the file.
+     * @throws IOException Thrown if there is an error in the read process.
+     */
+    public byte[] readBytes(String fileName) throws IOException {
+        try {
+            return Files.readAllBytes(getBinaryPath(fileName));
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to read bytes from file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Reads a range of bytes from the specified binary file without reading the rest of the file.
+     * @param fileName Binary file to read from.
+     * @param offset Offset in the file to start reading from.
+     * @param length Number of bytes to read.
+     * @return Bytes read from the file.
+     * @throws IOException Thrown if there is an error in the read process, or if the file ends before the requested range.
+     */
+    public byte[] readBytes(String fileName, long offset, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(getBinaryPath(fileName), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) == -1) {
+                    throw (new IOException("Unexpected end of file at offset " + (offset + buffer.position()) + "."));
+                }
+            }
+
+            return buffer.array();
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to read bytes from file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Checks if the specified text file exists.
+     * @param fileName Text file to check.
+     * @return True / False
+     */
+    public boolean isFileExists(String fileName) {
+        return Files.exists(getPath(fileName));
+    }
+
+    /**
+     * Checks if the specified binary file exists.
+     * @param fileName Binary file to check.
+     * @return True / False
+     */
+    public boolean isBinaryFileExists(String fileName) {
+        return Files.exists(getBinaryPath(fileName));
+    }
+
+    /**
+     * Retrieves the size of the specified text file.
+     * @param fileName Text file to check.
+     * @return Size of the file in bytes, or 0 if it does not exist.
+     * @throws IOException Thrown if the size of the file could not be read.
+     */
+    public long getFileSize(String fileName) throws IOException {
+        return getSize(getPath(fileName), fileName);
+    }
+
+    /**
+     * Retrieves the size of the specified binary file.
+     * @param fileName Binary file to check.
+     * @return Size of the file in bytes, or 0 if it does not exist.
+     * @throws IOException Thrown if the size of the file could not be read.
+     */
+    public long getBinaryFileSize(String fileName) throws IOException {
+        return getSize(getBinaryPath(fileName), fileName);
+    }
+
+    /**
+     * Truncates the specified text file to a size, dropping anything written past it.
+     * @param fileName Text file to truncate.
+     * @param size Size to truncate the file to, in bytes.
+     * @throws IOException Thrown if the file does not exist or if there is an error in the truncate process.
+     */
+    public void truncateFile(String fileName, long size) throws IOException {
+        truncate(getPath(fileName), fileName, size);
+    }
+
+    /**
+     * Truncates the specified binary file to a size, dropping anything written past it.
+     * @param fileName Binary file to truncate.
+     * @param size Size to truncate the file to, in bytes.
+     * @throws IOException Thrown if the file does not exist or if there is an error in the truncate process.
+     */
+    public void truncateBinaryFile(String fileName, long size) throws IOException {
+        truncate(getBinaryPath(fileName), fileName, size);
+    }
+
+    /**
+     * Retrieves the size of a file.
+     * @param filePath Path of the file.
+     * @param fileName Name of the file, for error messages.
+     * @return Size of the file in bytes, or 0 if it does not exist.
+     * @throws IOException Thrown if the size of the file could not be read.
+     */
+    private long getSize(Path filePath, String fileName) throws IOException {
+        try {
+            return Files.exists(filePath) ? Files.size(filePath) : 0;
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to read the size of file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Truncates a file to a size and forces the change onto the storage device.
+     * @param filePath Path of the file.
+     * @param fileName Name of the file, for error messages.
+     * @param size Size to truncate the file to, in bytes.
+     * @throws IOException Thrown if the file does not exist or if there is an error in the truncate process.
+     */
+    private void truncate(Path filePath, String fileName, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to truncate file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
     /**
      * Replaces a line of data in the specified text file.
      * @param fileName Text file to update.
@@ -119,6 +408,64 @@ public class FileIO {
         }
     }
 
+    /**
+     * Replaces a text file with another, so the target file holds either its old or new contents even if the application stops part way.
+     * @param sourceFileName Text file holding the new contents. It no longer exists afterwards.
+     * @param targetFileName Text file to replace.
+     * @throws IOException Thrown if the source file does not exist or if there is an error in the move process.
+     */
+    public void replaceFile(String sourceFileName, String targetFileName) throws IOException {
+        replace(getPath(sourceFileName), getPath(targetFileName), targetFileName);
+    }
+
+    /**
+     * Replaces a binary file with another, so the target file holds either its old or new contents even if the application stops part way.
+     * @param sourceFileName Binary file holding the new contents. It no longer exists afterwards.
+     * @param targetFileName Binary file to replace.
+     * @throws IOException Thrown if the source file does not exist or if there is an error in the move process.
+     */
+    public void replaceBinaryFile(String sourceFileName, String targetFileName) throws IOException {
+        replace(getBinaryPath(sourceFileName), getBinaryPath(targetFileName), targetFileName);
+    }
+
+    /**
+     * Atomically moves a file over another.
+     * @param sourcePath Path of the file holding the new contents.
+     * @param targetPath Path of the file to replace.
+     * @param targetFileName Name of the file to replace, for error messages.
+     * @throws IOException Thrown if the source file does not exist or if there is an error in the move process.
+     */
+    private void replace(Path sourcePath, Path targetPath, String targetFileName) throws IOException {
+        try {
+            Files.move(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw (new IOException("File IO error when attempting to replace file '" + targetFileName + "': " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Opens and locks the specified text file, so other processes sharing the storage directory wait until it is released.
+     * The lock is released when the returned channel is closed.
+     * @param fileName Text file to lock. It is created if it does not exist.
+     * @return Channel of the locked file.
+     * @throws IOException Thrown if the file cannot be created, opened or locked.
+     */
+    public FileChannel lockFile(String fileName) throws IOException {
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(getPath(fileName), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            channel.lock();
+            return channel;
+        } catch (IOException e) {
+            if (channel != null) {
+                channel.close();
+            }
+
+            throw (new IOException("File IO error when attempting to lock file '" + fileName + "': " + e.getMessage()));
+        }
+    }
+
     /**
      * Clears the specified text file of all data.
      * @param fileName Text file to clear data from.
@@ -145,19 +492,37 @@ public class FileIO {
         return Paths.get(FILE_DIR + fileName.toLowerCase() + FILE_EXT);
     }
 
+    /**
+     * Formats the path string for binary files by appending the directory and binary extension.
+     * @param fileName Binary file name to be formatted into the string
+     * @return Formatted path
+     */
+    private Path getBinaryPath(String fileName) {
+        String FILE_EXT = ".bin";
+        return Paths.get(FILE_DIR + fileName.toLowerCase() + FILE_EXT);
+    }
+
     /**
      * Creates the specified file if it does not exist.
      * @param fileName File name to create or check
      * @throws IOException Thrown if the function fails to check if the file exists or if there is an error when creating the file.
      */
     private void createFileIfNotExists(String fileName) throws IOException {
-        Path filePath = getPath(fileName);
+        createFileIfNotExists(getPath(fileName));
+    }
 
+    /**
+     * Creates the file at the specified path, along with any missing parent directories, if it does not exist.
+     * @param filePath Path of the file to create or check
+     * @throws IOException Thrown if the function fails to check if the file exists or if there is an error when creating the file.
+     */
+    private void createFileIfNotExists(Path filePath) throws IOException {
         if (!Files.exists(filePath)) {
             try {
+                Files.createDirectories(filePath.getParent());
                 Files.createFile(filePath);
             } catch (IOException e) {
-                throw (new IOException("Failed to create file for '" + fileName + "': " + e.getMessage()));
+                throw (new IOException("Failed to create file '" + filePath.getFileName() + "': " + e.getMessage()));
             }
         }
     }